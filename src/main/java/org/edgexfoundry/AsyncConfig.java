@@ -0,0 +1,49 @@
+/*******************************************************************************
+ * Copyright 2016-2017 Dell Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * @microservice:  support-logging
+ * @author: Jude Hung, Dell
+ * @version: 1.0.0
+ *******************************************************************************/
+package org.edgexfoundry;
+
+import java.util.concurrent.Executor;
+
+import org.edgexfoundry.support.logging.service.IngestionExecutor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.AsyncConfigurerSupport;
+
+@Configuration
+public class AsyncConfig extends AsyncConfigurerSupport {
+
+	private @Value("${logging.ingestion.workers:2}") int workers;
+	private @Value("${logging.ingestion.queue.capacity:1000}") int queueCapacity;
+
+	/**
+	 * Replace the default SimpleAsyncTaskExecutor, which starts a new thread
+	 * for every @Async invocation, with a bounded pool
+	 */
+	public @Bean IngestionExecutor ingestionExecutor() {
+		return new IngestionExecutor(workers, queueCapacity);
+	}
+
+	@Override
+	public Executor getAsyncExecutor() {
+		return ingestionExecutor();
+	}
+
+}
@@ -0,0 +1,196 @@
+/*******************************************************************************
+ * Copyright 2016-2017 Dell Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * @microservice:  support-logging
+ * @author: Jude Hung, Dell
+ * @version: 1.0.0
+ *******************************************************************************/
+package org.edgexfoundry.support.logging.controller;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.edgexfoundry.support.domain.logging.LogEntry;
+import org.slf4j.event.Level;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Decode logEntries from a JSON request body with the Jackson streaming
+ * parser. The body may hold a single logEntry or an array of them; entries
+ * are handed over in chunks as soon as they are decoded, so memory stays
+ * bounded by the chunk size no matter how large the request is.
+ */
+@Component
+public class LogEntryStreamReader {
+
+	/**
+	 * Receives the decoded logEntries one chunk at a time
+	 */
+	public interface ChunkHandler {
+
+		void handle(List<LogEntry> chunk);
+
+	}
+
+	private final JsonFactory factory;
+
+	@Autowired
+	public LogEntryStreamReader(ObjectMapper mapper) {
+		this(mapper.getFactory());
+	}
+
+	LogEntryStreamReader(JsonFactory factory) {
+		this.factory = factory;
+	}
+
+	/**
+	 * Read all logEntries of the stream
+	 * 
+	 * @param in - JSON request body
+	 * @param created - created timestamp assigned to every logEntry
+	 * @param chunkSize - maximum number of logEntries per chunk
+	 * @param handler - receives the chunks in request order
+	 * @return number of logEntries read
+	 * @throws IOException
+	 *             when the body is not a logEntry or an array of logEntries;
+	 *             chunks completed before the error have been handed over
+	 */
+	public int read(InputStream in, long created, int chunkSize, ChunkHandler handler) throws IOException {
+		JsonParser parser = factory.createParser(in);
+		try {
+			JsonToken token = parser.nextToken();
+			if (null == token) {
+				return 0;
+			}
+			if (token == JsonToken.START_OBJECT) {
+				List<LogEntry> chunk = new ArrayList<LogEntry>(1);
+				chunk.add(readEntry(parser, created));
+				handler.handle(chunk);
+				return 1;
+			}
+			if (token != JsonToken.START_ARRAY) {
+				throw new JsonParseException(parser, "Expect a logEntry or an array of logEntries");
+			}
+			int count = 0;
+			List<LogEntry> chunk = new ArrayList<LogEntry>(chunkSize);
+			while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+				if (token != JsonToken.START_OBJECT) {
+					throw new JsonParseException(parser, "Expect a logEntry");
+				}
+				chunk.add(readEntry(parser, created));
+				count++;
+				if (chunk.size() >= chunkSize) {
+					handler.handle(chunk);
+					chunk = new ArrayList<LogEntry>(chunkSize);
+				}
+			}
+			if (!chunk.isEmpty()) {
+				handler.handle(chunk);
+			}
+			return count;
+		} finally {
+			parser.close();
+		}
+	}
+
+	private LogEntry readEntry(JsonParser parser, long created) throws IOException {
+		LogEntry entry = new LogEntry();
+		entry.setCreated(created);
+		JsonToken token;
+		while ((token = parser.nextToken()) == JsonToken.FIELD_NAME) {
+			String field = parser.getCurrentName();
+			JsonToken value = parser.nextToken();
+			if ("logLevel".equals(field)) {
+				entry.setLogLevel(readLevel(parser, value));
+			} else if ("originService".equals(field)) {
+				entry.setOriginService(readString(parser, value));
+			} else if ("message".equals(field)) {
+				entry.setMessage(readString(parser, value));
+			} else if ("labels".equals(field)) {
+				entry.setLabels(readLabels(parser, value));
+			} else {
+				// created is assigned by the service, anything else is unknown
+				parser.skipChildren();
+			}
+		}
+		if (token != JsonToken.END_OBJECT) {
+			throw new JsonParseException(parser, "Truncated logEntry");
+		}
+		if (null == entry.getLogLevel()) {
+			throw new JsonParseException(parser, "logEntry without logLevel");
+		}
+		return entry;
+	}
+
+	/**
+	 * Read a scalar value as text, an object or array in its place is skipped
+	 * as a whole so its members aren't taken for logEntry fields
+	 */
+	private String readString(JsonParser parser, JsonToken value) throws IOException {
+		if (null == value) {
+			throw new JsonParseException(parser, "Truncated logEntry");
+		}
+		if (value.isStructStart()) {
+			parser.skipChildren();
+			return null;
+		}
+		return parser.getValueAsString();
+	}
+
+	private Level readLevel(JsonParser parser, JsonToken value) throws IOException {
+		String level = readString(parser, value);
+		try {
+			return null == level ? null : Level.valueOf(level);
+		} catch (IllegalArgumentException e) {
+			throw new JsonParseException(parser, "Unknown logLevel " + level);
+		}
+	}
+
+	private String[] readLabels(JsonParser parser, JsonToken value) throws IOException {
+		if (null == value) {
+			throw new JsonParseException(parser, "Truncated logEntry");
+		}
+		if (value == JsonToken.VALUE_NULL) {
+			return null;
+		}
+		if (value != JsonToken.START_ARRAY) {
+			throw new JsonParseException(parser, "Expect labels to be an array");
+		}
+		List<String> labels = new ArrayList<String>();
+		JsonToken token;
+		while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+			if (null == token) {
+				throw new JsonParseException(parser, "Truncated labels");
+			}
+			if (token.isStructStart()) {
+				// labels are strings, nested objects and arrays are dropped
+				parser.skipChildren();
+			} else {
+				labels.add(parser.getValueAsString());
+			}
+		}
+		return labels.toArray(new String[labels.size()]);
+	}
+
+}
@@ -19,27 +19,47 @@
  *******************************************************************************/
 package org.edgexfoundry.support.logging.controller;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
 
+import org.edgexfoundry.exception.controller.DataValidationException;
 import org.edgexfoundry.exception.controller.LimitExceededException;
 import org.edgexfoundry.exception.controller.ServiceException;
 import org.edgexfoundry.support.domain.logging.LogEntry;
 import org.edgexfoundry.support.domain.logging.MatchCriteria;
+import org.edgexfoundry.support.logging.dao.LogEntryPage;
+import org.edgexfoundry.support.logging.service.LevelThresholds;
+import org.edgexfoundry.support.logging.service.LiveTail;
 import org.edgexfoundry.support.logging.service.LoggingService;
+import org.edgexfoundry.support.logging.service.RateLimiter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.slf4j.event.Level;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.util.CloseableIterator;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.HttpMessageNotReadableException;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 
 @RestController
 @RequestMapping("/api/v1/logs")
@@ -53,13 +73,46 @@ public class LoggingController {
 	@Value("${read.max.limit:100}")
 	private int MAX_LIMIT;
 
+	@Value("${write.max.limit:1000}")
+	private int MAX_BATCH;
+
+	@Value("${write.batch.size:100}")
+	private int BATCH_SIZE;
+
+	@Autowired
+	private LogEntryStreamReader reader;
+
+	@Autowired
+	private LevelThresholds thresholds;
+
+	@Autowired
+	private RateLimiter rateLimiter;
+
+	@Autowired
+	private ObjectMapper mapper;
+
+	@Autowired
+	private LiveTail liveTail;
+
+	// in milliseconds, subscribers reconnect once a tail times out
+	@Value("${logging.tail.timeout:1800000}")
+	private long tailTimeout;
+
+	// logEntries written between flushes of an export
+	private final static int EXPORT_FLUSH_SIZE = 100;
+
 	/**
-	 * Receive request to create a new logEntry into logging service. 
-	 * ServiceException (HTTP 503) for unknown or unanticipated issues.
+	 * Receive request to create a new logEntry into logging service. A
+	 * logEntry below the threshold of its originService, or dropped by the
+	 * rate limit of its originService, is accepted but discarded without being
+	 * queued. ServiceException (HTTP 503) when the ingestion queue is full or
+	 * for unknown or unanticipated issues.
 	 * 
 	 * @param entry - logEntry to be created
 	 * @return timestamp(in the form of long) being accepted
-	 * @throws ServiceException (HTTP 503) for unknown or unanticipated issues
+	 * @throws ServiceException
+	 *             (HTTP 503) when the ingestion queue is full or for unknown or
+	 *             unanticipated issues
 	 */
 	@RequestMapping(method = RequestMethod.POST)
 	public ResponseEntity<?> addLogEntry(@RequestBody LogEntry entry) {
@@ -67,14 +120,83 @@ public class LoggingController {
 		Date currentTime = Calendar.getInstance().getTime();
 		entry.setCreated(currentTime.getTime());
 		try {
-			service.addLogEntry(entry);
+			if (thresholds.accept(entry) && rateLimiter.accept(entry)) {
+				service.addLogEntry(entry);
+			}
 			return new ResponseEntity<Long>(currentTime.getTime(), HttpStatus.ACCEPTED);
+		} catch (RejectedExecutionException e){
+			logger.warn("Ingestion queue is full, rejecting logging request");
+			throw new ServiceException(e);
 		} catch (Exception e){
 			logger.error("Error adding logEntry:", e);
 			throw new ServiceException(e);
 		}
 	}
 
+	/**
+	 * Receive request to create a batch of logEntries into logging service
+	 * with a single request. The body, a logEntry or an array of logEntries,
+	 * is decoded as a stream into chunks of write.batch.size logEntries. The
+	 * whole body is decoded before any chunk is handed to the service, so a
+	 * request either has all its logEntries accepted or none of them. All
+	 * logEntries of the batch share the same created timestamp. LogEntries
+	 * below the threshold of their originService, or dropped by the rate
+	 * limit of their originService, are discarded before being handed over.
+	 * LimitExceededException (HTTP 413) if the number of logEntries exceeds
+	 * the current max batch size. HttpMessageNotReadableException (HTTP 400)
+	 * for a malformed body. ServiceException (HTTP 503) when the ingestion
+	 * queue is full or for unknown or unanticipated issues.
+	 * 
+	 * @param body - JSON stream of logEntries to be created
+	 * @return timestamp(in the form of long) being accepted
+	 * @throws LimitExceededException
+	 *             (HTTP 413) if the number of logEntries exceeds the current
+	 *             max batch size
+	 * @throws HttpMessageNotReadableException
+	 *             (HTTP 400) for a malformed body
+	 * @throws ServiceException
+	 *             (HTTP 503) for unknown or unanticipated issues
+	 */
+	@RequestMapping(value = "/batch", method = RequestMethod.POST)
+	public ResponseEntity<?> addLogEntries(InputStream body) {
+		logger.debug("Receiving batch logging request...");
+		Date currentTime = Calendar.getInstance().getTime();
+		final List<List<LogEntry>> chunks = new ArrayList<List<LogEntry>>();
+		try {
+			int count = reader.read(body, currentTime.getTime(), BATCH_SIZE, new LogEntryStreamReader.ChunkHandler() {
+				private int decoded;
+
+				@Override
+				public void handle(List<LogEntry> chunk) {
+					decoded += chunk.size();
+					if (decoded > MAX_BATCH) {
+						throw new LimitExceededException("LogEntry");
+					}
+					chunks.add(chunk);
+				}
+			});
+			for (List<LogEntry> chunk : chunks) {
+				thresholds.filter(chunk);
+				rateLimiter.filter(chunk);
+				if (!chunk.isEmpty()) {
+					service.addLogEntries(chunk);
+				}
+			}
+			logger.debug("Accepted {} logEntries", count);
+			return new ResponseEntity<Long>(currentTime.getTime(), HttpStatus.ACCEPTED);
+		} catch (LimitExceededException e){
+			throw e;
+		} catch (JsonProcessingException e){
+			throw new HttpMessageNotReadableException("Malformed logEntries: " + e.getOriginalMessage(), e);
+		} catch (RejectedExecutionException e){
+			logger.warn("Ingestion queue is full, rejecting logging request");
+			throw new ServiceException(e);
+		} catch (Exception e){
+			logger.error("Error adding logEntries:", e);
+			throw new ServiceException(e);
+		}
+	}
+
 	/**
 	 * Return a collection of LogEntry - limited in size by the limit parameter.
 	 * LimitExceededException (HTTP 413) if the number of events exceeds the
@@ -82,6 +204,7 @@ public class LoggingController {
 	 * unanticipated issues.
 	 * 
 	 * @param limit - the maximum number of records to fetch
+	 * @param sort - asc for the oldest logEntries first (default), desc for the newest first
 	 * @return a collection of LogEntry
 	 * @throws ServiceException
 	 *             (HTTP 503) for unknown or unanticipated issues
@@ -90,13 +213,15 @@ public class LoggingController {
 	 *             limit
 	 */
 	@RequestMapping(value = "/{limit}", method = RequestMethod.GET)
-	public List<LogEntry> getLogEntries(@PathVariable int limit) {
+	public List<LogEntry> getLogEntries(@PathVariable int limit,
+			@RequestParam(value = "sort", defaultValue = "asc") String sort) {
 		if (limit > MAX_LIMIT){
 			throw new LimitExceededException("LogEntry");
 		}
+		Sort.Direction direction = direction(sort);
 		MatchCriteria criteria = new MatchCriteria();
 		try {
-			List<LogEntry> result = service.searchByCriteria(criteria, limit);
+			List<LogEntry> result = service.searchByCriteria(criteria, limit, direction);
 			return result;
 		} catch (Exception e){
 			logger.error("Error fetching logEntry:", e);
@@ -113,6 +238,7 @@ public class LoggingController {
 	 * @param start - start date in long form
 	 * @param end - end date in long form
 	 * @param limit - maximum number of events to fetch, must be <= MAX_LIMIT
+	 * @param sort - asc for the oldest logEntries first (default), desc for the newest first
 	 * @return list of LogEntry between the specified dates
 	 * @throws ServiceException
 	 *             (HTTP 503) for unknown or unanticipated issues
@@ -122,15 +248,17 @@ public class LoggingController {
 	 */
 	@RequestMapping(value = "/{start}/{end}/{limit}", method = RequestMethod.GET)
 	public List<LogEntry> getLogEntriesByTime(@PathVariable long start, @PathVariable long end,
-			@PathVariable int limit) {
+			@PathVariable int limit,
+			@RequestParam(value = "sort", defaultValue = "asc") String sort) {
 		if (limit > MAX_LIMIT){
 			throw new LimitExceededException("LogEntry");
 		}
+		Sort.Direction direction = direction(sort);
 		MatchCriteria criteria = new MatchCriteria();
 		criteria.setStart(start);
 		criteria.setEnd(end);
 		try {
-			List<LogEntry> result = service.searchByCriteria(criteria, limit);
+			List<LogEntry> result = service.searchByCriteria(criteria, limit, direction);
 			return result;
 		} catch (Exception e){
 			logger.error("Error fetching logEntry:", e);
@@ -149,6 +277,7 @@ public class LoggingController {
 	 * @param start - start date in long form
 	 * @param end - end date in long form
 	 * @param limit - maximum number of events to fetch, must be <= MAX_LIMIT
+	 * @param sort - asc for the oldest logEntries first (default), desc for the newest first
 	 * @return list of LogEntry matching any of the specified labels and being created between the specified dates
 	 * @throws ServiceException
 	 *             (HTTP 503) for unknown or unanticipated issues
@@ -158,16 +287,18 @@ public class LoggingController {
 	 */
 	@RequestMapping(value = "/labels/{labels}/{start}/{end}/{limit}", method = RequestMethod.GET)
 	public List<LogEntry> getLogEntriesByLabels(@PathVariable String[] labels, @PathVariable long start,
-			@PathVariable long end, @PathVariable int limit) {
+			@PathVariable long end, @PathVariable int limit,
+			@RequestParam(value = "sort", defaultValue = "asc") String sort) {
 		if (limit > MAX_LIMIT){
 			throw new LimitExceededException("LogEntry");
 		}
+		Sort.Direction direction = direction(sort);
 		MatchCriteria criteria = new MatchCriteria();
 		criteria.setStart(start);
 		criteria.setEnd(end);
 		criteria.setLabels(labels);
 		try {
-			List<LogEntry> result = service.searchByCriteria(criteria, limit);
+			List<LogEntry> result = service.searchByCriteria(criteria, limit, direction);
 			return result;
 		} catch (Exception e){
 			logger.error("Error fetching logEntry:", e);
@@ -186,6 +317,7 @@ public class LoggingController {
 	 * @param start - start date in long form
 	 * @param end - end date in long form
 	 * @param limit - maximum number of events to fetch, must be <= MAX_LIMIT
+	 * @param sort - asc for the oldest logEntries first (default), desc for the newest first
 	 * @return list of LogEntry matching any of the specified originServices and being created between the specified dates
 	 * @throws ServiceException
 	 *             (HTTP 503) for unknown or unanticipated issues
@@ -195,16 +327,18 @@ public class LoggingController {
 	 */
 	@RequestMapping(value = "/originServices/{originServices}/{start}/{end}/{limit}", method = RequestMethod.GET)
 	public List<LogEntry> getLogEntriesByOriginServices(@PathVariable String[] originServices, @PathVariable long start,
-			@PathVariable long end, @PathVariable int limit) {
+			@PathVariable long end, @PathVariable int limit,
+			@RequestParam(value = "sort", defaultValue = "asc") String sort) {
 		if (limit > MAX_LIMIT){
 			throw new LimitExceededException("LogEntry");
 		}
+		Sort.Direction direction = direction(sort);
 		MatchCriteria criteria = new MatchCriteria();
 		criteria.setStart(start);
 		criteria.setEnd(end);
 		criteria.setOriginServices(originServices);
 		try {
-			List<LogEntry> result = service.searchByCriteria(criteria, limit);
+			List<LogEntry> result = service.searchByCriteria(criteria, limit, direction);
 			return result;
 		} catch (Exception e){
 			logger.error("Error fetching logEntry:", e);
@@ -223,6 +357,7 @@ public class LoggingController {
 	 * @param start - start date in long form
 	 * @param end - end date in long form
 	 * @param limit - maximum number of events to fetch, must be <= MAX_LIMIT
+	 * @param sort - asc for the oldest logEntries first (default), desc for the newest first
 	 * @return list of LogEntry whose message contains any of the specified keywords and being created between the specified dates
 	 * @throws ServiceException
 	 *             (HTTP 503) for unknown or unanticipated issues
@@ -232,16 +367,18 @@ public class LoggingController {
 	 */
 	@RequestMapping(value = "/keywords/{keywords}/{start}/{end}/{limit}", method = RequestMethod.GET)
 	public List<LogEntry> getLogEntriesByKeywords(@PathVariable String[] keywords, @PathVariable long start,
-			@PathVariable long end, @PathVariable int limit) {
+			@PathVariable long end, @PathVariable int limit,
+			@RequestParam(value = "sort", defaultValue = "asc") String sort) {
 		if (limit > MAX_LIMIT){
 			throw new LimitExceededException("LogEntry");
 		}
+		Sort.Direction direction = direction(sort);
 		MatchCriteria criteria = new MatchCriteria();
 		criteria.setStart(start);
 		criteria.setEnd(end);
 		criteria.setMessageKeywords(keywords);
 		try {
-			List<LogEntry> result = service.searchByCriteria(criteria, limit);
+			List<LogEntry> result = service.searchByCriteria(criteria, limit, direction);
 			return result;
 		} catch (Exception e){
 			logger.error("Error fetching logEntry:", e);
@@ -260,6 +397,7 @@ public class LoggingController {
 	 * @param start - start date in long form
 	 * @param end - end date in long form
 	 * @param limit - maximum number of events to fetch, must be <= MAX_LIMIT
+	 * @param sort - asc for the oldest logEntries first (default), desc for the newest first
 	 * @return list of LogEntry matching any of the specified logLevels and being created between the specified dates
 	 * @throws ServiceException
 	 *             (HTTP 503) for unknown or unanticipated issues
@@ -269,16 +407,18 @@ public class LoggingController {
 	 */
 	@RequestMapping(value = "/logLevels/{logLevels}/{start}/{end}/{limit}", method = RequestMethod.GET)
 	public List<LogEntry> getLogEntriesBylogLevels(@PathVariable Level[] logLevels, @PathVariable long start,
-			@PathVariable long end, @PathVariable int limit) {
+			@PathVariable long end, @PathVariable int limit,
+			@RequestParam(value = "sort", defaultValue = "asc") String sort) {
 		if (limit > MAX_LIMIT){
 			throw new LimitExceededException("LogEntry");
 		}
+		Sort.Direction direction = direction(sort);
 		MatchCriteria criteria = new MatchCriteria();
 		criteria.setStart(start);
 		criteria.setEnd(end);
 		criteria.setLogLevels(logLevels);
 		try {
-			List<LogEntry> result = service.searchByCriteria(criteria, limit);
+			List<LogEntry> result = service.searchByCriteria(criteria, limit, direction);
 			return result;
 		} catch (Exception e){
 			logger.error("Error fetching logEntry:", e);
@@ -298,6 +438,7 @@ public class LoggingController {
 	 * @param start - start date in long form
 	 * @param end - end date in long form
 	 * @param limit - maximum number of events to fetch, must be <= MAX_LIMIT
+	 * @param sort - asc for the oldest logEntries first (default), desc for the newest first
 	 * @return list of LogEntry matching any of the specified logLevels, originServices and also being created between the specified dates
 	 * @throws ServiceException
 	 *             (HTTP 503) for unknown or unanticipated issues
@@ -308,17 +449,19 @@ public class LoggingController {
 	@RequestMapping(value = "/logLevels/{logLevels}/originServices/{originServices}/{start}/{end}/{limit}", method = RequestMethod.GET)
 	public List<LogEntry> getLogEntriesBylogLevelsAndOriginServices(@PathVariable Level[] logLevels,
 			@PathVariable String[] originServices, @PathVariable long start, @PathVariable long end,
-			@PathVariable int limit) {
+			@PathVariable int limit,
+			@RequestParam(value = "sort", defaultValue = "asc") String sort) {
 		if (limit > MAX_LIMIT){
 			throw new LimitExceededException("LogEntry");
 		}
+		Sort.Direction direction = direction(sort);
 		MatchCriteria criteria = new MatchCriteria();
 		criteria.setStart(start);
 		criteria.setEnd(end);
 		criteria.setLogLevels(logLevels);
 		criteria.setOriginServices(originServices);
 		try {
-			List<LogEntry> result = service.searchByCriteria(criteria, limit);
+			List<LogEntry> result = service.searchByCriteria(criteria, limit, direction);
 			return result;
 		} catch (Exception e){
 			logger.error("Error fetching logEntry:", e);
@@ -339,6 +482,7 @@ public class LoggingController {
 	 * @param start - start date in long form
 	 * @param end - end date in long form
 	 * @param limit - maximum number of events to fetch, must be <= MAX_LIMIT
+	 * @param sort - asc for the oldest logEntries first (default), desc for the newest first
 	 * @return list of LogEntry matching any of the specified logLevels, originServices, labels and also being created between the specified dates
 	 * @throws ServiceException
 	 *             (HTTP 503) for unknown or unanticipated issues
@@ -349,10 +493,12 @@ public class LoggingController {
 	@RequestMapping(value = "/logLevels/{logLevels}/originServices/{originServices}/labels/{labels}/{start}/{end}/{limit}", method = RequestMethod.GET)
 	public List<LogEntry> getLogEntriesBylogLevelsAndOriginServicesAndLabels(@PathVariable Level[] logLevels,
 			@PathVariable String[] originServices, @PathVariable String[] labels, @PathVariable long start,
-			@PathVariable long end, @PathVariable int limit) {
+			@PathVariable long end, @PathVariable int limit,
+			@RequestParam(value = "sort", defaultValue = "asc") String sort) {
 		if (limit > MAX_LIMIT){
 			throw new LimitExceededException("LogEntry");
 		}
+		Sort.Direction direction = direction(sort);
 		MatchCriteria criteria = new MatchCriteria();
 		criteria.setStart(start);
 		criteria.setEnd(end);
@@ -360,7 +506,7 @@ public class LoggingController {
 		criteria.setOriginServices(originServices);
 		criteria.setLabels(labels);
 		try {
-			List<LogEntry> result = service.searchByCriteria(criteria, limit);
+			List<LogEntry> result = service.searchByCriteria(criteria, limit, direction);
 			return result;
 		} catch (Exception e){
 			logger.error("Error fetching logEntry:", e);
@@ -383,6 +529,7 @@ public class LoggingController {
 	 * @param start - start date in long form
 	 * @param end - end date in long form
 	 * @param limit - maximum number of events to fetch, must be <= MAX_LIMIT
+	 * @param sort - asc for the oldest logEntries first (default), desc for the newest first
 	 * @return list a collection of LogEntry whose message containing any of the specified keywords, matching any of the specified logLevels, originServices, labels, and also being created between the specified dates
 	 * @throws ServiceException
 	 *             (HTTP 503) for unknown or unanticipated issues
@@ -393,10 +540,12 @@ public class LoggingController {
 	@RequestMapping(value = "/logLevels/{logLevels}/originServices/{originServices}/labels/{labels}/keywords/{keywords}/{start}/{end}/{limit}", method = RequestMethod.GET)
 	public List<LogEntry> getLogEntriesBylogLevelsAndOriginServicesAndLabelsAndKeywords(@PathVariable Level[] logLevels,
 			@PathVariable String[] originServices, @PathVariable String[] labels, @PathVariable String[] keywords,
-			@PathVariable long start, @PathVariable long end, @PathVariable int limit) {
+			@PathVariable long start, @PathVariable long end, @PathVariable int limit,
+			@RequestParam(value = "sort", defaultValue = "asc") String sort) {
 		if (limit > MAX_LIMIT){
 			throw new LimitExceededException("LogEntry");
 		}
+		Sort.Direction direction = direction(sort);
 		MatchCriteria criteria = new MatchCriteria();
 		criteria.setStart(start);
 		criteria.setEnd(end);
@@ -405,7 +554,7 @@ public class LoggingController {
 		criteria.setLabels(labels);
 		criteria.setMessageKeywords(keywords);
 		try {
-			List<LogEntry> result = service.searchByCriteria(criteria, limit);
+			List<LogEntry> result = service.searchByCriteria(criteria, limit, direction);
 			return result;
 		} catch (Exception e){
 			logger.error("Error fetching logEntry:", e);
@@ -413,6 +562,182 @@ public class LoggingController {
 		}
 	}
 	
+	/**
+	 * Return a page of LogEntry created between the specified dates, ordered
+	 * by created, optionally matching any of the specified logLevels,
+	 * originServices, labels and keywords. Each page holds at most limit
+	 * logEntries and the cursor to pass to fetch the next one, null once the
+	 * last page is reached, so that any number of logEntries can be read
+	 * beyond the max limit. LimitExceededException (HTTP 413) if the limit
+	 * exceeds the current max limit. DataValidationException if the cursor
+	 * is invalid. ServiceException (HTTP 503) for unknown or unanticipated
+	 * issues.
+	 * 
+	 * @param start - start date in long form
+	 * @param end - end date in long form
+	 * @param limit - maximum number of logEntries per page, must be <= MAX_LIMIT
+	 * @param logLevels - optional array of logLevel used as search criteria
+	 * @param originServices - optional array of originService used as search criteria
+	 * @param labels - optional array of labels used as search criteria
+	 * @param keywords - optional array of keywords used as search criteria
+	 * @param cursor - cursor of the previous page, omitted for the first page
+	 * @return the page of LogEntry with the cursor of the next page
+	 * @throws ServiceException
+	 *             (HTTP 503) for unknown or unanticipated issues
+	 * @throws LimitExceededException
+	 *             (HTTP 413) if the limit exceeds the current max limit
+	 * @throws DataValidationException
+	 *             if the cursor is invalid
+	 */
+	@RequestMapping(value = "/page/{start}/{end}/{limit}", method = RequestMethod.GET)
+	public LogEntryPage getLogEntriesPage(@PathVariable long start, @PathVariable long end, @PathVariable int limit,
+			@RequestParam(required = false) Level[] logLevels, @RequestParam(required = false) String[] originServices,
+			@RequestParam(required = false) String[] labels, @RequestParam(required = false) String[] keywords,
+			@RequestParam(required = false) String cursor) {
+		if (limit > MAX_LIMIT) {
+			throw new LimitExceededException("LogEntry");
+		}
+		MatchCriteria criteria = new MatchCriteria();
+		criteria.setStart(start);
+		criteria.setEnd(end);
+		criteria.setLogLevels(logLevels);
+		criteria.setOriginServices(originServices);
+		criteria.setLabels(labels);
+		criteria.setMessageKeywords(keywords);
+		try {
+			return service.searchPageByCriteria(criteria, limit, cursor);
+		} catch (IllegalArgumentException e) {
+			throw new DataValidationException(e.getMessage());
+		} catch (Exception e) {
+			logger.error("Error fetching logEntry page:", e);
+			throw new ServiceException(e);
+		}
+	}
+
+	/**
+	 * Export all LogEntry created between the specified dates, optionally
+	 * matching any of the specified logLevels, originServices, labels and
+	 * keywords, as newline delimited JSON. LogEntries are written as the
+	 * persistence produces them, so the export isn't bound by the max limit
+	 * nor by memory. ServiceException (HTTP 503) for unknown or unanticipated
+	 * issues before the export starts.
+	 * 
+	 * @param start - start date in long form
+	 * @param end - end date in long form
+	 * @param logLevels - optional array of logLevel used as search criteria
+	 * @param originServices - optional array of originService used as search criteria
+	 * @param labels - optional array of labels used as search criteria
+	 * @param keywords - optional array of keywords used as search criteria
+	 * @return body streaming one LogEntry per line
+	 * @throws ServiceException
+	 *             (HTTP 503) for unknown or unanticipated issues
+	 */
+	@RequestMapping(value = "/export/{start}/{end}", method = RequestMethod.GET, produces = "application/x-ndjson")
+	public StreamingResponseBody exportLogEntries(@PathVariable long start, @PathVariable long end,
+			@RequestParam(required = false) Level[] logLevels, @RequestParam(required = false) String[] originServices,
+			@RequestParam(required = false) String[] labels, @RequestParam(required = false) String[] keywords) {
+		final MatchCriteria criteria = new MatchCriteria();
+		criteria.setStart(start);
+		criteria.setEnd(end);
+		criteria.setLogLevels(logLevels);
+		criteria.setOriginServices(originServices);
+		criteria.setLabels(labels);
+		criteria.setMessageKeywords(keywords);
+		final CloseableIterator<LogEntry> entries;
+		try {
+			entries = service.streamByCriteria(criteria);
+		} catch (Exception e) {
+			logger.error("Error exporting logEntries:", e);
+			throw new ServiceException(e);
+		}
+		return new StreamingResponseBody() {
+			@Override
+			public void writeTo(OutputStream out) throws IOException {
+				try {
+					JsonGenerator generator = mapper.getFactory().createGenerator(out);
+					generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+					generator.setRootValueSeparator(null);
+					int written = 0;
+					while (entries.hasNext()) {
+						generator.writeObject(entries.next());
+						generator.writeRaw('\n');
+						if (++written % EXPORT_FLUSH_SIZE == 0) {
+							generator.flush();
+						}
+					}
+					generator.flush();
+				} catch (IOException e) {
+					logger.error("Error exporting logEntries:", e);
+					throw e;
+				} finally {
+					entries.close();
+				}
+			}
+		};
+	}
+
+	/**
+	 * Follow, as Server-Sent Events, the logEntries being received that
+	 * optionally match any of the specified logLevels, originServices, labels
+	 * and keywords. Each logEntry is sent as a "logEntry" event; when the
+	 * subscriber falls behind, the oldest pending logEntries are dropped and
+	 * a "dropped" event tells how many. The stream ends after
+	 * logging.tail.timeout, EventSource clients reconnect by themselves.
+	 * LimitExceededException (HTTP 413) if there are already too many
+	 * subscribers.
+	 * 
+	 * @param logLevels - optional array of logLevel used as criteria
+	 * @param originServices - optional array of originService used as criteria
+	 * @param labels - optional array of labels used as criteria
+	 * @param keywords - optional array of keywords used as criteria
+	 * @return the event stream
+	 * @throws LimitExceededException
+	 *             (HTTP 413) if the number of subscribers exceeds the max
+	 */
+	@RequestMapping(value = "/tail", method = RequestMethod.GET, produces = "text/event-stream")
+	public SseEmitter tailLogEntries(@RequestParam(required = false) Level[] logLevels,
+			@RequestParam(required = false) String[] originServices, @RequestParam(required = false) String[] labels,
+			@RequestParam(required = false) String[] keywords) {
+		MatchCriteria criteria = new MatchCriteria();
+		criteria.setLogLevels(logLevels);
+		criteria.setOriginServices(originServices);
+		criteria.setLabels(labels);
+		criteria.setMessageKeywords(keywords);
+		final SseEmitter emitter = new SseEmitter(tailTimeout);
+		final LiveTail.Subscription subscription = liveTail.subscribe(criteria, new LiveTail.Sink() {
+			@Override
+			public void send(LogEntry entry) throws IOException {
+				emitter.send(SseEmitter.event().name("logEntry").data(entry));
+			}
+
+			@Override
+			public void dropped(long count) throws IOException {
+				emitter.send(SseEmitter.event().name("dropped").data(count));
+			}
+
+			@Override
+			public void close(Throwable cause) {
+				if (null == cause) {
+					emitter.complete();
+				} else {
+					emitter.completeWithError(cause);
+				}
+			}
+		});
+		if (null == subscription) {
+			throw new LimitExceededException("Subscriber");
+		}
+		Runnable cancel = new Runnable() {
+			@Override
+			public void run() {
+				subscription.cancel();
+			}
+		};
+		emitter.onCompletion(cancel);
+		emitter.onTimeout(cancel);
+		return emitter;
+	}
+
 	/**
 	 * delete all LogEntry being created between specified start and end dates.
 	 * ServiceException (HTTP 503) for unknown or unanticipated issues.
@@ -644,4 +969,12 @@ public class LoggingController {
 		}
 	}
 	
-}
\ No newline at end of file
+	private Sort.Direction direction(String sort) {
+		try {
+			return Sort.Direction.fromString(sort);
+		} catch (IllegalArgumentException e) {
+			throw new DataValidationException("Invalid sort direction " + sort + ", expected asc or desc");
+		}
+	}
+
+}
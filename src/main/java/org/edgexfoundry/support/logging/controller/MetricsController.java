@@ -0,0 +1,69 @@
+/*******************************************************************************
+ * Copyright 2016-2017 Dell Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * @microservice:  support-logging
+ * @author: Jude Hung, Dell
+ * @version: 1.0.0
+ *******************************************************************************/
+package org.edgexfoundry.support.logging.controller;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.edgexfoundry.exception.controller.ServiceException;
+import org.edgexfoundry.support.logging.service.MetricsProvider;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/v1/metrics")
+public class MetricsController {
+
+	private final static Logger logger = LoggerFactory.getLogger(MetricsController.class);
+
+	@Autowired(required = false)
+	private List<MetricsProvider> providers;
+
+	/**
+	 * Return the runtime metrics of the logging service grouped by the
+	 * component producing them. ServiceException (HTTP 503) for unknown or
+	 * unanticipated issues.
+	 * 
+	 * @return metric values keyed by component and metric name
+	 * @throws ServiceException
+	 *             (HTTP 503) for unknown or unanticipated issues
+	 */
+	@RequestMapping(method = RequestMethod.GET)
+	public Map<String, Map<String, Object>> getMetrics() {
+		Map<String, Map<String, Object>> result = new LinkedHashMap<String, Map<String, Object>>();
+		try {
+			if (null != providers) {
+				for (MetricsProvider provider : providers) {
+					result.put(provider.getMetricsName(), provider.getMetrics());
+				}
+			}
+			return result;
+		} catch (Exception e) {
+			logger.error("Error fetching metrics:", e);
+			throw new ServiceException(e);
+		}
+	}
+
+}
@@ -0,0 +1,108 @@
+/*******************************************************************************
+ * Copyright 2016-2017 Dell Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * @microservice:  support-logging
+ * @author: Jude Hung, Dell
+ * @version: 1.0.0
+ *******************************************************************************/
+package org.edgexfoundry.support.logging.controller;
+
+import java.util.Map;
+import java.util.SortedMap;
+
+import org.edgexfoundry.exception.controller.DataValidationException;
+import org.edgexfoundry.exception.controller.ServiceException;
+import org.edgexfoundry.support.logging.service.RollupCounters;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.event.Level;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/v1/rollups")
+public class RollupController {
+
+	private final static Logger logger = LoggerFactory.getLogger(RollupController.class);
+
+	@Autowired
+	private RollupCounters rollups;
+
+	/**
+	 * Return the number of logEntries created between the specified dates,
+	 * per originService and logLevel, optionally restricted to the specified
+	 * originServices and logLevels. Dates are widened to whole rollup
+	 * buckets. ServiceException (HTTP 503) for unknown or unanticipated
+	 * issues.
+	 * 
+	 * @param start - start date in long form, 0 for no lower bound
+	 * @param end - end date in long form, 0 for no upper bound
+	 * @param originServices - optional array of originService to count
+	 * @param logLevels - optional array of logLevel to count
+	 * @return counts per logLevel keyed by originService
+	 * @throws ServiceException
+	 *             (HTTP 503) for unknown or unanticipated issues
+	 */
+	@RequestMapping(value = "/counts/{start}/{end}", method = RequestMethod.GET)
+	public Map<String, Map<Level, Long>> getCounts(@PathVariable long start, @PathVariable long end,
+			@RequestParam(required = false) String[] originServices,
+			@RequestParam(required = false) Level[] logLevels) {
+		try {
+			return rollups.count(start, end, originServices, logLevels);
+		} catch (Exception e) {
+			logger.error("Error fetching counts:", e);
+			throw new ServiceException(e);
+		}
+	}
+
+	/**
+	 * Return the number of logEntries created between the specified dates per
+	 * interval, originService and logLevel, optionally restricted to the
+	 * specified originServices and logLevels. Intervals without logEntries
+	 * are left out. DataValidationException if the interval isn't a multiple
+	 * of the rollup bucket size. ServiceException (HTTP 503) for unknown or
+	 * unanticipated issues.
+	 * 
+	 * @param start - start date in long form, 0 for no lower bound
+	 * @param end - end date in long form, 0 for no upper bound
+	 * @param interval - histogram interval in milliseconds
+	 * @param originServices - optional array of originService to count
+	 * @param logLevels - optional array of logLevel to count
+	 * @return counts per logLevel and originService keyed by interval start
+	 * @throws DataValidationException
+	 *             if the interval isn't a multiple of the bucket size
+	 * @throws ServiceException
+	 *             (HTTP 503) for unknown or unanticipated issues
+	 */
+	@RequestMapping(value = "/histogram/{start}/{end}/{interval}", method = RequestMethod.GET)
+	public SortedMap<Long, Map<String, Map<Level, Long>>> getHistogram(@PathVariable long start,
+			@PathVariable long end, @PathVariable long interval,
+			@RequestParam(required = false) String[] originServices,
+			@RequestParam(required = false) Level[] logLevels) {
+		try {
+			return rollups.histogram(start, end, interval, originServices, logLevels);
+		} catch (IllegalArgumentException e) {
+			throw new DataValidationException(e.getMessage());
+		} catch (Exception e) {
+			logger.error("Error fetching histogram:", e);
+			throw new ServiceException(e);
+		}
+	}
+
+}
@@ -0,0 +1,107 @@
+/*******************************************************************************
+ * Copyright 2016-2017 Dell Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * @microservice:  support-logging
+ * @author: Jude Hung, Dell
+ * @version: 1.0.0
+ *******************************************************************************/
+package org.edgexfoundry.support.logging.controller;
+
+import java.util.Map;
+
+import org.edgexfoundry.exception.controller.ServiceException;
+import org.edgexfoundry.support.logging.service.LevelThresholds;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.event.Level;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/v1/thresholds")
+public class ThresholdController {
+
+	private final static Logger logger = LoggerFactory.getLogger(ThresholdController.class);
+
+	@Autowired
+	private LevelThresholds thresholds;
+
+	/**
+	 * Return the logLevel thresholds currently applied to incoming logEntries,
+	 * keyed by originService. ServiceException (HTTP 503) for unknown or
+	 * unanticipated issues.
+	 * 
+	 * @return least severe logLevel still kept, keyed by originService
+	 * @throws ServiceException
+	 *             (HTTP 503) for unknown or unanticipated issues
+	 */
+	@RequestMapping(method = RequestMethod.GET)
+	public Map<String, Level> getThresholds() {
+		try {
+			return thresholds.getThresholds();
+		} catch (Exception e) {
+			logger.error("Error fetching thresholds:", e);
+			throw new ServiceException(e);
+		}
+	}
+
+	/**
+	 * Discard, from now on, the incoming logEntries of the specified
+	 * originService that are less severe than the specified logLevel.
+	 * ServiceException (HTTP 503) for unknown or unanticipated issues.
+	 * 
+	 * @param originService - originService the threshold applies to
+	 * @param logLevel - least severe logLevel still kept
+	 * @return true when the threshold has been applied
+	 * @throws ServiceException
+	 *             (HTTP 503) for unknown or unanticipated issues
+	 */
+	@RequestMapping(value = "/{originService}/{logLevel}", method = RequestMethod.PUT)
+	public boolean setThreshold(@PathVariable String originService, @PathVariable Level logLevel) {
+		try {
+			Level previous = thresholds.setThreshold(originService, logLevel);
+			logger.info("Threshold of {} changed from {} to {}", originService, previous, logLevel);
+			return true;
+		} catch (Exception e) {
+			logger.error("Error setting threshold:", e);
+			throw new ServiceException(e);
+		}
+	}
+
+	/**
+	 * Keep again all incoming logEntries of the specified originService.
+	 * ServiceException (HTTP 503) for unknown or unanticipated issues.
+	 * 
+	 * @param originService - originService whose threshold is removed
+	 * @return true if the originService had a threshold
+	 * @throws ServiceException
+	 *             (HTTP 503) for unknown or unanticipated issues
+	 */
+	@RequestMapping(value = "/{originService}", method = RequestMethod.DELETE)
+	public boolean removeThreshold(@PathVariable String originService) {
+		try {
+			Level previous = thresholds.removeThreshold(originService);
+			logger.info("Threshold of {} removed, was {}", originService, previous);
+			return null != previous;
+		} catch (Exception e) {
+			logger.error("Error removing threshold:", e);
+			throw new ServiceException(e);
+		}
+	}
+
+}
@@ -19,16 +19,25 @@
  *******************************************************************************/
 package org.edgexfoundry.support.logging.dao;
 
-import java.util.Arrays;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.PreDestroy;
 
 import org.edgexfoundry.support.domain.logging.LogEntry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.slf4j.MDC;
-import org.slf4j.event.Level;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
 
 public abstract class BaseLogEntryDAO implements LogEntryDAO {
 
@@ -37,16 +46,46 @@ public abstract class BaseLogEntryDAO implements LogEntryDAO {
 	@Value("${logging.color.enabled:false}")
 	private Boolean ADD_COLOR;
 	
-	private Map<String, String> colors = new HashMap<String, String>();
+	@Value("${logging.echo.enabled:true}")
+	private Boolean ECHO;
+	
+	// lazy, as the listeners may depend on the DAO themselves
+	@Lazy
+	@Autowired(required = false)
+	private List<LogEntryExpiryListener> expiryListeners;
+	
+	// saves run concurrently, so per-originService colors must be safe to share
+	private final ConcurrentMap<String, String> colors = new ConcurrentHashMap<String, String>();
 	
 	private String noColor = "\033[0m";    // ANSI default color format
 	private String green   = "\033[1;32m"; // ANSI foreground green
 	private String red     = "\033[1;31m"; // ANSI foreground red
 	private String yellow  = "\033[1;33m"; // ANSI foreground yellow
 	
+	// MDC keys of the console pattern
+	private final static String COLOR = "color";
+	private final static String NO_COLOR = "noColor";
+	
+	// logEntries waiting to be echoed, further ones are dropped rather than
+	// having saves wait on the appenders
+	private final static int ECHO_QUEUE_CAPACITY = 10000;
+	
+	private final BlockingQueue<LogEntry> echoes = new ArrayBlockingQueue<LogEntry>(ECHO_QUEUE_CAPACITY);
+	
+	private final AtomicLong droppedEchoes = new AtomicLong();
+	
+	private final AtomicBoolean echoStarted = new AtomicBoolean();
+	
+	private final Thread echoThread = new Thread(new Runnable() {
+		@Override
+		public void run() {
+			echoLoop();
+		}
+	}, "logging-echo");
+	
 	private int i = 33;
 	
-	private String generateColor() {
+	private synchronized String generateColor() {
 		i++;
 		if (i == 38) // end of base 8 foreground colors
 			i = 90;  // ANSI base 16 foreground colors
@@ -61,25 +100,44 @@ public abstract class BaseLogEntryDAO implements LogEntryDAO {
 		return String.format("\033[0m\033[1;%dm", i); // generate ANSI color code
 	}
 	
-	private String wrapMessage(LogEntry entry) {
-		if (ADD_COLOR) {
-			switch (entry.getLogLevel()) {
-			case DEBUG:
-			case INFO:
-			case TRACE:
-				System.out.print(green);
-				break;
-			case WARN:
-				System.out.print(yellow);
-				break;
-			case ERROR:
-			default:
-				System.out.print(red);
-				break;
-			}
-			return colors.get(entry.getOriginService()) + entry.getMessage() + noColor;
-		} else 
-			return entry.getMessage();
+	private String getColor(String originService) {
+		// ConcurrentHashMap doesn't accept null keys
+		String key = null == originService ? "" : originService;
+		String color = colors.get(key);
+		if (null == color) {
+			String generated = generateColor();
+			color = colors.putIfAbsent(key, generated);
+			if (null == color)
+				color = generated;
+		}
+		return color;
+	}
+	
+	/**
+	 * Put the ANSI colors of one logEntry into the MDC, where only the console
+	 * pattern (logging.pattern.console) picks them up: the message itself is
+	 * echoed as is, so logging.file never gets the escape codes.
+	 * 
+	 * @param entry
+	 */
+	private void putColors(LogEntry entry) {
+		String levelColor;
+		switch (entry.getLogLevel()) {
+		case DEBUG:
+		case INFO:
+		case TRACE:
+			levelColor = green;
+			break;
+		case WARN:
+			levelColor = yellow;
+			break;
+		case ERROR:
+		default:
+			levelColor = red;
+			break;
+		}
+		MDC.put(COLOR, levelColor + getColor(entry.getOriginService()));
+		MDC.put(NO_COLOR, noColor);
 	}
 
 	/*
@@ -91,39 +149,137 @@ public abstract class BaseLogEntryDAO implements LogEntryDAO {
 	 */
 	@Override
 	public boolean save(LogEntry entry) {
-		MDC.put(MDC_ENUM_CONSTANTS.CREATED.getValue(), Long.toString(entry.getCreated()));
-		MDC.put(MDC_ENUM_CONSTANTS.ORIGINSERVICE.getValue(), entry.getOriginService());
-		MDC.put(MDC_ENUM_CONSTANTS.LABELS.getValue(),
-				null == entry.getLabels() ? "[]" : Arrays.toString(entry.getLabels()));
-		Level level = entry.getLogLevel();
-		if (!colors.containsKey(entry.getOriginService())) 
-			colors.put(entry.getOriginService(), generateColor());
-		boolean loggable = false;
-		synchronized(logger) {
-			switch (level) {
-			case DEBUG:
-				logger.debug(wrapMessage(entry));
-				loggable = logger.isDebugEnabled();
-				break;
-			case INFO:
-				logger.info(wrapMessage(entry));
-				loggable = logger.isInfoEnabled();
-				break;
-			case WARN:
-				logger.warn(wrapMessage(entry));
-				loggable = logger.isWarnEnabled();
-				break;
-			case ERROR:
-				logger.error(wrapMessage(entry));
-				loggable = logger.isErrorEnabled();
-				break;
-			default:
-				logger.trace(wrapMessage(entry));
-				loggable = logger.isTraceEnabled();
-				break;
+		return append(entry);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * org.edgexfoundry.support.logging.dao.LogEntryDAO#saveAll(java.util.List)
+	 */
+	@Override
+	public List<LogEntry> saveAll(List<LogEntry> entries) {
+		List<LogEntry> result = new ArrayList<LogEntry>();
+		if (null == entries || entries.isEmpty()) {
+			return result;
+		}
+		for (LogEntry entry : entries) {
+			if (append(entry)) {
+				result.add(entry);
 			}
 		}
-		return loggable;
+		return result;
+	}
+
+	/**
+	 * Tell the listeners about logEntries the persistence dropped by itself
+	 * 
+	 * @param entries
+	 */
+	protected void expired(Collection<LogEntry> entries) {
+		if (null == expiryListeners || entries.isEmpty())
+			return;
+		for (LogEntryExpiryListener listener : expiryListeners) {
+			try {
+				listener.expired(entries);
+			} catch (RuntimeException e) {
+				logger.error("Error notifying expired logEntries", e);
+			}
+		}
+	}
+
+	/**
+	 * @return number of logEntries not echoed because the echo queue was full
+	 */
+	public long getDroppedEchoes() {
+		return droppedEchoes.get();
+	}
+
+	@PreDestroy
+	private void stopEcho() {
+		if (echoStarted.get())
+			echoThread.interrupt();
+	}
+
+	/**
+	 * Decide whether one logEntry is loggable at its level and queue it to be
+	 * echoed through the logger when enabled. No lock is held and nothing is
+	 * waited on here: persistence is left to the subclasses, which get the
+	 * logEntry itself, and the echo thread alone goes through the appenders.
+	 * 
+	 * @param entry
+	 * @return true if the logEntry is loggable at its level; false otherwise
+	 */
+	private boolean append(LogEntry entry) {
+		if (!isLoggable(entry))
+			return false;
+		if (ECHO) {
+			if (!echoStarted.get() && echoStarted.compareAndSet(false, true)) {
+				echoThread.setDaemon(true);
+				echoThread.start();
+			}
+			if (!echoes.offer(entry))
+				droppedEchoes.incrementAndGet();
+		}
+		return true;
+	}
+
+	private void echoLoop() {
+		try {
+			while (true) {
+				LogEntry entry = echoes.take();
+				if (ADD_COLOR)
+					putColors(entry);
+				try {
+					echo(entry);
+				} catch (RuntimeException e) {
+					logger.error("Error echoing logEntry", e);
+				} finally {
+					if (ADD_COLOR) {
+						MDC.remove(COLOR);
+						MDC.remove(NO_COLOR);
+					}
+				}
+			}
+		} catch (InterruptedException e) {
+			// stopped with the DAO
+		}
+	}
+
+	private boolean isLoggable(LogEntry entry) {
+		switch (entry.getLogLevel()) {
+		case DEBUG:
+			return logger.isDebugEnabled();
+		case INFO:
+			return logger.isInfoEnabled();
+		case WARN:
+			return logger.isWarnEnabled();
+		case ERROR:
+			return logger.isErrorEnabled();
+		default:
+			return logger.isTraceEnabled();
+		}
+	}
+
+	private void echo(LogEntry entry) {
+		switch (entry.getLogLevel()) {
+		case DEBUG:
+			logger.debug(entry.getMessage());
+			break;
+		case INFO:
+			logger.info(entry.getMessage());
+			break;
+		case WARN:
+			logger.warn(entry.getMessage());
+			break;
+		case ERROR:
+			logger.error(entry.getMessage());
+			break;
+		default:
+			logger.trace(entry.getMessage());
+			break;
+		}
 	}
 
 }
@@ -0,0 +1,499 @@
+/*******************************************************************************
+ * Copyright 2016-2017 Dell Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * @microservice:  support-logging
+ * @author: Jude Hung, Dell
+ * @version: 1.0.0
+ *******************************************************************************/
+package org.edgexfoundry.support.logging.dao;
+
+import java.util.Arrays;
+
+/**
+ * Compressed bitmap of non-negative ints, split by the high 16 bits into
+ * containers holding the low 16 bits either as a sorted char array (sparse,
+ * up to 4096 values) or as a 65536 bit bitmap (dense), the layout of Roaring
+ * bitmaps. Not thread safe.
+ */
+class CompressedBitmap {
+
+	private static final int ARRAY_MAX = 4096;
+
+	private static final int BITMAP_WORDS = 1024;
+
+	private char[] keys = new char[4];
+
+	private Object[] containers = new Object[4];
+
+	// cardinality of each container, its used length for array containers
+	private int[] cardinalities = new int[4];
+
+	private int size;
+
+	boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * @return true if the value wasn't present yet
+	 */
+	boolean add(int value) {
+		char key = (char) (value >>> 16);
+		char low = (char) value;
+		int index = indexOf(key);
+		if (index < 0) {
+			index = -index - 1;
+			insertContainer(index, key, new char[4]);
+		}
+		Object container = containers[index];
+		if (container instanceof char[]) {
+			char[] array = (char[]) container;
+			int cardinality = cardinalities[index];
+			// values are mostly added in ascending order
+			int position = cardinality > 0 && array[cardinality - 1] < low ? -cardinality - 1
+					: Arrays.binarySearch(array, 0, cardinality, low);
+			if (position >= 0) {
+				return false;
+			}
+			position = -position - 1;
+			if (cardinality == ARRAY_MAX) {
+				long[] bitmap = toBitmap(array, cardinality);
+				bitmap[low >>> 6] |= 1L << low;
+				containers[index] = bitmap;
+				cardinalities[index]++;
+				return true;
+			}
+			if (cardinality == array.length) {
+				array = Arrays.copyOf(array, Math.min(ARRAY_MAX, cardinality * 2));
+				containers[index] = array;
+			}
+			System.arraycopy(array, position, array, position + 1, cardinality - position);
+			array[position] = low;
+			cardinalities[index]++;
+			return true;
+		}
+		long[] bitmap = (long[]) container;
+		long bit = 1L << low;
+		if ((bitmap[low >>> 6] & bit) != 0) {
+			return false;
+		}
+		bitmap[low >>> 6] |= bit;
+		cardinalities[index]++;
+		return true;
+	}
+
+	/**
+	 * Add every value from start, inclusive, to end, exclusive, a container
+	 * at a time: array containers are rebuilt around the range and bitmap
+	 * containers are filled a word at a time
+	 */
+	void addRange(int start, int end) {
+		for (int from = start; from < end;) {
+			char key = (char) (from >>> 16);
+			int high = key << 16;
+			int to = (int) Math.min(end, (long) high + 0x10000);
+			addRange(key, from - high, to - high);
+			from = to;
+		}
+	}
+
+	private void addRange(char key, int from, int to) {
+		int index = indexOf(key);
+		if (index < 0) {
+			index = -index - 1;
+			insertContainer(index, key, new char[0]);
+		}
+		Object container = containers[index];
+		int cardinality = cardinalities[index];
+		if (container instanceof long[]) {
+			cardinalities[index] += setRange((long[]) container, from, to);
+			return;
+		}
+		char[] array = (char[]) container;
+		int below = position(array, cardinality, from);
+		int above = to > 0xFFFF ? cardinality : position(array, cardinality, to);
+		int merged = below + (to - from) + cardinality - above;
+		if (merged > ARRAY_MAX) {
+			long[] bitmap = toBitmap(array, cardinality);
+			setRange(bitmap, from, to);
+			containers[index] = bitmap;
+		} else {
+			char[] result = new char[merged];
+			System.arraycopy(array, 0, result, 0, below);
+			for (int low = from; low < to; low++) {
+				result[below + low - from] = (char) low;
+			}
+			System.arraycopy(array, above, result, below + to - from, cardinality - above);
+			containers[index] = result;
+		}
+		cardinalities[index] = merged;
+	}
+
+	/**
+	 * @return number of values of the array container below low
+	 */
+	private static int position(char[] array, int cardinality, int low) {
+		int position = Arrays.binarySearch(array, 0, cardinality, (char) low);
+		return position < 0 ? -position - 1 : position;
+	}
+
+	/**
+	 * Set the bits from, inclusive, to to, exclusive
+	 * 
+	 * @return number of bits that weren't set yet
+	 */
+	private static int setRange(long[] bitmap, int from, int to) {
+		int added = 0;
+		int first = from >>> 6;
+		int last = (to - 1) >>> 6;
+		for (int word = first; word <= last; word++) {
+			long mask = -1L;
+			if (word == first) {
+				mask &= -1L << from;
+			}
+			if (word == last) {
+				mask &= -1L >>> (63 - ((to - 1) & 63));
+			}
+			added += Long.bitCount(mask & ~bitmap[word]);
+			bitmap[word] |= mask;
+		}
+		return added;
+	}
+
+	void remove(int value) {
+		int index = indexOf((char) (value >>> 16));
+		if (index < 0) {
+			return;
+		}
+		char low = (char) value;
+		Object container = containers[index];
+		if (container instanceof char[]) {
+			char[] array = (char[]) container;
+			int cardinality = cardinalities[index];
+			int position = Arrays.binarySearch(array, 0, cardinality, low);
+			if (position < 0) {
+				return;
+			}
+			System.arraycopy(array, position + 1, array, position, cardinality - position - 1);
+			cardinalities[index]--;
+		} else {
+			long[] bitmap = (long[]) container;
+			long bit = 1L << low;
+			if ((bitmap[low >>> 6] & bit) == 0) {
+				return;
+			}
+			bitmap[low >>> 6] &= ~bit;
+			if (--cardinalities[index] <= ARRAY_MAX) {
+				containers[index] = toArray(bitmap, cardinalities[index]);
+			}
+		}
+		if (cardinalities[index] == 0) {
+			removeContainer(index);
+		}
+	}
+
+	boolean contains(int value) {
+		int index = indexOf((char) (value >>> 16));
+		if (index < 0) {
+			return false;
+		}
+		char low = (char) value;
+		Object container = containers[index];
+		if (container instanceof char[]) {
+			return Arrays.binarySearch((char[]) container, 0, cardinalities[index], low) >= 0;
+		}
+		return (((long[]) container)[low >>> 6] & (1L << low)) != 0;
+	}
+
+	/**
+	 * @return number of values
+	 */
+	int cardinality() {
+		int result = 0;
+		for (int i = 0; i < size; i++) {
+			result += cardinalities[i];
+		}
+		return result;
+	}
+
+	/**
+	 * @return approximate heap size in bytes
+	 */
+	long sizeInBytes() {
+		long result = 16 + 3 * 16 + keys.length * (2 + 4 + 4);
+		for (int i = 0; i < size; i++) {
+			Object container = containers[i];
+			result += 16 + (container instanceof char[] ? ((char[]) container).length * 2 : BITMAP_WORDS * 8);
+		}
+		return result;
+	}
+
+	/**
+	 * @return smallest value at or after from, -1 if there is none
+	 */
+	int nextSetBit(int from) {
+		char key = (char) (from >>> 16);
+		int index = indexOf(key);
+		int low = from & 0xFFFF;
+		if (index < 0) {
+			index = -index - 1;
+			low = 0;
+		}
+		for (; index < size; index++, low = 0) {
+			int high = keys[index] << 16;
+			Object container = containers[index];
+			if (container instanceof char[]) {
+				char[] array = (char[]) container;
+				int position = Arrays.binarySearch(array, 0, cardinalities[index], (char) low);
+				if (position < 0) {
+					position = -position - 1;
+				}
+				if (position < cardinalities[index]) {
+					return high | array[position];
+				}
+			} else {
+				long[] bitmap = (long[]) container;
+				int word = low >>> 6;
+				long bits = bitmap[word] & (-1L << low);
+				while (true) {
+					if (bits != 0) {
+						return high | (word << 6) + Long.numberOfTrailingZeros(bits);
+					}
+					if (++word == BITMAP_WORDS) {
+						break;
+					}
+					bits = bitmap[word];
+				}
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * @return largest value at or before from, -1 if there is none
+	 */
+	int previousSetBit(int from) {
+		if (from < 0) {
+			return -1;
+		}
+		char key = (char) (from >>> 16);
+		int index = indexOf(key);
+		int low = from & 0xFFFF;
+		if (index < 0) {
+			index = -index - 2;
+			low = 0xFFFF;
+		}
+		for (; index >= 0; index--, low = 0xFFFF) {
+			int high = keys[index] << 16;
+			Object container = containers[index];
+			if (container instanceof char[]) {
+				char[] array = (char[]) container;
+				int position = Arrays.binarySearch(array, 0, cardinalities[index], (char) low);
+				if (position < 0) {
+					position = -position - 2;
+				}
+				if (position >= 0) {
+					return high | array[position];
+				}
+			} else {
+				long[] bitmap = (long[]) container;
+				int word = low >>> 6;
+				long bits = bitmap[word] & (-1L >>> (63 - (low & 63)));
+				while (true) {
+					if (bits != 0) {
+						return high | (word << 6) + 63 - Long.numberOfLeadingZeros(bits);
+					}
+					if (--word < 0) {
+						break;
+					}
+					bits = bitmap[word];
+				}
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * @return new bitmap holding the values of both
+	 */
+	static CompressedBitmap or(CompressedBitmap a, CompressedBitmap b) {
+		CompressedBitmap result = new CompressedBitmap();
+		int i = 0;
+		int j = 0;
+		while (i < a.size || j < b.size) {
+			if (j == b.size || (i < a.size && a.keys[i] < b.keys[j])) {
+				result.appendContainer(a.keys[i], copy(a.containers[i], a.cardinalities[i]), a.cardinalities[i]);
+				i++;
+			} else if (i == a.size || b.keys[j] < a.keys[i]) {
+				result.appendContainer(b.keys[j], copy(b.containers[j], b.cardinalities[j]), b.cardinalities[j]);
+				j++;
+			} else {
+				long[] bitmap = toBitmap(a.containers[i], a.cardinalities[i]);
+				orInto(bitmap, b.containers[j], b.cardinalities[j]);
+				result.appendBitmap(a.keys[i], bitmap);
+				i++;
+				j++;
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * @return new bitmap holding the values present in both
+	 */
+	static CompressedBitmap and(CompressedBitmap a, CompressedBitmap b) {
+		CompressedBitmap result = new CompressedBitmap();
+		int i = 0;
+		int j = 0;
+		while (i < a.size && j < b.size) {
+			if (a.keys[i] < b.keys[j]) {
+				i++;
+			} else if (b.keys[j] < a.keys[i]) {
+				j++;
+			} else {
+				Object first = a.containers[i];
+				Object second = b.containers[j];
+				if (first instanceof char[] || second instanceof char[]) {
+					// filter the sparse side by the other one
+					boolean firstSparse = first instanceof char[];
+					char[] array = (char[]) (firstSparse ? first : second);
+					int cardinality = firstSparse ? a.cardinalities[i] : b.cardinalities[j];
+					Object other = firstSparse ? second : first;
+					int otherCardinality = firstSparse ? b.cardinalities[j] : a.cardinalities[i];
+					char[] kept = new char[cardinality];
+					int count = 0;
+					for (int k = 0; k < cardinality; k++) {
+						if (containsLow(other, otherCardinality, array[k])) {
+							kept[count++] = array[k];
+						}
+					}
+					if (count > 0) {
+						result.appendContainer(a.keys[i], kept, count);
+					}
+				} else {
+					long[] bitmap = ((long[]) first).clone();
+					long[] other = (long[]) second;
+					for (int k = 0; k < BITMAP_WORDS; k++) {
+						bitmap[k] &= other[k];
+					}
+					result.appendBitmap(a.keys[i], bitmap);
+				}
+				i++;
+				j++;
+			}
+		}
+		return result;
+	}
+
+	private static boolean containsLow(Object container, int cardinality, char low) {
+		if (container instanceof char[]) {
+			return Arrays.binarySearch((char[]) container, 0, cardinality, low) >= 0;
+		}
+		return (((long[]) container)[low >>> 6] & (1L << low)) != 0;
+	}
+
+	private static Object copy(Object container, int cardinality) {
+		if (container instanceof char[]) {
+			return Arrays.copyOf((char[]) container, cardinality);
+		}
+		return ((long[]) container).clone();
+	}
+
+	private static long[] toBitmap(Object container, int cardinality) {
+		if (container instanceof long[]) {
+			return ((long[]) container).clone();
+		}
+		long[] bitmap = new long[BITMAP_WORDS];
+		orInto(bitmap, container, cardinality);
+		return bitmap;
+	}
+
+	private static void orInto(long[] bitmap, Object container, int cardinality) {
+		if (container instanceof char[]) {
+			char[] array = (char[]) container;
+			for (int k = 0; k < cardinality; k++) {
+				bitmap[array[k] >>> 6] |= 1L << array[k];
+			}
+		} else {
+			long[] other = (long[]) container;
+			for (int k = 0; k < BITMAP_WORDS; k++) {
+				bitmap[k] |= other[k];
+			}
+		}
+	}
+
+	private static char[] toArray(long[] bitmap, int cardinality) {
+		char[] array = new char[Math.max(cardinality, 1)];
+		int count = 0;
+		for (int word = 0; word < BITMAP_WORDS; word++) {
+			long bits = bitmap[word];
+			while (bits != 0) {
+				array[count++] = (char) ((word << 6) + Long.numberOfTrailingZeros(bits));
+				bits &= bits - 1;
+			}
+		}
+		return array;
+	}
+
+	/**
+	 * Append a bitmap container of an and/or result, keeping the compact form
+	 */
+	private void appendBitmap(char key, long[] bitmap) {
+		int cardinality = 0;
+		for (long word : bitmap) {
+			cardinality += Long.bitCount(word);
+		}
+		if (cardinality == 0) {
+			return;
+		}
+		appendContainer(key, cardinality <= ARRAY_MAX ? toArray(bitmap, cardinality) : bitmap, cardinality);
+	}
+
+	private void appendContainer(char key, Object container, int cardinality) {
+		insertContainer(size, key, container);
+		cardinalities[size - 1] = cardinality;
+	}
+
+	private int indexOf(char key) {
+		// the last container is the usual target of ascending adds
+		if (size > 0 && keys[size - 1] == key) {
+			return size - 1;
+		}
+		return Arrays.binarySearch(keys, 0, size, key);
+	}
+
+	private void insertContainer(int index, char key, Object container) {
+		if (size == keys.length) {
+			keys = Arrays.copyOf(keys, size * 2);
+			containers = Arrays.copyOf(containers, size * 2);
+			cardinalities = Arrays.copyOf(cardinalities, size * 2);
+		}
+		System.arraycopy(keys, index, keys, index + 1, size - index);
+		System.arraycopy(containers, index, containers, index + 1, size - index);
+		System.arraycopy(cardinalities, index, cardinalities, index + 1, size - index);
+		keys[index] = key;
+		containers[index] = container;
+		cardinalities[index] = 0;
+		size++;
+	}
+
+	private void removeContainer(int index) {
+		System.arraycopy(keys, index + 1, keys, index, size - index - 1);
+		System.arraycopy(containers, index + 1, containers, index, size - index - 1);
+		System.arraycopy(cardinalities, index + 1, cardinalities, index, size - index - 1);
+		containers[--size] = null;
+	}
+
+}
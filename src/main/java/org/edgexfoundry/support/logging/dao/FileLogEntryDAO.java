@@ -27,47 +27,63 @@ import java.io.FileWriter;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.Date;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 
 import org.edgexfoundry.support.domain.logging.LogEntry;
 import org.edgexfoundry.support.domain.logging.MatchCriteria;
+import org.edgexfoundry.support.logging.service.MetricsProvider;
+import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.slf4j.event.Level;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.util.CloseableIterator;
 import org.springframework.stereotype.Component;
 
-import ch.qos.logback.classic.Logger;
-import ch.qos.logback.classic.LoggerContext;
-import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
-import ch.qos.logback.classic.spi.ILoggingEvent;
-import ch.qos.logback.core.CoreConstants;
-import ch.qos.logback.core.rolling.FixedWindowRollingPolicy;
-import ch.qos.logback.core.rolling.RollingFileAppender;
-import ch.qos.logback.core.rolling.SizeBasedTriggeringPolicy;
+import ch.qos.logback.core.util.FileSize;
 
 @Component("serviceDAO")
 @ConditionalOnProperty(name = { "logging.persistence" }, havingValue = "file")
-public class FileLogEntryDAO extends BaseLogEntryDAO {
+public class FileLogEntryDAO extends BaseLogEntryDAO implements MetricsProvider {
 
-	private final List<LogEntry> logEntries = new ArrayList<LogEntry>();
+	private final static Logger logger = LoggerFactory.getLogger(FileLogEntryDAO.class);
 
-	private final static String logPatternStr = "(^[0-9]*) \\[(.*)\\] \\[(.*)\\] (TRACE|DEBUG|INFO |WARN |ERROR) - (.*)";
+	private LogEntryIndex logEntries;
 
-	private final static Pattern logPattern = Pattern.compile(logPatternStr);
+	// cached logEntries of the active file the current writer didn't write,
+	// i.e. loaded at startup or kept by a removal; they expire with the
+	// writer's first roll over
+	private List<LogEntry> unrolled = new ArrayList<LogEntry>();
+
+	// saves share the log file while a removal rewrites it exclusively
+	private final ReadWriteLock fileLock = new ReentrantReadWriteLock();
 
-	private final static String LogFormat = "%X{" + MDC_ENUM_CONSTANTS.CREATED.getValue() + "} [%X{"
-			+ MDC_ENUM_CONSTANTS.ORIGINSERVICE.getValue() + "}] %X{" + MDC_ENUM_CONSTANTS.LABELS.getValue()
-			+ "} %-5level - %msg%n";
+	// the repeat count and last created of a RepeatedLogEntry are the optional
+	// second field, so no message is ever taken for one
+	private final static String logPatternStr = "(^[0-9]*)(?: \\(repeated ([0-9]+) times until ([0-9]+)\\))? \\[(.*)\\] \\[(.*)\\] (TRACE|DEBUG|INFO |WARN |ERROR) - (.*)";
 
-	private final static String MandatoryPositionVariable = "%i";
+	private final static Pattern logPattern = Pattern.compile(logPatternStr);
 
 	private final static String tmpLoggingFileExt = ".tmp";
 
@@ -77,58 +93,82 @@ public class FileLogEntryDAO extends BaseLogEntryDAO {
 	@Value("${logging.persistence.file.maxsize:5MB}")
 	private String loggingFileMaxSize;
 
+	// heap the message keyword index may take, 0 to search keywords by scan
+	@Value("${logging.persistence.file.index.keywords.maxsize:32MB}")
+	private String keywordIndexMaxSize;
+
+	@Value("${logging.persistence.file.keywords.ignorecase:false}")
+	private boolean keywordsIgnoreCase;
+
+	// threads scanning the cache for large queries, 0 for one per processor
+	// and 1 to scan in the requesting thread
+	@Value("${logging.persistence.file.query.parallelism:0}")
+	private int queryParallelism;
+
+	// smallest number of cached logEntries a query has to scan to go parallel
+	@Value("${logging.persistence.file.query.parallel.threshold:100000}")
+	private int queryParallelThreshold;
+
+	private ForkJoinPool queryPool;
+
+	// logEntries fetched from the cache at a time by streamed reads
+	@Value("${logging.persistence.file.stream.batch:1000}")
+	private int streamBatchSize;
+
+	@Value("${logging.persistence.file.fsync:interval}")
+	private String fsyncPolicy;
+
+	@Value("${logging.persistence.file.fsync.interval:1000}")
+	private long fsyncInterval;
+
+	// in milliseconds, how long a save waits for its logEntries to be written
+	// (forced with the batch fsync policy) before cancelling them
+	@Value("${logging.persistence.file.write.timeout:10000}")
+	private long writeTimeout;
+
+	private GroupCommitWriter commitWriter;
+
 	@PostConstruct
 	private void init() {
+		int parallelism = queryParallelism > 0 ? queryParallelism : Runtime.getRuntime().availableProcessors();
+		if (parallelism > 1) {
+			queryPool = new ForkJoinPool(parallelism);
+		}
+		logEntries = new LogEntryIndex(FileSize.valueOf(keywordIndexMaxSize).getSize(), queryPool,
+				queryParallelThreshold);
 		initFileLogging();
 		loadLoggingCache();
 	}
 
 	/**
-	 * This method would initialize the logback logger being named
-	 * BaseLogEntryDAO
+	 * This method would start the group commit writer logEntries are written
+	 * to. Saves hand their logEntries to the writer thread, which encodes
+	 * everything queued meanwhile and writes it with a single FileChannel
+	 * write, forcing it to the storage device per the configured fsync policy
+	 * (batch, interval or never).
 	 */
 	private void initFileLogging() {
-		LoggerContext loggerContext = (LoggerContext) LoggerFactory.getILoggerFactory();
-		// reset loggerContext to remove all internal properties prior to add
-		// rollingFileAppender
-		// 20161122d:comment out following line to avoid reset loggerContext as
-		// it would reset every logger and cause internal loggers not work
-		// anymore.
-		// 20161216:commenting out following line would result in the collision
-		// detected by checkForFileCollisionInPreviousFileAppenders() of logback
-		// FileAppender and fail to restart the FileAppender. To avoid the
-		// collision, removing the FileName out of collision map when detaching
-		// FileAppender(see stopAndDetachFileAppdnder method)
-		// loggerContext.reset();
-
-		RollingFileAppender<ILoggingEvent> rfAppender = new RollingFileAppender<ILoggingEvent>();
-		rfAppender.setContext(loggerContext);
-		rfAppender.setFile(this.loggingFilePath);
-		rfAppender.setName(loggingFilePath);
-
-		FixedWindowRollingPolicy rollingPolicy = new FixedWindowRollingPolicy();
-		rollingPolicy.setContext(loggerContext);
-		rollingPolicy.setParent(rfAppender);
-		rollingPolicy.setFileNamePattern(this.loggingFilePath + MandatoryPositionVariable);
-		rollingPolicy.start();
-
-		SizeBasedTriggeringPolicy<ILoggingEvent> triggeringPolicy = new ch.qos.logback.core.rolling.SizeBasedTriggeringPolicy<ILoggingEvent>();
-		triggeringPolicy.setMaxFileSize(this.loggingFileMaxSize);
-		triggeringPolicy.start();
-
-		PatternLayoutEncoder encoder = new PatternLayoutEncoder();
-		encoder.setContext(loggerContext);
-		encoder.setPattern(LogFormat);
-		encoder.start();
-
-		rfAppender.setEncoder(encoder);
-		rfAppender.setRollingPolicy(rollingPolicy);
-		rfAppender.setTriggeringPolicy(triggeringPolicy);
-
-		rfAppender.start();
-
-		Logger baseLogger = loggerContext.getLogger(BaseLogEntryDAO.class);
-		baseLogger.addAppender(rfAppender);
+		commitWriter = new GroupCommitWriter(loggingFilePath, FileSize.valueOf(loggingFileMaxSize).getSize(),
+				GroupCommitWriter.FsyncPolicy.valueOf(fsyncPolicy.toUpperCase()), fsyncInterval,
+				new GroupCommitWriter.RollListener() {
+					@Override
+					public void rolled(List<LogEntry> written) {
+						expireRolled(written);
+					}
+				});
+		try {
+			commitWriter.start();
+		} catch (IOException e) {
+			logger.error("Error opening logging file " + loggingFilePath, e);
+		}
+	}
+
+	@PreDestroy
+	private void destroy() {
+		commitWriter.close();
+		if (null != queryPool) {
+			queryPool.shutdown();
+		}
 	}
 
 	/**
@@ -150,6 +190,7 @@ public class FileLogEntryDAO extends BaseLogEntryDAO {
 					LogEntry logEntry = convertString2LogEntry(trimmedLine);
 					if (null != logEntry) {
 						logEntries.add(logEntry);
+						unrolled.add(logEntry);
 					}
 				}
 			}
@@ -166,29 +207,6 @@ public class FileLogEntryDAO extends BaseLogEntryDAO {
 		}
 	}
 
-	private void stopAndDetachFileAppdnder(String fileAppenderName) {
-		LoggerContext loggerContext = (LoggerContext) LoggerFactory.getILoggerFactory();
-		// another quick way to detach the fileAppender is to invoke
-		// loggerContext.reset();
-		Logger baseLogger = loggerContext.getLogger(BaseLogEntryDAO.class);
-		RollingFileAppender<ILoggingEvent> rfAppender = (RollingFileAppender<ILoggingEvent>) baseLogger
-				.getAppender(fileAppenderName);
-		rfAppender.stop();
-		baseLogger.detachAppender(rfAppender);
-		// 20161216:commenting out loggerContext.reset() at initFileLogging()
-		// would result in the collision detected by
-		// checkForFileCollisionInPreviousFileAppenders() of logback
-		// FileAppender and fail to restart the FileAppender.
-		// To avoid the collision, removing the FileName out of collision map
-		// when detaching FileAppender
-		@SuppressWarnings("unchecked")
-		Map<String, String> map = (Map<String, String>) loggerContext
-				.getObject(CoreConstants.RFA_FILENAME_PATTERN_COLLISION_MAP);
-		if (null != map) {
-			map.remove(fileAppenderName);
-		}
-	}
-
 	/*
 	 * (non-Javadoc)
 	 * 
@@ -198,11 +216,88 @@ public class FileLogEntryDAO extends BaseLogEntryDAO {
 	 */
 	@Override
 	public boolean save(LogEntry entry) {
-		boolean result = super.save(entry);
-		if (result) {// only add logEntry into cache when it's loggable
+		fileLock.readLock().lock();
+		try {
+			if (!super.save(entry)) {
+				return false;
+			}
+			// cached ahead of the write, so a roll over of the file finds it
 			logEntries.add(entry);
+			List<LogEntry> entries = Collections.singletonList(entry);
+			if (!persist(entries)) {
+				logEntries.removeAll(entries);
+				return false;
+			}
+			return true;
+		} finally {
+			fileLock.readLock().unlock();
 		}
-		return result;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * org.edgexfoundry.support.logging.dao.LogEntryDAO#saveAll(java.util.List)
+	 */
+	@Override
+	public List<LogEntry> saveAll(List<LogEntry> entries) {
+		fileLock.readLock().lock();
+		try {
+			List<LogEntry> result = super.saveAll(entries);
+			if (result.isEmpty()) {
+				return result;
+			}
+			logEntries.addAll(result);
+			if (!persist(result)) {
+				logEntries.removeAll(result);
+				return new ArrayList<LogEntry>();
+			}
+			return result;
+		} finally {
+			fileLock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Hand logEntries to the writer and wait until they are written, or
+	 * forced with the batch fsync policy. Concurrent saves waiting here are
+	 * committed together.
+	 * 
+	 * @param entries
+	 * @return true if the logEntries were persisted; false if the write
+	 *         failed, the writer isn't running or it timed out while they
+	 *         were still queued, in which case they are never written
+	 */
+	private boolean persist(List<LogEntry> entries) {
+		CompletableFuture<Void> written = commitWriter.append(entries);
+		try {
+			written.get(writeTimeout, TimeUnit.MILLISECONDS);
+			return true;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return cancelled(written);
+		} catch (ExecutionException e) {
+			logger.error("Error persisting logEntries:", e.getCause());
+		} catch (TimeoutException e) {
+			logger.error("Timed out persisting " + entries.size() + " logEntries to " + loggingFilePath);
+			return cancelled(written);
+		}
+		return false;
+	}
+
+	/**
+	 * Withdraw logEntries the save gave up on, so the log file never holds
+	 * one the caller was told failed
+	 * 
+	 * @return false if withdrawn; true if the writer had already taken them,
+	 *         they are then reported persisted unless the write failed
+	 */
+	private boolean cancelled(CompletableFuture<Void> written) {
+		if (written.cancel(false)) {
+			return false;
+		}
+		return !written.isCompletedExceptionally();
 	}
 
 	/*
@@ -214,212 +309,257 @@ public class FileLogEntryDAO extends BaseLogEntryDAO {
 	 */
 	@Override
 	public List<LogEntry> findByCriteria(MatchCriteria criteria, int limit) {
-		List<LogEntry> result = new ArrayList<LogEntry>();
-		int i = 0;
-		if (null != logEntries && !logEntries.isEmpty() && null != criteria) {
-			for (LogEntry entry : logEntries) {
-				if (compareArrays(entry.getLabels(), criteria.getLabels())
-						&& containSource(entry.getLogLevel(), criteria.getLogLevels())
-						&& containSource(entry.getOriginService(), criteria.getOriginServices())
-						&& containStringKeyword(entry.getMessage(), criteria.getMessageKeywords())
-						&& matchTimestamp(entry.getCreated(), criteria.getStart(), criteria.getEnd())) {
-
-					if (limit >= 0 && ++i > limit) {// break the iteration as
-													// the number of fetched
-													// logs has reached the
-													// limit
-						break;
-					}
-					result.add(entry);
-				}
-			}
+		if (null == criteria) {
+			return new ArrayList<LogEntry>();
 		}
-		return result;
+		return logEntries.find(criteria, limit, keywordFilter(criteria));
 	}
 
 	/*
 	 * (non-Javadoc)
 	 * 
 	 * @see
-	 * org.edgexfoundry.support.logging.dao.LogEntryDAO#removeByCriteria(org.edgexfoundry.support.logging.domain.MatchCriteria)
+	 * org.edgexfoundry.support.logging.dao.LogEntryDAO#findByCriteria(org.edgexfoundry.
+	 * support.logging.domain.MatchCriteria, int, org.springframework.data.domain.Sort.Direction)
 	 */
 	@Override
-	public List<LogEntry> removeByCriteria(MatchCriteria criteria) {
-		List<LogEntry> targets = this.findByCriteria(criteria, -1);
-		if (null != targets && targets.size() > 0) {
-			try {
-				if (removeFileLogEntries(targets)) {
-					logEntries.removeAll(targets);
-				} else {
-					// TODO throw exception as fail to move logEntries out of
-					// log file
-				}
-			} catch (IOException e) {
-				e.printStackTrace();
-			}
+	public List<LogEntry> findByCriteria(MatchCriteria criteria, int limit, Sort.Direction direction) {
+		if (Sort.Direction.ASC == direction) {
+			return findByCriteria(criteria, limit);
+		}
+		if (null == criteria) {
+			return new ArrayList<LogEntry>();
 		}
-		return targets;
+		return logEntries.findLatest(criteria, limit, keywordFilter(criteria));
 	}
 
-	private synchronized boolean removeFileLogEntries(List<LogEntry> targets) throws IOException {
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * org.edgexfoundry.support.logging.dao.LogEntryDAO#findPageByCriteria(org.edgexfoundry.
+	 * support.logging.domain.MatchCriteria, int, java.lang.String)
+	 */
+	@Override
+	public LogEntryPage findPageByCriteria(MatchCriteria criteria, int limit, String cursor) {
+		PageCursor after = PageCursor.decode(cursor);
+		if (null == criteria) {
+			return new LogEntryPage(new ArrayList<LogEntry>(), null);
+		}
+		// the tie breaker is the arrival sequence in the cache, cursors don't
+		// outlive the service
+		return logEntries.findPage(criteria, limit, keywordFilter(criteria), after);
+	}
 
-		// to remove log entries out of log files, need to stop fileAppender to
-		// release file lock
-		stopAndDetachFileAppdnder(this.loggingFilePath);
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * org.edgexfoundry.support.logging.dao.LogEntryDAO#streamByCriteria(org.edgexfoundry.
+	 * support.logging.domain.MatchCriteria)
+	 */
+	@Override
+	public CloseableIterator<LogEntry> streamByCriteria(final MatchCriteria criteria) {
+		final LogEntryIndex.Filter filter = null == criteria ? null : keywordFilter(criteria);
+		// walk the cache one page at a time, the read lock is only held while
+		// fetching a page and removals in between don't disturb the cursor
+		return new CloseableIterator<LogEntry>() {
 
-		File inputFile = new File(loggingFilePath);
-		File tempFile = new File(loggingFilePath + tmpLoggingFileExt);
+			private Iterator<LogEntry> page = Collections.<LogEntry> emptyList().iterator();
 
-		BufferedReader reader = null;
-		BufferedWriter writer = null;
-		try {
-			reader = new BufferedReader(new FileReader(inputFile));
-			writer = new BufferedWriter(new FileWriter(tempFile));
-			String currentLine;
-			while ((currentLine = reader.readLine()) != null) {
-				String trimmedLine = currentLine.trim();
-				boolean toRemove = false;
-				for (LogEntry entry : targets) {
-					String lineToRemove = entry.toString();
-					if (trimmedLine.equals(lineToRemove)) {
-						toRemove = true;
-						break;
-					}
-				}
-				if (toRemove) {
-					continue;
+			private PageCursor cursor;
+
+			private boolean last = null == criteria;
+
+			@Override
+			public boolean hasNext() {
+				while (!page.hasNext() && !last) {
+					LogEntryPage next = logEntries.findPage(criteria, streamBatchSize, filter, cursor);
+					page = next.getLogEntries().iterator();
+					last = null == next.getCursor();
+					cursor = PageCursor.decode(next.getCursor());
 				}
-				writer.write(currentLine + System.getProperty("line.separator"));
+				return page.hasNext();
 			}
-		} finally {//Add finally block here to release reader and writer in case an IOExecption occurs
-			if (null!=reader){
-				reader.close();
+
+			@Override
+			public LogEntry next() {
+				if (!hasNext()) {
+					throw new NoSuchElementException();
+				}
+				return page.next();
 			}
-			if (null!=writer){
-				writer.close();
+
+			@Override
+			public void remove() {
+				throw new UnsupportedOperationException();
 			}
-		}
-		
-		
-		try {
-			Files.move(tempFile.toPath(), inputFile.toPath(), java.nio.file.StandardCopyOption.REPLACE_EXISTING);
-			return true;
-		} catch (IOException ioe) {
-			return false;
-		} finally {
-			// remember to initialize logging system to add back
-			// RollingFileAppender, so the future logging request still could
-			// work
-			initFileLogging();
-		}
 
+			@Override
+			public void close() {
+				last = true;
+				page = Collections.<LogEntry> emptyList().iterator();
+			}
+		};
 	}
 
-	private LogEntry convertString2LogEntry(String target) {
-		LogEntry result = null;
-		if (null != target) {
-			Matcher matcher = logPattern.matcher(target);
-			if (matcher.find() && matcher.groupCount() == 5) {
-				result = new LogEntry();
-				result.setCreated(Long.parseLong(matcher.group(1)));
-				result.setOriginService("".equals(matcher.group(2)) ? null : matcher.group(2));
-				result.setLabels("".equals(matcher.group(3)) ? null : matcher.group(3).split(", "));
-				result.setLogLevel(Level.valueOf(matcher.group(4).trim()));
-				result.setMessage(matcher.group(5));
+	private LogEntryIndex.Filter keywordFilter(MatchCriteria criteria) {
+		// time range, originServices, logLevels and labels are answered by
+		// the index, only the candidate logEntries are checked for keywords,
+		// all keywords at once in a single pass over the message
+		final KeywordMatcher keywords = new KeywordMatcher(criteria.getMessageKeywords(), keywordsIgnoreCase);
+		return new LogEntryIndex.Filter() {
+			@Override
+			public boolean accept(LogEntry entry) {
+				return keywords.matches(entry.getMessage());
 			}
-		}
-		return result;
+		};
 	}
 
-	/**
-	 * Compare two arrays to see if targets array contains one object of sources
-	 * array
+	/*
+	 * (non-Javadoc)
 	 * 
-	 * @param sources
-	 * @param targets
-	 * @return true if one object of sources is in the targets or targets is
-	 *         null/empty; return false otherwise.
+	 * @see
+	 * org.edgexfoundry.support.logging.dao.LogEntryDAO#removeByCriteria(org.edgexfoundry.support.logging.domain.MatchCriteria)
 	 */
-	private static <A> boolean compareArrays(A[] sources, A[] targets) {
-		// null or empty targets means nothing to match for, so return true
-		if (null == targets || targets.length == 0) {
-			return true;
-		}
-		if (null != sources && sources.length > 0 && null != targets && targets.length > 0) {
-			List<A> list = new ArrayList<A>(Arrays.asList(targets));
-			for (A source : sources) {
-				if (list.contains(source)) {
-					return true;
+	@Override
+	public List<LogEntry> removeByCriteria(MatchCriteria criteria) {
+		// keep saves out while the appender is detached and the file rewritten
+		fileLock.writeLock().lock();
+		try {
+			List<LogEntry> targets = this.findByCriteria(criteria, -1);
+			if (null != targets && targets.size() > 0) {
+				try {
+					if (removeFileLogEntries(targets)) {
+						// targets are the cached instances themselves
+						logEntries.removeAll(targets);
+					} else {
+						// TODO throw exception as fail to move logEntries out of
+						// log file
+					}
+				} catch (IOException e) {
+					e.printStackTrace();
 				}
 			}
+			return targets;
+		} finally {
+			fileLock.writeLock().unlock();
 		}
-		return false;
 	}
 
-	/**
-	 * Check if targets array contain source object
-	 * 
-	 * @param source
-	 * @param targets
-	 * @return true if targets array contain source object or targets array is
-	 *         null/empty; return false otherwise
-	 */
-	private static <A> boolean containSource(A source, A[] targets) {
-		if (null == targets || targets.length == 0) {
-			return true;
-		}
-		if (null != source && null != targets && targets.length > 0) {
-			List<A> list = new ArrayList<A>(Arrays.asList(targets));
-			return list.contains(source);
-		}
-		return false;
+	@Override
+	public String getMetricsName() {
+		return "fileIndex";
+	}
+
+	@Override
+	public Map<String, Object> getMetrics() {
+		Map<String, Object> metrics = new LinkedHashMap<String, Object>();
+		metrics.put("cachedLogEntries", logEntries.size());
+		metrics.put("keywordIndexedLogEntries", logEntries.getKeywordCovered());
+		metrics.put("keywordIndexTrigrams", logEntries.getKeywordGrams());
+		metrics.put("keywordIndexBytes", logEntries.getKeywordBytes());
+		return metrics;
 	}
 
 	/**
-	 * Check if specific String contains any keyword listed in an array
+	 * Drop the logEntries of the file just archived by a roll over from the
+	 * cache, the archives aren't loaded on restart either. Runs on the writer
+	 * thread; the logEntries it wrote were cached before being handed to it.
 	 * 
-	 * @param message
-	 * @param keywords
-	 * @return true if any string of keywords is contained by message; false
-	 *         otherwise
+	 * @param written - logEntries the writer wrote to the archived file
 	 */
-	private static boolean containStringKeyword(String message, String[] keywords) {
-		if (null == keywords || keywords.length == 0) {
-			return true;
-		}
-		for (String keyword : keywords) {
-			if (message.contains(keyword)) {
+	private void expireRolled(List<LogEntry> written) {
+		List<LogEntry> rolled = unrolled;
+		unrolled = new ArrayList<LogEntry>();
+		rolled.addAll(written);
+		logEntries.removeAll(rolled);
+		expired(rolled);
+	}
+
+	private boolean removeFileLogEntries(List<LogEntry> targets) throws IOException {
+
+		// to remove log entries out of log files, need to stop the writer to
+		// release the file
+		commitWriter.close();
+		// the logEntries of the active file the next writer won't know of
+		unrolled.addAll(commitWriter.getWritten());
+		try {
+			File inputFile = new File(loggingFilePath);
+			File tempFile = new File(loggingFilePath + tmpLoggingFileExt);
+
+			BufferedReader reader = null;
+			BufferedWriter writer = null;
+			try {
+				reader = new BufferedReader(new FileReader(inputFile));
+				writer = new BufferedWriter(new FileWriter(tempFile));
+				// the lines as the writer encoded them, a RepeatedLogEntry
+				// included
+				LogEntryEncoder encoder = new LogEntryEncoder();
+				Set<String> linesToRemove = new HashSet<String>();
+				for (LogEntry entry : targets) {
+					linesToRemove.add(encoder.encodeLine(entry).trim());
+				}
+				String currentLine;
+				while ((currentLine = reader.readLine()) != null) {
+					if (linesToRemove.contains(currentLine.trim())) {
+						continue;
+					}
+					writer.write(currentLine + System.getProperty("line.separator"));
+				}
+			} finally {//Add finally block here to release reader and writer in case an IOExecption occurs
+				if (null!=reader){
+					reader.close();
+				}
+				if (null!=writer){
+					writer.close();
+				}
+			}
+
+			try {
+				Files.move(tempFile.toPath(), inputFile.toPath(), java.nio.file.StandardCopyOption.REPLACE_EXISTING);
+				Set<LogEntry> removed = Collections.newSetFromMap(new IdentityHashMap<LogEntry, Boolean>());
+				removed.addAll(targets);
+				List<LogEntry> kept = new ArrayList<LogEntry>();
+				for (LogEntry entry : unrolled) {
+					if (!removed.contains(entry)) {
+						kept.add(entry);
+					}
+				}
+				unrolled = kept;
 				return true;
+			} catch (IOException ioe) {
+				return false;
 			}
+		} finally {
+			// remember to restart the writer, so the future logging request
+			// still could work
+			initFileLogging();
 		}
-		return false;
+
 	}
 
-	/**
-	 * Check if date time representing in target long value is within start and
-	 * end date time interval
-	 * 
-	 * @param target
-	 * @param start
-	 * @param end
-	 * @return true if date time representing in target long value is within
-	 *         start and end date time interval; return false otherwise
-	 */
-	private static boolean matchTimestamp(long target, long start, long end) {
-		Date entryTime = new Date(target);
-		if (0L != start) {
-			if (0L != end) {
-				return (entryTime.after(new Date(start)) && entryTime.before(new Date(end)));
-			} else {
-				return entryTime.after(new Date(start));
-			}
-		} else {
-			if (0L != end) {
-				return entryTime.before(new Date(end));
-			} else {
-				return true;
+	static LogEntry convertString2LogEntry(String target) {
+		LogEntry result = null;
+		if (null != target) {
+			Matcher matcher = logPattern.matcher(target);
+			if (matcher.find() && matcher.groupCount() == 7) {
+				if (null != matcher.group(2)) {
+					RepeatedLogEntry repeatedEntry = new RepeatedLogEntry();
+					repeatedEntry.setRepeatCount(Integer.parseInt(matcher.group(2)));
+					repeatedEntry.setLastCreated(Long.parseLong(matcher.group(3)));
+					result = repeatedEntry;
+				} else {
+					result = new LogEntry();
+				}
+				result.setCreated(Long.parseLong(matcher.group(1)));
+				result.setOriginService("".equals(matcher.group(4)) ? null : matcher.group(4));
+				result.setLabels("".equals(matcher.group(5)) ? null : matcher.group(5).split(", "));
+				result.setLogLevel(Level.valueOf(matcher.group(6).trim()));
+				result.setMessage(matcher.group(7));
 			}
 		}
+		return result;
 	}
 
 }
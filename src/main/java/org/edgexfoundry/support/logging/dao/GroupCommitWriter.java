@@ -0,0 +1,409 @@
+/*******************************************************************************
+ * Copyright 2016-2017 Dell Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * @microservice:  support-logging
+ * @author: Jude Hung, Dell
+ * @version: 1.0.0
+ *******************************************************************************/
+package org.edgexfoundry.support.logging.dao;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.edgexfoundry.support.domain.logging.LogEntry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Single writer thread persisting logEntries to the log file with group
+ * commit: entries submitted by concurrent saves while a write is in progress
+ * are encoded together and written with one FileChannel write. When the file
+ * exceeds its max size it is rolled over like logback's fixed window policy
+ * (file to file1, file1 to file2, ... up to file7), and the RollListener is
+ * told which of the logEntries it wrote left the active file.
+ */
+public class GroupCommitWriter {
+
+	/**
+	 * When written logEntries are forced to the storage device
+	 */
+	public enum FsyncPolicy {
+		/** force after every group write, a save completes once durable */
+		BATCH,
+		/**
+		 * force at most every fsync interval, bounding what a crash loses; a
+		 * save completes once written
+		 */
+		INTERVAL,
+		/** leave it to the operating system */
+		NEVER
+	}
+
+	/**
+	 * Told on the writer thread when the active file is rolled over
+	 */
+	public interface RollListener {
+
+		/**
+		 * @param written - logEntries written since the writer started or the
+		 *            file last rolled over, now archived
+		 */
+		void rolled(List<LogEntry> written);
+
+	}
+
+	private final static Logger logger = LoggerFactory.getLogger(GroupCommitWriter.class);
+
+	private final static int MAX_ROLLING_INDEX = 7;
+
+	private final static int MAX_GROUP = 1024;
+
+	// marks the end of the queue when the writer is closed
+	private final static Pending CLOSE = new Pending(null);
+
+	private final File file;
+
+	private final long maxFileSize;
+
+	private final FsyncPolicy policy;
+
+	private final long fsyncIntervalNanos;
+
+	private final BlockingQueue<Pending> queue = new LinkedBlockingQueue<Pending>();
+
+	private final LogEntryEncoder encoder = new LogEntryEncoder();
+
+	private final Thread thread;
+
+	private final RollListener rollListener;
+
+	// written to the active file, kept only for the rollListener
+	private List<LogEntry> written = new ArrayList<LogEntry>();
+
+	private FileChannel channel;
+
+	private ByteBuffer byteBuffer;
+
+	private boolean dirty;
+
+	private long lastFsync;
+
+	private volatile boolean running;
+
+	private volatile boolean closed;
+
+	public GroupCommitWriter(String filePath, long maxFileSize, FsyncPolicy policy, long fsyncIntervalMillis) {
+		this(filePath, maxFileSize, policy, fsyncIntervalMillis, null);
+	}
+
+	public GroupCommitWriter(String filePath, long maxFileSize, FsyncPolicy policy, long fsyncIntervalMillis,
+			RollListener rollListener) {
+		this.rollListener = rollListener;
+		this.file = new File(filePath);
+		this.maxFileSize = maxFileSize;
+		this.policy = policy;
+		this.fsyncIntervalNanos = TimeUnit.MILLISECONDS.toNanos(fsyncIntervalMillis);
+		this.thread = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				writeLoop();
+			}
+		}, "logging-file-writer");
+		this.thread.setDaemon(true);
+	}
+
+	/**
+	 * Open the log file and start the writer thread
+	 * 
+	 * @throws IOException
+	 */
+	public void start() throws IOException {
+		openChannel();
+		lastFsync = System.nanoTime();
+		running = true;
+		thread.start();
+	}
+
+	/**
+	 * Queue logEntries to be written
+	 * 
+	 * @param entries
+	 * @return completes once the logEntries are forced to the storage device
+	 *         with the BATCH policy, once written to the log file with the
+	 *         INTERVAL and NEVER policies; completes exceptionally when the
+	 *         write fails or the writer isn't running. Cancelling it succeeds
+	 *         only while the logEntries are still queued, they are then never
+	 *         written.
+	 */
+	public CompletableFuture<Void> append(List<LogEntry> entries) {
+		Pending pending = new Pending(entries);
+		if (closed || !running) {
+			pending.completeExceptionally(new IOException("Log file writer is not running"));
+			return pending;
+		}
+		queue.add(pending);
+		if (closed && !running) {
+			// the writer thread stopped meanwhile and won't take it
+			pending.completeExceptionally(new IOException("Log file writer is not running"));
+		}
+		return pending;
+	}
+
+	/**
+	 * @return logEntries written to the active file since the writer started
+	 *         or the file last rolled over, only kept with a RollListener and
+	 *         to be read once the writer is closed
+	 */
+	public List<LogEntry> getWritten() {
+		return written;
+	}
+
+	/**
+	 * Write what is queued, force it to the storage device and release the
+	 * log file
+	 */
+	public void close() {
+		closed = true;
+		queue.add(CLOSE);
+		try {
+			thread.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private void writeLoop() {
+		List<Pending> group = new ArrayList<Pending>();
+		try {
+			while (true) {
+				Pending first = queue.poll(pollTimeoutNanos(), TimeUnit.NANOSECONDS);
+				if (null == first) {
+					forceIfDue();
+					continue;
+				}
+				group.add(first);
+				queue.drainTo(group, MAX_GROUP);
+				boolean closing = group.remove(CLOSE);
+				takeUncancelled(group);
+				writeGroup(group);
+				group.clear();
+				if (closing) {
+					break;
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} catch (Throwable t) {
+			// e.g. the encoder failing, stop rather than die leaving saves waiting
+			logger.error("Error in the writer of " + file + ", no further logEntries are written", t);
+			for (Pending pending : group) {
+				pending.completeExceptionally(t);
+			}
+		} finally {
+			closed = true;
+			running = false;
+			closeChannel();
+			// fail whatever raced with close instead of leaving callers waiting
+			IOException notRunning = new IOException("Log file writer is not running");
+			Pending pending;
+			while (null != (pending = queue.poll())) {
+				if (pending != CLOSE) {
+					pending.completeExceptionally(notRunning);
+				}
+			}
+		}
+	}
+
+	private long pollTimeoutNanos() {
+		if (policy == FsyncPolicy.INTERVAL && dirty) {
+			return Math.max(0L, lastFsync + fsyncIntervalNanos - System.nanoTime());
+		}
+		return fsyncIntervalNanos > 0 ? fsyncIntervalNanos : TimeUnit.SECONDS.toNanos(1);
+	}
+
+	/**
+	 * Take the pendings of a group over from their callers, dropping the ones
+	 * cancelled while queued
+	 */
+	private void takeUncancelled(List<Pending> group) {
+		Iterator<Pending> pendings = group.iterator();
+		while (pendings.hasNext()) {
+			if (!pendings.next().take()) {
+				pendings.remove();
+			}
+		}
+	}
+
+	private void writeGroup(List<Pending> group) {
+		if (group.isEmpty()) {
+			return;
+		}
+		encoder.reset();
+		for (Pending pending : group) {
+			for (LogEntry entry : pending.entries) {
+				encoder.encode(entry);
+			}
+		}
+		try {
+			write();
+			if (null != rollListener) {
+				for (Pending pending : group) {
+					written.addAll(pending.entries);
+				}
+			}
+			if (policy == FsyncPolicy.BATCH) {
+				channel.force(false);
+			} else if (policy == FsyncPolicy.INTERVAL) {
+				dirty = true;
+			}
+			complete(group);
+			forceIfDue();
+			rollIfTooLarge();
+		} catch (IOException e) {
+			logger.error("Error writing logEntries to " + file, e);
+			for (Pending pending : group) {
+				pending.completeExceptionally(e);
+			}
+		}
+	}
+
+	private void write() throws IOException {
+		if (!channel.isOpen()) {// a failed roll over left it closed
+			openChannel();
+		}
+		if (null == byteBuffer || byteBuffer.array() != encoder.getBuffer()) {
+			byteBuffer = ByteBuffer.wrap(encoder.getBuffer());
+		}
+		byteBuffer.clear();
+		byteBuffer.limit(encoder.getLength());
+		while (byteBuffer.hasRemaining()) {
+			channel.write(byteBuffer);
+		}
+	}
+
+	private void forceIfDue() {
+		if (policy == FsyncPolicy.INTERVAL && dirty && System.nanoTime() - lastFsync >= fsyncIntervalNanos) {
+			force();
+		}
+	}
+
+	private void force() {
+		try {
+			channel.force(false);
+			dirty = false;
+		} catch (IOException e) {
+			logger.error("Error forcing " + file + " to the storage device", e);
+		}
+		lastFsync = System.nanoTime();
+	}
+
+	private void complete(List<Pending> group) {
+		for (Pending pending : group) {
+			pending.complete(null);
+		}
+	}
+
+	private void rollIfTooLarge() throws IOException {
+		if (channel.size() < maxFileSize) {
+			return;
+		}
+		force();
+		channel.close();
+		String path = file.getPath();
+		Files.deleteIfExists(new File(path + MAX_ROLLING_INDEX).toPath());
+		for (int i = MAX_ROLLING_INDEX - 1; i >= 1; i--) {
+			File archive = new File(path + i);
+			if (archive.exists()) {
+				Files.move(archive.toPath(), new File(path + (i + 1)).toPath(), StandardCopyOption.REPLACE_EXISTING);
+			}
+		}
+		Files.move(file.toPath(), new File(path + 1).toPath(), StandardCopyOption.REPLACE_EXISTING);
+		openChannel();
+		if (null != rollListener) {
+			List<LogEntry> rolled = written;
+			written = new ArrayList<LogEntry>();
+			try {
+				rollListener.rolled(rolled);
+			} catch (RuntimeException e) {
+				logger.error("Error handling the roll over of " + file, e);
+			}
+		}
+	}
+
+	private void openChannel() throws IOException {
+		File parent = file.getAbsoluteFile().getParentFile();
+		if (null != parent && !parent.exists()) {
+			parent.mkdirs();
+		}
+		channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.APPEND);
+		dirty = false;
+	}
+
+	private void closeChannel() {
+		if (null == channel || !channel.isOpen()) {
+			return;
+		}
+		if (policy != FsyncPolicy.NEVER) {
+			force();
+		}
+		try {
+			channel.close();
+		} catch (IOException e) {
+			logger.error("Error closing " + file, e);
+		}
+	}
+
+	private static class Pending extends CompletableFuture<Void> {
+
+		final List<LogEntry> entries;
+
+		// set once by whichever comes first, the writer or a cancel
+		private final AtomicBoolean taken = new AtomicBoolean();
+
+		Pending(List<LogEntry> entries) {
+			this.entries = entries;
+		}
+
+		/**
+		 * @return true if the writer may write the logEntries; false if they
+		 *         were cancelled
+		 */
+		boolean take() {
+			return taken.compareAndSet(false, true);
+		}
+
+		@Override
+		public boolean cancel(boolean mayInterruptIfRunning) {
+			// too late once the writer took the logEntries
+			return take() && super.cancel(mayInterruptIfRunning);
+		}
+
+	}
+
+}
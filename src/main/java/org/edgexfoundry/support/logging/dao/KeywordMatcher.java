@@ -0,0 +1,172 @@
+/*******************************************************************************
+ * Copyright 2016-2017 Dell Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * @microservice:  support-logging
+ * @author: Jude Hung, Dell
+ * @version: 1.0.0
+ *******************************************************************************/
+package org.edgexfoundry.support.logging.dao;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Queue;
+
+/**
+ * Aho-Corasick automaton over a set of keywords, telling in a single pass
+ * over a message whether it contains any of them, whatever the number of
+ * keywords. Compiled once per query, immutable and thread safe afterwards.
+ */
+public class KeywordMatcher {
+
+	private static final int ROOT = 0;
+
+	private final boolean ignoreCase;
+
+	// per state, transition characters sorted and the matching target states
+	private final char[][] labels;
+
+	private final int[][] targets;
+
+	private final int[] failures;
+
+	// a keyword ends at this state or at one of its failure states
+	private final boolean[] outputs;
+
+	private final boolean matchAll;
+
+	/**
+	 * @param keywords - null or empty to match every message
+	 * @param ignoreCase - compare characters case insensitively
+	 */
+	public KeywordMatcher(String[] keywords, boolean ignoreCase) {
+		this.ignoreCase = ignoreCase;
+		int capacity = 1;
+		boolean empty = null == keywords || keywords.length == 0;
+		if (!empty) {
+			for (String keyword : keywords) {
+				if (null != keyword) {
+					capacity += keyword.length();
+					// every message contains the empty keyword
+					empty |= keyword.isEmpty();
+				}
+			}
+		}
+		matchAll = empty;
+		labels = new char[capacity][];
+		targets = new int[capacity][];
+		failures = new int[capacity];
+		outputs = new boolean[capacity];
+		labels[ROOT] = new char[0];
+		targets[ROOT] = new int[0];
+		if (matchAll) {
+			return;
+		}
+		int states = 1;
+		for (String keyword : keywords) {
+			if (null == keyword) {
+				continue;
+			}
+			int state = ROOT;
+			for (int i = 0; i < keyword.length(); i++) {
+				char c = fold(keyword.charAt(i));
+				int next = next(state, c);
+				if (next < 0) {
+					next = states++;
+					labels[next] = new char[0];
+					targets[next] = new int[0];
+					addTransition(state, c, next);
+				}
+				state = next;
+			}
+			outputs[state] = true;
+		}
+		// breadth first, so the failure state of a state is final before
+		// the state's children are processed
+		Queue<Integer> queue = new ArrayDeque<Integer>();
+		for (int child : targets[ROOT]) {
+			failures[child] = ROOT;
+			queue.add(child);
+		}
+		while (!queue.isEmpty()) {
+			int state = queue.poll();
+			for (int i = 0; i < labels[state].length; i++) {
+				char c = labels[state][i];
+				int child = targets[state][i];
+				int failure = failures[state];
+				while (failure != ROOT && next(failure, c) < 0) {
+					failure = failures[failure];
+				}
+				int next = next(failure, c);
+				failures[child] = next < 0 || next == child ? ROOT : next;
+				outputs[child] |= outputs[failures[child]];
+				queue.add(child);
+			}
+		}
+	}
+
+	/**
+	 * @param message
+	 * @return true if the message contains any of the keywords
+	 */
+	public boolean matches(String message) {
+		if (matchAll) {
+			return true;
+		}
+		if (null == message) {
+			return false;
+		}
+		int state = ROOT;
+		for (int i = 0; i < message.length(); i++) {
+			char c = fold(message.charAt(i));
+			int next = next(state, c);
+			while (next < 0 && state != ROOT) {
+				state = failures[state];
+				next = next(state, c);
+			}
+			state = next < 0 ? ROOT : next;
+			if (outputs[state]) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private char fold(char c) {
+		// same folding as the trigram index of LogEntryIndex
+		return ignoreCase ? Character.toLowerCase(c) : c;
+	}
+
+	private int next(int state, char c) {
+		int index = Arrays.binarySearch(labels[state], c);
+		return index < 0 ? -1 : targets[state][index];
+	}
+
+	private void addTransition(int state, char c, int target) {
+		char[] stateLabels = labels[state];
+		int[] stateTargets = targets[state];
+		int index = -Arrays.binarySearch(stateLabels, c) - 1;
+		char[] newLabels = new char[stateLabels.length + 1];
+		int[] newTargets = new int[stateTargets.length + 1];
+		System.arraycopy(stateLabels, 0, newLabels, 0, index);
+		System.arraycopy(stateTargets, 0, newTargets, 0, index);
+		newLabels[index] = c;
+		newTargets[index] = target;
+		System.arraycopy(stateLabels, index, newLabels, index + 1, stateLabels.length - index);
+		System.arraycopy(stateTargets, index, newTargets, index + 1, stateTargets.length - index);
+		labels[state] = newLabels;
+		targets[state] = newTargets;
+	}
+
+}
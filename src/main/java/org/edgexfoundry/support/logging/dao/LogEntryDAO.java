@@ -23,13 +23,50 @@ import java.util.List;
 
 import org.edgexfoundry.support.domain.logging.LogEntry;
 import org.edgexfoundry.support.domain.logging.MatchCriteria;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.util.CloseableIterator;
 
 public interface LogEntryDAO {
 
 	boolean save(LogEntry entry);
 
+	List<LogEntry> saveAll(List<LogEntry> entries);
+
 	List<LogEntry> findByCriteria(MatchCriteria criteria, int limit);
 
+	/**
+	 * Find the logEntries matching the criteria in created order
+	 * 
+	 * @param criteria
+	 * @param limit - maximum number of logEntries
+	 * @param direction - ASC for the oldest first, DESC for the newest first
+	 * @return the first limit logEntries in that order
+	 */
+	List<LogEntry> findByCriteria(MatchCriteria criteria, int limit, Sort.Direction direction);
+
+	/**
+	 * Find a page of the logEntries matching the criteria, ordered by created
+	 * then a tie breaker of the backend
+	 * 
+	 * @param criteria
+	 * @param limit - maximum number of logEntries of the page
+	 * @param cursor - cursor of the previous page, null for the first page
+	 * @return the page, with the cursor of the next one if it was full
+	 * @throws IllegalArgumentException
+	 *             if the cursor is invalid
+	 */
+	LogEntryPage findPageByCriteria(MatchCriteria criteria, int limit, String cursor);
+
+	/**
+	 * Iterate over all logEntries matching the criteria, producing them as
+	 * they are read so memory doesn't grow with the number of matches. The
+	 * iterator must be closed once done.
+	 * 
+	 * @param criteria
+	 * @return iterator over the matching logEntries
+	 */
+	CloseableIterator<LogEntry> streamByCriteria(MatchCriteria criteria);
+
 	List<LogEntry> removeByCriteria(MatchCriteria criteria);
 
 }
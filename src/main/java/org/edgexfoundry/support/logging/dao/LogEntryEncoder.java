@@ -0,0 +1,229 @@
+/*******************************************************************************
+ * Copyright 2016-2017 Dell Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * @microservice:  support-logging
+ * @author: Jude Hung, Dell
+ * @version: 1.0.0
+ *******************************************************************************/
+package org.edgexfoundry.support.logging.dao;
+
+import java.nio.charset.StandardCharsets;
+
+import org.edgexfoundry.support.domain.logging.LogEntry;
+import org.slf4j.event.Level;
+
+/**
+ * Encoder writing logEntries straight into a reusable byte buffer in the
+ * line format FileLogEntryDAO parses back, i.e.
+ * 
+ * <pre>
+ * created [originService] [label1, label2] LEVEL - message
+ * </pre>
+ * 
+ * where a RepeatedLogEntry has its own field ahead of the originService, i.e.
+ * "created (repeated N times until lastCreated) [originService] ...", so the
+ * message is never parsed for it.
+ * 
+ * Unlike a PatternLayoutEncoder it needs neither the MDC nor intermediate
+ * Strings: numbers and characters are encoded byte by byte (UTF-8), so once
+ * the buffer has grown to the largest batch encoding a logEntry allocates
+ * nothing. The buffer is not thread safe, it belongs to the single thread
+ * writing the log file.
+ */
+public class LogEntryEncoder {
+
+	private static final byte[] LINE_SEPARATOR = System.getProperty("line.separator").getBytes();
+
+	private static final byte[] NULL = { 'n', 'u', 'l', 'l' };
+
+	private static final byte[] LEVEL_SEPARATOR = { ' ', '-', ' ' };
+
+	private static final byte[] LABEL_SEPARATOR = { ',', ' ' };
+
+	private static final byte[] REPEATED = " (repeated ".getBytes();
+
+	private static final byte[] REPEATED_UNTIL = " times until ".getBytes();
+
+	private byte[] buffer = new byte[512];
+
+	private int position;
+
+	/**
+	 * Discard the encoded lines so the buffer can be reused
+	 */
+	public void reset() {
+		position = 0;
+	}
+
+	/**
+	 * Append the line of one logEntry to the buffer
+	 * 
+	 * @param entry
+	 */
+	public void encode(LogEntry entry) {
+		appendLong(entry.getCreated());
+		if (entry instanceof RepeatedLogEntry) {
+			RepeatedLogEntry repeated = (RepeatedLogEntry) entry;
+			appendBytes(REPEATED);
+			appendLong(repeated.getRepeatCount());
+			appendBytes(REPEATED_UNTIL);
+			appendLong(repeated.getLastCreated());
+			ensureCapacity(1);
+			buffer[position++] = ')';
+		}
+		appendOriginService(entry.getOriginService());
+		appendLabels(entry.getLabels());
+		appendLevel(entry.getLogLevel());
+		appendChars(entry.getMessage());
+		appendBytes(LINE_SEPARATOR);
+	}
+
+	/**
+	 * Encode the line of one logEntry on its own, replacing what the buffer
+	 * held
+	 * 
+	 * @param entry
+	 * @return the line as written to the log file, without line separator
+	 */
+	public String encodeLine(LogEntry entry) {
+		reset();
+		encode(entry);
+		return new String(buffer, 0, position - LINE_SEPARATOR.length, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * @return buffer holding the encoded lines from index 0 to getLength();
+	 *         the array is replaced when the buffer grows
+	 */
+	public byte[] getBuffer() {
+		return buffer;
+	}
+
+	/**
+	 * @return number of encoded bytes since the last reset
+	 */
+	public int getLength() {
+		return position;
+	}
+
+	private void appendOriginService(String originService) {
+		ensureCapacity(2);
+		buffer[position++] = ' ';
+		buffer[position++] = '[';
+		if (null != originService) {// a missing originService is written as []
+			appendChars(originService);
+		}
+		ensureCapacity(3);
+		buffer[position++] = ']';
+		buffer[position++] = ' ';
+	}
+
+	private void appendLabels(String[] labels) {
+		ensureCapacity(1);
+		buffer[position++] = '[';
+		if (null != labels) {
+			for (int i = 0; i < labels.length; i++) {
+				if (i > 0) {
+					appendBytes(LABEL_SEPARATOR);
+				}
+				appendChars(labels[i]);
+			}
+		}
+		ensureCapacity(1);
+		buffer[position++] = ']';
+	}
+
+	private void appendLevel(Level level) {
+		ensureCapacity(6);
+		buffer[position++] = ' ';
+		String name = level.name();
+		// left aligned and padded to five characters, as %-5level did
+		for (int i = 0; i < 5; i++) {
+			buffer[position++] = (byte) (i < name.length() ? name.charAt(i) : ' ');
+		}
+		appendBytes(LEVEL_SEPARATOR);
+	}
+
+	private void appendLong(long value) {
+		if (value == Long.MIN_VALUE) {
+			appendChars(Long.toString(value));
+			return;
+		}
+		ensureCapacity(20);
+		if (value < 0) {
+			buffer[position++] = '-';
+			value = -value;
+		}
+		int start = position;
+		do {
+			buffer[position++] = (byte) ('0' + (value % 10));
+			value /= 10;
+		} while (value > 0);
+		// digits were written least significant first
+		for (int i = start, j = position - 1; i < j; i++, j--) {
+			byte digit = buffer[i];
+			buffer[i] = buffer[j];
+			buffer[j] = digit;
+		}
+	}
+
+	private void appendChars(String value) {
+		if (null == value) {
+			appendBytes(NULL);
+			return;
+		}
+		int length = value.length();
+		// worst case of three bytes per UTF-16 unit (surrogate pairs take 4
+		// bytes for 2 units)
+		ensureCapacity(length * 3);
+		for (int i = 0; i < length; i++) {
+			char c = value.charAt(i);
+			if (c < 0x80) {
+				buffer[position++] = (byte) c;
+			} else if (c < 0x800) {
+				buffer[position++] = (byte) (0xC0 | (c >> 6));
+				buffer[position++] = (byte) (0x80 | (c & 0x3F));
+			} else if (Character.isHighSurrogate(c) && i + 1 < length
+					&& Character.isLowSurrogate(value.charAt(i + 1))) {
+				int codePoint = Character.toCodePoint(c, value.charAt(++i));
+				buffer[position++] = (byte) (0xF0 | (codePoint >> 18));
+				buffer[position++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+				buffer[position++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+				buffer[position++] = (byte) (0x80 | (codePoint & 0x3F));
+			} else if (Character.isSurrogate(c)) {
+				buffer[position++] = '?'; // unpaired surrogate, as String.getBytes does
+			} else {
+				buffer[position++] = (byte) (0xE0 | (c >> 12));
+				buffer[position++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+				buffer[position++] = (byte) (0x80 | (c & 0x3F));
+			}
+		}
+	}
+
+	private void appendBytes(byte[] bytes) {
+		ensureCapacity(bytes.length);
+		System.arraycopy(bytes, 0, buffer, position, bytes.length);
+		position += bytes.length;
+	}
+
+	private void ensureCapacity(int extra) {
+		if (position + extra > buffer.length) {
+			byte[] grown = new byte[Math.max(buffer.length * 2, position + extra)];
+			System.arraycopy(buffer, 0, grown, 0, position);
+			buffer = grown;
+		}
+	}
+
+}
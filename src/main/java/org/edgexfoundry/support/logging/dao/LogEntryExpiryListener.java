@@ -0,0 +1,38 @@
+/*******************************************************************************
+ * Copyright 2016-2017 Dell Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * @microservice:  support-logging
+ * @author: Jude Hung, Dell
+ * @version: 1.0.0
+ *******************************************************************************/
+package org.edgexfoundry.support.logging.dao;
+
+import java.util.Collection;
+
+import org.edgexfoundry.support.domain.logging.LogEntry;
+
+/**
+ * Told about logEntries a persistence drops by itself, e.g. a segment or log
+ * file rolled out, so components counting or caching logEntries can forget
+ * them as well.
+ */
+public interface LogEntryExpiryListener {
+
+	/**
+	 * @param entries - logEntries no longer persisted
+	 */
+	void expired(Collection<LogEntry> entries);
+
+}
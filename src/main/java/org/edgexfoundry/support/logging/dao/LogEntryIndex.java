@@ -0,0 +1,852 @@
+/*******************************************************************************
+ * Copyright 2016-2017 Dell Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * @microservice:  support-logging
+ * @author: Jude Hung, Dell
+ * @version: 1.0.0
+ *******************************************************************************/
+package org.edgexfoundry.support.logging.dao;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.edgexfoundry.support.domain.logging.LogEntry;
+import org.edgexfoundry.support.domain.logging.MatchCriteria;
+import org.slf4j.event.Level;
+
+/**
+ * In-memory cache of logEntries indexed for MatchCriteria queries. Every
+ * logEntry gets a slot number in arrival order and compressed bitmap
+ * postings map each distinct originService, logLevel and label to the slots
+ * holding it. A query ORs the postings of the values requested for a field,
+ * ANDs the fields together and only visits the resulting slots.
+ * 
+ * LogEntries arrive nearly in created order: the running maximum of created
+ * over the slots is kept together with the largest lateness seen, i.e. how
+ * far behind that maximum a logEntry arrived. Both bound the slots a time
+ * range can be found in by binary search. As long as nothing arrived late the
+ * slots are in created order and a query stops at its limit; otherwise the
+ * scan stops once the slots left can only hold logEntries created after the
+ * first limit matches, which are sorted by created before the limit is
+ * applied.
+ * 
+ * Messages are indexed by their trigrams, case folded, so the logEntries
+ * containing a keyword are among those holding all of its trigrams; the
+ * filter verifies the candidates with the actual substring check. The
+ * trigram postings grow until their estimated size reaches the keyword
+ * budget, logEntries arriving after that are always candidates.
+ * 
+ * Removed logEntries leave a tombstone in their slot and their bits are
+ * cleared from the postings, so a removal costs the size of what is removed.
+ * Once tombstones make up more than half of the slots, the remaining
+ * logEntries are renumbered in created order and the postings rebuilt for
+ * them alone.
+ * 
+ * Queries with many slots to scan are split into chunks scanned in parallel
+ * on the given ForkJoinPool; filters must therefore be thread safe.
+ */
+class LogEntryIndex {
+
+	/**
+	 * Criteria the index doesn't answer, checked on each candidate logEntry
+	 */
+	interface Filter {
+
+		boolean accept(LogEntry entry);
+
+	}
+
+	/**
+	 * Parameters of a query shared by the chunks scanning it
+	 */
+	private static final class Query {
+
+		final long start;
+
+		final long end;
+
+		final Filter filter;
+
+		// position of the last logEntry of the previous page
+		final long afterCreated;
+
+		final long afterSequence;
+
+		final CompressedBitmap candidates;
+
+		final int limit;
+
+		// number of matches needed when they have to be sorted, -1 for all
+		final int bound;
+
+		// scan from the last slot backwards
+		final boolean descending;
+
+		Query(long start, long end, Filter filter, long afterCreated, long afterSequence,
+				CompressedBitmap candidates, int limit, int bound, boolean descending) {
+			this.start = start;
+			this.end = end;
+			this.filter = filter;
+			this.afterCreated = afterCreated;
+			this.afterSequence = afterSequence;
+			this.candidates = candidates;
+			this.limit = limit;
+			this.bound = bound;
+			this.descending = descending;
+		}
+
+	}
+
+	/**
+	 * Growable list of slot numbers
+	 */
+	private static final class SlotList {
+
+		private int[] values = new int[16];
+
+		private int size;
+
+		void add(int slot) {
+			if (size == values.length) {
+				values = Arrays.copyOf(values, size * 2);
+			}
+			values[size++] = slot;
+		}
+
+		void addAll(SlotList other) {
+			if (size + other.size > values.length) {
+				values = Arrays.copyOf(values, Math.max(values.length * 2, size + other.size));
+			}
+			System.arraycopy(other.values, 0, values, size, other.size);
+			size += other.size;
+		}
+
+		int get(int index) {
+			return values[index];
+		}
+
+		void set(int index, int slot) {
+			values[index] = slot;
+		}
+
+		int size() {
+			return size;
+		}
+
+	}
+
+	// orders slots by created then sequence
+	private final Comparator<Integer> slotOrder = new Comparator<Integer>() {
+		@Override
+		public int compare(Integer a, Integer b) {
+			return compareSlots(a, b);
+		}
+	};
+
+	// null for the tombstone of a removed logEntry
+	private final ArrayList<LogEntry> slots = new ArrayList<LogEntry>();
+
+	private int tombstones;
+
+	// running maximum of created, per slot
+	private long[] maxCreated = new long[1024];
+
+	// arrival sequence, per slot
+	private long[] sequences = new long[1024];
+
+	private long nextSequence;
+
+	private long lateness;
+
+	private final Map<String, CompressedBitmap> originServices = new HashMap<String, CompressedBitmap>();
+
+	private final CompressedBitmap[] logLevels = new CompressedBitmap[Level.values().length];
+
+	private final Map<String, CompressedBitmap> labels = new HashMap<String, CompressedBitmap>();
+
+	// estimated heap cost of a new trigram, its map entry and empty posting
+	private static final int GRAM_OVERHEAD = 200;
+
+	private final long keywordBudget;
+
+	private final Map<Long, CompressedBitmap> grams = new HashMap<Long, CompressedBitmap>();
+
+	private long keywordBytes;
+
+	// slots below have their message trigrams indexed
+	private int keywordCovered;
+
+	private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+	// smallest number of slots worth a chunk of its own
+	private static final int MIN_CHUNK = 4096;
+
+	private final ForkJoinPool pool;
+
+	private final int parallelThreshold;
+
+	/**
+	 * @param keywordBudget - bytes the trigram postings may take, 0 to not
+	 *            index messages
+	 */
+	LogEntryIndex(long keywordBudget) {
+		this(keywordBudget, null, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * @param keywordBudget - bytes the trigram postings may take, 0 to not
+	 *            index messages
+	 * @param pool - pool running the scans of large queries, null to always
+	 *            scan in the calling thread
+	 * @param parallelThreshold - smallest number of slots to scan for a query
+	 *            to go parallel
+	 */
+	LogEntryIndex(long keywordBudget, ForkJoinPool pool, int parallelThreshold) {
+		this.keywordBudget = keywordBudget;
+		this.pool = pool;
+		this.parallelThreshold = parallelThreshold;
+	}
+
+	void add(LogEntry entry) {
+		lock.writeLock().lock();
+		try {
+			insert(entry, nextSequence++);
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	void addAll(Collection<LogEntry> added) {
+		lock.writeLock().lock();
+		try {
+			for (LogEntry entry : added) {
+				insert(entry, nextSequence++);
+			}
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Remove the given instances, compared by identity. Their slots become
+	 * tombstones, compacted once they make up more than half of the slots.
+	 * 
+	 * @param removed
+	 */
+	void removeAll(Collection<LogEntry> removed) {
+		if (removed.isEmpty()) {
+			return;
+		}
+		Set<LogEntry> targets = Collections.newSetFromMap(new IdentityHashMap<LogEntry, Boolean>());
+		targets.addAll(removed);
+		lock.writeLock().lock();
+		try {
+			// removed logEntries are looked up among the slots their created
+			// can be found in
+			long first = Long.MAX_VALUE;
+			long last = Long.MIN_VALUE;
+			for (LogEntry entry : targets) {
+				first = Math.min(first, entry.getCreated());
+				last = Math.max(last, entry.getCreated());
+			}
+			int count = slots.size();
+			int from = firstSlotAbove(first - 1, count);
+			int to = Math.min(count, firstSlotAbove(last + lateness, count) + 1);
+			for (int slot = from; slot < to && !targets.isEmpty(); slot++) {
+				LogEntry entry = slots.get(slot);
+				if (null != entry && targets.remove(entry)) {
+					unindex(slot, entry);
+				}
+			}
+			if (tombstones > slots.size() / 2) {
+				compact();
+			}
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Renumber the remaining logEntries in created order, keeping their
+	 * sequences, and rebuild the postings for them
+	 */
+	private void compact() {
+		List<Integer> kept = new ArrayList<Integer>(slots.size() - tombstones);
+		for (int slot = 0; slot < slots.size(); slot++) {
+			if (null != slots.get(slot)) {
+				kept.add(slot);
+			}
+		}
+		Collections.sort(kept, slotOrder);
+		List<LogEntry> keptEntries = new ArrayList<LogEntry>(kept.size());
+		long[] keptSequences = new long[kept.size()];
+		for (int i = 0; i < kept.size(); i++) {
+			keptEntries.add(slots.get(kept.get(i)));
+			keptSequences[i] = sequences[kept.get(i)];
+		}
+		slots.clear();
+		tombstones = 0;
+		lateness = 0;
+		originServices.clear();
+		Arrays.fill(logLevels, null);
+		labels.clear();
+		grams.clear();
+		keywordBytes = 0;
+		keywordCovered = 0;
+		for (int i = 0; i < keptEntries.size(); i++) {
+			insert(keptEntries.get(i), keptSequences[i]);
+		}
+	}
+
+	/**
+	 * Leave a tombstone in the slot and clear it from the postings
+	 */
+	private void unindex(int slot, LogEntry entry) {
+		slots.set(slot, null);
+		tombstones++;
+		if (null != entry.getOriginService()) {
+			clear(originServices, entry.getOriginService(), slot);
+		}
+		if (null != entry.getLogLevel()) {
+			CompressedBitmap posting = logLevels[entry.getLogLevel().ordinal()];
+			if (null != posting) {
+				posting.remove(slot);
+			}
+		}
+		if (null != entry.getLabels()) {
+			for (String label : entry.getLabels()) {
+				if (null != label) {
+					clear(labels, label, slot);
+				}
+			}
+		}
+		String message = entry.getMessage();
+		if (slot < keywordCovered && null != message) {
+			for (int i = 0; i + 3 <= message.length(); i++) {
+				Long gram = gram(message, i);
+				CompressedBitmap posting = grams.get(gram);
+				if (null != posting && posting.contains(slot)) {
+					posting.remove(slot);
+					keywordBytes -= 2;
+					if (posting.isEmpty()) {
+						grams.remove(gram);
+						keywordBytes -= GRAM_OVERHEAD;
+					}
+				}
+			}
+		}
+	}
+
+	private static void clear(Map<String, CompressedBitmap> postings, String value, int slot) {
+		CompressedBitmap posting = postings.get(value);
+		if (null != posting) {
+			posting.remove(slot);
+			if (posting.isEmpty()) {
+				postings.remove(value);
+			}
+		}
+	}
+
+	int size() {
+		lock.readLock().lock();
+		try {
+			return slots.size() - tombstones;
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * @return number of distinct trigrams indexed
+	 */
+	int getKeywordGrams() {
+		lock.readLock().lock();
+		try {
+			return grams.size();
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * @return heap size of the trigram postings in bytes, approximately
+	 */
+	long getKeywordBytes() {
+		lock.readLock().lock();
+		try {
+			long result = 0;
+			for (CompressedBitmap posting : grams.values()) {
+				result += GRAM_OVERHEAD + posting.sizeInBytes();
+			}
+			return result;
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * @return number of logEntries whose message trigrams are indexed
+	 */
+	int getKeywordCovered() {
+		lock.readLock().lock();
+		try {
+			return keywordCovered;
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Find the logEntries matching the criteria, in created order
+	 * 
+	 * @param criteria
+	 * @param limit - maximum number of logEntries, negative for all
+	 * @param filter - criteria not answered by the index
+	 * @return matching logEntries
+	 */
+	List<LogEntry> find(MatchCriteria criteria, int limit, Filter filter) {
+		return search(criteria, limit, filter, null, false).getLogEntries();
+	}
+
+	/**
+	 * Find the logEntries matching the criteria, newest first. Slots are
+	 * scanned backwards so the latest matches are found without visiting the
+	 * older ones.
+	 * 
+	 * @param criteria
+	 * @param limit - maximum number of logEntries, negative for all
+	 * @param filter - criteria not answered by the index
+	 * @return matching logEntries
+	 */
+	List<LogEntry> findLatest(MatchCriteria criteria, int limit, Filter filter) {
+		return search(criteria, limit, filter, null, true).getLogEntries();
+	}
+
+	/**
+	 * Find a page of the logEntries matching the criteria, ordered by created
+	 * then arrival sequence. Sequences are assigned on arrival and survive
+	 * removals, so a cursor stays valid while logEntries come and go.
+	 * 
+	 * @param criteria
+	 * @param limit - maximum number of logEntries, negative for all
+	 * @param filter - criteria not answered by the index
+	 * @param cursor - position of the last logEntry of the previous page, null
+	 *            for the first page
+	 * @return matching logEntries, with the cursor of the next page when limit
+	 *         logEntries were found
+	 */
+	LogEntryPage findPage(MatchCriteria criteria, int limit, Filter filter, PageCursor cursor) {
+		return search(criteria, limit, filter, cursor, false);
+	}
+
+	private LogEntryPage search(MatchCriteria criteria, int limit, Filter filter, PageCursor cursor,
+			boolean descending) {
+		lock.readLock().lock();
+		try {
+			int count = slots.size();
+			if (count == tombstones || limit == 0) {
+				return new LogEntryPage(new ArrayList<LogEntry>(), null);
+			}
+			long start = criteria.getStart();
+			long end = criteria.getEnd();
+			long afterCreated = 0L;
+			long afterSequence = -1L;
+			if (null != cursor) {
+				afterCreated = cursor.getCreated();
+				afterSequence = cursor.getNumericSequence();
+				// resume at the created of the last logEntry returned
+				if (0L == start || afterCreated - 1 > start) {
+					start = afterCreated - 1;
+				}
+			}
+			// a logEntry created after start sits at or after the first slot
+			// whose running maximum passed start, and one created before end
+			// can't sit after a slot whose running maximum passed end by more
+			// than the lateness
+			int from = 0L == start ? 0 : firstSlotAbove(start, count);
+			int to = 0L == end ? count : Math.min(count, firstSlotAbove(end + lateness - 1, count) + 1);
+			// matches come out in created order, or its reverse, unless
+			// something arrived late, only then they are sorted before
+			// applying the limit
+			int scanLimit = lateness == 0 ? limit : -1;
+			CompressedBitmap candidates = candidates(criteria, to);
+			Query query = new Query(start, end, filter, afterCreated, afterSequence, candidates, scanLimit,
+					lateness == 0 ? -1 : limit, descending);
+			int size = null == candidates ? to - from : Math.min(to - from, candidates.cardinality());
+			SlotList found;
+			if (null != pool && size >= parallelThreshold) {
+				found = parallelScan(query, from, to);
+			} else {
+				found = new SlotList();
+				scan(query, from, to, found, null, 0);
+			}
+			if (!ordered(found, descending)) {
+				sort(found, descending);
+			}
+			int returned = limit > 0 ? Math.min(limit, found.size()) : found.size();
+			List<LogEntry> result = new ArrayList<LogEntry>(returned);
+			for (int i = 0; i < returned; i++) {
+				result.add(slots.get(found.get(i)));
+			}
+			String next = null;
+			if (limit > 0 && returned == limit) {
+				int last = found.get(returned - 1);
+				next = new PageCursor(slots.get(last).getCreated(), String.valueOf(sequences[last])).encode();
+			}
+			return new LogEntryPage(result, next);
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Collect, in slot order or its reverse, the matching slots from
+	 * inclusive to to exclusive
+	 * 
+	 * @param cutoff - stop once it drops to chunk or below, null if the scan
+	 *            can't be cancelled
+	 */
+	private void scan(Query query, int from, int to, SlotList result, AtomicInteger cutoff, int chunk) {
+		CompressedBitmap candidates = query.candidates;
+		boolean descending = query.descending;
+		// with late arrivals, once bound matches are found the scan stops at
+		// the first slot that can only hold logEntries created after them,
+		// or before them when scanning backwards
+		PriorityQueue<Long> kept = null;
+		if (query.bound > 0) {
+			kept = descending ? new PriorityQueue<Long>(query.bound + 1)
+					: new PriorityQueue<Long>(query.bound + 1, Collections.<Long> reverseOrder());
+		}
+		int visited = 0;
+		int slot;
+		if (descending) {
+			slot = null == candidates ? to - 1 : candidates.previousSetBit(to - 1);
+		} else {
+			slot = null == candidates ? from : candidates.nextSetBit(from);
+		}
+		while (slot >= from && slot < to) {
+			if (null != kept && kept.size() == query.bound && (descending ? maxCreated[slot] < kept.peek()
+					: maxCreated[slot] - lateness > kept.peek())) {
+				return;
+			}
+			if (matches(query, slot)) {
+				result.add(slot);
+				if (result.size() == query.limit) {
+					return;
+				}
+				if (null != kept) {
+					kept.add(slots.get(slot).getCreated());
+					if (kept.size() > query.bound) {
+						kept.poll();
+					}
+				}
+			}
+			if (null != cutoff && (++visited & 1023) == 0 && cutoff.get() <= chunk) {
+				return;
+			}
+			if (descending) {
+				slot = null == candidates ? slot - 1 : candidates.previousSetBit(slot - 1);
+			} else {
+				slot = null == candidates ? slot + 1 : candidates.nextSetBit(slot + 1);
+			}
+		}
+	}
+
+	/**
+	 * Scan the slots in chunks on the query pool and merge the chunk results
+	 * in scan order. With a limit, each chunk collects up to limit matches
+	 * and once the completed leading chunks hold enough, the later chunks are
+	 * cancelled.
+	 */
+	private SlotList parallelScan(final Query query, final int from, final int to) {
+		final int limit = query.limit;
+		final int chunks = Math.max(1, Math.min(pool.getParallelism() * 4, (to - from) / MIN_CHUNK));
+		final int chunkSize = (to - from + chunks - 1) / chunks;
+		// chunks from the cutoff on are not needed anymore
+		final AtomicInteger cutoff = new AtomicInteger(chunks);
+		final int[] found = new int[chunks];
+		final boolean[] completed = new boolean[chunks];
+		List<ForkJoinTask<SlotList>> tasks = new ArrayList<ForkJoinTask<SlotList>>(chunks);
+		for (int i = 0; i < chunks; i++) {
+			final int chunk = i;
+			tasks.add(pool.submit(new Callable<SlotList>() {
+				@Override
+				public SlotList call() {
+					SlotList result = new SlotList();
+					if (cutoff.get() <= chunk) {
+						return result;
+					}
+					// leading chunks are at the end of the range when scanning
+					// backwards
+					int chunkFrom = query.descending ? Math.max(from, to - (chunk + 1) * chunkSize)
+							: from + chunk * chunkSize;
+					int chunkTo = query.descending ? to - chunk * chunkSize : Math.min(to, chunkFrom + chunkSize);
+					scan(query, chunkFrom, chunkTo, result, cutoff, chunk);
+					if (limit > 0) {
+						synchronized (found) {
+							found[chunk] = result.size();
+							completed[chunk] = true;
+							int total = 0;
+							for (int j = 0; j < chunks && completed[j]; j++) {
+								total += found[j];
+								if (total >= limit) {
+									cutoff.set(Math.min(cutoff.get(), j + 1));
+									break;
+								}
+							}
+						}
+					}
+					return result;
+				}
+			}));
+		}
+		SlotList result = new SlotList();
+		for (int i = 0; i < chunks; i++) {
+			if (i >= cutoff.get()) {
+				tasks.get(i).cancel(false);
+			} else {
+				result.addAll(tasks.get(i).join());
+			}
+		}
+		return result;
+	}
+
+	private boolean matches(Query query, int slot) {
+		LogEntry entry = slots.get(slot);
+		if (null == entry) {// removed
+			return false;
+		}
+		long created = entry.getCreated();
+		if ((0L != query.start && created <= query.start) || (0L != query.end && created >= query.end)) {
+			return false;
+		}
+		if (created == query.afterCreated && sequences[slot] <= query.afterSequence) {
+			return false;
+		}
+		return query.filter.accept(entry);
+	}
+
+	/**
+	 * @return slots holding the originServices, logLevels and labels of the
+	 *         criteria and possibly containing their keywords, null if the
+	 *         criteria don't restrict any of them
+	 */
+	private CompressedBitmap candidates(MatchCriteria criteria, int to) {
+		CompressedBitmap result = null;
+		String[] requestedServices = criteria.getOriginServices();
+		if (null != requestedServices && requestedServices.length > 0) {
+			result = union(originServices, requestedServices);
+		}
+		Level[] requestedLevels = criteria.getLogLevels();
+		if (null != requestedLevels && requestedLevels.length > 0) {
+			CompressedBitmap levels = new CompressedBitmap();
+			for (Level level : requestedLevels) {
+				if (null != level && null != logLevels[level.ordinal()]) {
+					levels = CompressedBitmap.or(levels, logLevels[level.ordinal()]);
+				}
+			}
+			result = intersect(result, levels);
+		}
+		String[] requestedLabels = criteria.getLabels();
+		if (null != requestedLabels && requestedLabels.length > 0) {
+			result = intersect(result, union(labels, requestedLabels));
+		}
+		String[] keywords = criteria.getMessageKeywords();
+		if (null != keywords && keywords.length > 0 && keywordBudget > 0) {
+			CompressedBitmap containing = new CompressedBitmap();
+			for (String keyword : keywords) {
+				CompressedBitmap keywordCandidates = keywordCandidates(keyword);
+				if (null == keywordCandidates) {// too short to be looked up
+					return result;
+				}
+				containing = CompressedBitmap.or(containing, keywordCandidates);
+			}
+			// messages past the budget aren't indexed
+			containing.addRange(keywordCovered, to);
+			result = intersect(result, containing);
+		}
+		return result;
+	}
+
+	/**
+	 * @return slots holding all trigrams of the keyword, null if it has less
+	 *         than three characters
+	 */
+	private CompressedBitmap keywordCandidates(String keyword) {
+		if (null == keyword || keyword.length() < 3) {
+			return null;
+		}
+		CompressedBitmap result = null;
+		for (int i = 0; i + 3 <= keyword.length(); i++) {
+			CompressedBitmap posting = grams.get(gram(keyword, i));
+			if (null == posting) {
+				return new CompressedBitmap();
+			}
+			result = null == result ? posting : CompressedBitmap.and(result, posting);
+		}
+		return result;
+	}
+
+	private void indexMessage(int slot, String message) {
+		if (null != message) {
+			for (int i = 0; i + 3 <= message.length(); i++) {
+				Long gram = gram(message, i);
+				CompressedBitmap posting = grams.get(gram);
+				if (null == posting) {
+					posting = new CompressedBitmap();
+					grams.put(gram, posting);
+					keywordBytes += GRAM_OVERHEAD;
+				}
+				if (posting.add(slot)) {
+					keywordBytes += 2;
+				}
+			}
+		}
+		if (keywordBytes <= keywordBudget) {
+			keywordCovered = slot + 1;
+		}
+	}
+
+	/**
+	 * @return the three characters at index, case folded, packed in a long
+	 */
+	private static Long gram(String value, int index) {
+		return Long.valueOf(((long) Character.toLowerCase(value.charAt(index)) << 32)
+				| ((long) Character.toLowerCase(value.charAt(index + 1)) << 16)
+				| Character.toLowerCase(value.charAt(index + 2)));
+	}
+
+	private static CompressedBitmap union(Map<String, CompressedBitmap> postings, String[] values) {
+		CompressedBitmap result = null;
+		for (String value : values) {
+			CompressedBitmap posting = postings.get(value);
+			if (null != posting) {
+				result = null == result ? posting : CompressedBitmap.or(result, posting);
+			}
+		}
+		return null == result ? new CompressedBitmap() : result;
+	}
+
+	private static CompressedBitmap intersect(CompressedBitmap a, CompressedBitmap b) {
+		return null == a ? b : CompressedBitmap.and(a, b);
+	}
+
+	/**
+	 * @return index of the first slot whose running maximum of created is
+	 *         above time, count if there is none
+	 */
+	private int firstSlotAbove(long time, int count) {
+		int low = 0;
+		int high = count;
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (maxCreated[mid] <= time) {
+				low = mid + 1;
+			} else {
+				high = mid;
+			}
+		}
+		return low;
+	}
+
+	private void insert(LogEntry entry, long sequence) {
+		int slot = slots.size();
+		slots.add(entry);
+		if (slot == maxCreated.length) {
+			maxCreated = Arrays.copyOf(maxCreated, slot * 2);
+			sequences = Arrays.copyOf(sequences, slot * 2);
+		}
+		sequences[slot] = sequence;
+		long created = entry.getCreated();
+		long previous = slot == 0 ? Long.MIN_VALUE : maxCreated[slot - 1];
+		if (created < previous) {
+			lateness = Math.max(lateness, previous - created);
+			maxCreated[slot] = previous;
+		} else {
+			maxCreated[slot] = created;
+		}
+		if (null != entry.getOriginService()) {
+			posting(originServices, entry.getOriginService()).add(slot);
+		}
+		if (null != entry.getLogLevel()) {
+			int ordinal = entry.getLogLevel().ordinal();
+			if (null == logLevels[ordinal]) {
+				logLevels[ordinal] = new CompressedBitmap();
+			}
+			logLevels[ordinal].add(slot);
+		}
+		if (null != entry.getLabels()) {
+			for (String label : entry.getLabels()) {
+				if (null != label) {
+					posting(labels, label).add(slot);
+				}
+			}
+		}
+		if (keywordCovered == slot && keywordBudget > 0) {
+			indexMessage(slot, entry.getMessage());
+		}
+	}
+
+	private static CompressedBitmap posting(Map<String, CompressedBitmap> postings, String value) {
+		CompressedBitmap posting = postings.get(value);
+		if (null == posting) {
+			posting = new CompressedBitmap();
+			postings.put(value, posting);
+		}
+		return posting;
+	}
+
+	private int compareSlots(int a, int b) {
+		int result = Long.compare(slots.get(a).getCreated(), slots.get(b).getCreated());
+		return result != 0 ? result : Long.compare(sequences[a], sequences[b]);
+	}
+
+	private boolean ordered(SlotList found, boolean descending) {
+		for (int i = 1; i < found.size(); i++) {
+			int compared = compareSlots(found.get(i - 1), found.get(i));
+			if (descending ? compared < 0 : compared > 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private void sort(SlotList found, boolean descending) {
+		Integer[] sorted = new Integer[found.size()];
+		for (int i = 0; i < sorted.length; i++) {
+			sorted[i] = found.get(i);
+		}
+		Arrays.sort(sorted, descending ? Collections.reverseOrder(slotOrder) : slotOrder);
+		for (int i = 0; i < sorted.length; i++) {
+			found.set(i, sorted[i]);
+		}
+	}
+
+}
@@ -0,0 +1,64 @@
+/*******************************************************************************
+ * Copyright 2016-2017 Dell Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * @microservice:  support-logging
+ * @author: Jude Hung, Dell
+ * @version: 1.0.0
+ *******************************************************************************/
+package org.edgexfoundry.support.logging.dao;
+
+import java.util.List;
+
+import org.edgexfoundry.support.domain.logging.LogEntry;
+
+/**
+ * One page of logEntries ordered by created, with the cursor the next page
+ * resumes from
+ */
+public class LogEntryPage {
+
+	private List<LogEntry> logEntries;
+
+	private String cursor;
+
+	public LogEntryPage() {
+	}
+
+	public LogEntryPage(List<LogEntry> logEntries, String cursor) {
+		this.logEntries = logEntries;
+		this.cursor = cursor;
+	}
+
+	public List<LogEntry> getLogEntries() {
+		return logEntries;
+	}
+
+	public void setLogEntries(List<LogEntry> logEntries) {
+		this.logEntries = logEntries;
+	}
+
+	/**
+	 * @return token to pass to fetch the next page, null if this page is the
+	 *         last one
+	 */
+	public String getCursor() {
+		return cursor;
+	}
+
+	public void setCursor(String cursor) {
+		this.cursor = cursor;
+	}
+
+}
@@ -0,0 +1,37 @@
+/*******************************************************************************
+ * Copyright 2016-2017 Dell Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * @microservice:  support-logging
+ * @author: Jude Hung, Dell
+ * @version: 1.0.0
+ *******************************************************************************/
+package org.edgexfoundry.support.logging.dao;
+
+import org.slf4j.event.Level;
+
+/**
+ * Retention of a persistence removing old logEntries by itself, so
+ * components counting logEntries can forget the expired ones as well.
+ */
+public interface LogEntryRetention {
+
+	/**
+	 * @param logLevel
+	 * @return how long logEntries of the logLevel are kept after their
+	 *         created, in milliseconds, 0 if they are kept until removed
+	 */
+	long getRetention(Level logLevel);
+
+}
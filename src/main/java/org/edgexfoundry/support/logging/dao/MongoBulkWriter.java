@@ -0,0 +1,391 @@
+/*******************************************************************************
+ * Copyright 2016-2017 Dell Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * @microservice:  support-logging
+ * @author: Jude Hung, Dell
+ * @version: 1.0.0
+ *******************************************************************************/
+package org.edgexfoundry.support.logging.dao;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.edgexfoundry.support.domain.logging.LogEntry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.mongodb.BulkWriteError;
+import com.mongodb.BulkWriteException;
+import com.mongodb.DBObject;
+import com.mongodb.MongoException;
+
+/**
+ * Write-behind buffer of the MongoDB persistence: a single writer thread
+ * inserts the buffered logEntries with one unordered bulk insert once
+ * maxBatch of them are buffered or maxDelay has elapsed since the oldest one
+ * was buffered, instead of one acknowledged round trip per logEntry.
+ * 
+ * Documents carry their _id from the time they are buffered, so a bulk
+ * insert failing on the network or on the write concern is retried as is,
+ * with exponential backoff, and the documents the failed attempt stored are
+ * only reported as duplicate keys.
+ */
+public class MongoBulkWriter {
+
+	/**
+	 * Where the buffered documents go
+	 */
+	public interface Target {
+
+		/**
+		 * Insert the documents with an unordered bulk insert
+		 * 
+		 * @param documents
+		 * @throws MongoException
+		 *             if some or all documents weren't inserted
+		 */
+		void insert(List<DBObject> documents);
+
+		/**
+		 * Called by the writer thread once logEntries are stored
+		 * 
+		 * @param entries
+		 */
+		void inserted(List<LogEntry> entries);
+
+	}
+
+	private final static Logger logger = LoggerFactory.getLogger(MongoBulkWriter.class);
+
+	private final static int DUPLICATE_KEY = 11000;
+
+	// marks the end of the queue when the writer is closed
+	private final static Buffered CLOSE = new Buffered(null, null);
+
+	private final Target target;
+
+	private final int maxBatch;
+
+	private final long maxDelayNanos;
+
+	private final int maxRetries;
+
+	private final long backoffMillis;
+
+	private final BlockingQueue<Buffered> queue;
+
+	private final Thread thread;
+
+	private final AtomicLong flushes = new AtomicLong();
+
+	private final AtomicLong flushNanos = new AtomicLong();
+
+	private final AtomicLong maxFlushNanos = new AtomicLong();
+
+	private final AtomicLong retries = new AtomicLong();
+
+	private final AtomicLong dropped = new AtomicLong();
+
+	private final ReadWriteLock closing = new ReentrantReadWriteLock();
+
+	private volatile boolean closed;
+
+	/**
+	 * @param target
+	 * @param maxBatch
+	 *            logEntries inserted by one bulk insert at most
+	 * @param maxDelayMillis
+	 *            how long a logEntry is buffered at most
+	 * @param capacity
+	 *            logEntries buffered at most, further appends wait for room
+	 * @param maxRetries
+	 *            retries of a failed bulk insert before its logEntries are
+	 *            dropped
+	 * @param backoffMillis
+	 *            wait before the first retry, doubled for every further one
+	 */
+	public MongoBulkWriter(Target target, int maxBatch, long maxDelayMillis, int capacity, int maxRetries,
+			long backoffMillis) {
+		this.target = target;
+		this.maxBatch = Math.max(1, maxBatch);
+		this.maxDelayNanos = TimeUnit.MILLISECONDS.toNanos(maxDelayMillis);
+		this.queue = new LinkedBlockingQueue<Buffered>(Math.max(this.maxBatch, capacity));
+		this.maxRetries = maxRetries;
+		this.backoffMillis = backoffMillis;
+		this.thread = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				writeLoop();
+			}
+		}, "logging-mongodb-writer");
+		this.thread.setDaemon(true);
+	}
+
+	/**
+	 * Start the writer thread
+	 */
+	public void start() {
+		thread.start();
+	}
+
+	/**
+	 * Buffer a logEntry, waiting for room when the buffer is full
+	 * 
+	 * @param entry
+	 * @param document
+	 *            the logEntry converted, with its _id set
+	 * @return false if the writer is closed and the caller has to insert the
+	 *         logEntry itself
+	 */
+	public boolean append(LogEntry entry, DBObject document) {
+		closing.readLock().lock();
+		try {
+			if (closed) {
+				return false;
+			}
+			queue.put(new Buffered(entry, document));
+			return true;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return false;
+		} finally {
+			closing.readLock().unlock();
+		}
+	}
+
+	/**
+	 * @return completes once every logEntry buffered so far has been
+	 *         inserted, or dropped after failing
+	 */
+	public CompletableFuture<Void> flush() {
+		Buffered marker = new Buffered(null, null);
+		closing.readLock().lock();
+		try {
+			if (closed) {
+				marker.done.complete(null);
+			} else {
+				queue.put(marker);
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			marker.done.complete(null);
+		} finally {
+			closing.readLock().unlock();
+		}
+		return marker.done;
+	}
+
+	/**
+	 * Insert what is buffered and stop the writer thread
+	 */
+	public void close() {
+		// appends and flushes in progress are queued ahead of the close
+		closing.writeLock().lock();
+		try {
+			if (closed) {
+				return;
+			}
+			closed = true;
+			queue.put(CLOSE);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return;
+		} finally {
+			closing.writeLock().unlock();
+		}
+		try {
+			thread.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	public Map<String, Object> getMetrics() {
+		long count = flushes.get();
+		Map<String, Object> metrics = new LinkedHashMap<String, Object>();
+		metrics.put("bufferedLogEntries", queue.size());
+		metrics.put("flushes", count);
+		metrics.put("averageFlushMillis", count == 0 ? 0.0 : flushNanos.get() / 1000000.0 / count);
+		metrics.put("maxFlushMillis", maxFlushNanos.get() / 1000000.0);
+		metrics.put("retries", retries.get());
+		metrics.put("droppedLogEntries", dropped.get());
+		return metrics;
+	}
+
+	private void writeLoop() {
+		List<Buffered> batch = new ArrayList<Buffered>();
+		List<Buffered> markers = new ArrayList<Buffered>();
+		boolean done = false;
+		try {
+			while (!done) {
+				Buffered first = queue.take();
+				long deadline = System.nanoTime() + maxDelayNanos;
+				Buffered next = first;
+				// fill the batch until it is full, the oldest logEntry is due,
+				// or a flush is asked for
+				while (true) {
+					if (null == next.entry) {
+						done = next == CLOSE;
+						markers.add(next);
+						break;
+					}
+					batch.add(next);
+					if (batch.size() >= maxBatch) {
+						break;
+					}
+					next = queue.poll();
+					if (null == next) {
+						long remaining = deadline - System.nanoTime();
+						if (remaining <= 0) {
+							break;
+						}
+						next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+						if (null == next) {
+							break;
+						}
+					}
+				}
+				write(batch);
+				batch.clear();
+				for (Buffered marker : markers) {
+					marker.done.complete(null);
+				}
+				markers.clear();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} finally {
+			// interrupted, insert what is left rather than losing it
+			Buffered buffered;
+			while (null != (buffered = queue.poll())) {
+				if (null != buffered.entry) {
+					batch.add(buffered);
+				} else {
+					markers.add(buffered);
+				}
+			}
+			write(batch);
+			for (Buffered marker : markers) {
+				marker.done.complete(null);
+			}
+		}
+	}
+
+	private void write(List<Buffered> batch) {
+		if (batch.isEmpty()) {
+			return;
+		}
+		long start = System.nanoTime();
+		List<DBObject> documents = new ArrayList<DBObject>(batch.size());
+		List<LogEntry> entries = new ArrayList<LogEntry>(batch.size());
+		for (Buffered buffered : batch) {
+			documents.add(buffered.document);
+			entries.add(buffered.entry);
+		}
+		long backoff = backoffMillis;
+		for (int attempt = 0;; attempt++) {
+			try {
+				target.insert(documents);
+				break;
+			} catch (BulkWriteException e) {
+				if (null == e.getWriteConcernError()) {
+					// rejected documents fail the same way when retried
+					int rejected = 0;
+					for (BulkWriteError error : e.getWriteErrors()) {
+						if (error.getCode() != DUPLICATE_KEY) {
+							rejected++;
+						}
+					}
+					if (rejected > 0) {
+						dropped.addAndGet(rejected);
+						logger.error("MongoDB rejected " + rejected + " of " + documents.size() + " logEntries: "
+								+ e.getMessage());
+					}
+					break;
+				}
+				if (!retry(attempt, backoff, documents.size(), e)) {
+					return;
+				}
+			} catch (MongoException e) {
+				if (!retry(attempt, backoff, documents.size(), e)) {
+					return;
+				}
+			} catch (RuntimeException e) {
+				dropped.addAndGet(documents.size());
+				logger.error("Error inserting " + documents.size() + " logEntries into MongoDB:", e);
+				return;
+			}
+			backoff *= 2;
+		}
+		long elapsed = System.nanoTime() - start;
+		flushes.incrementAndGet();
+		flushNanos.addAndGet(elapsed);
+		long max;
+		while (elapsed > (max = maxFlushNanos.get()) && !maxFlushNanos.compareAndSet(max, elapsed)) {
+		}
+		try {
+			target.inserted(entries);
+		} catch (RuntimeException e) {
+			logger.error("Error handling inserted logEntries:", e);
+		}
+	}
+
+	/**
+	 * @return false if the bulk insert is given up and its logEntries dropped
+	 */
+	private boolean retry(int attempt, long backoff, int size, MongoException e) {
+		if (attempt >= maxRetries) {
+			dropped.addAndGet(size);
+			logger.error("Error inserting " + size + " logEntries into MongoDB, dropped after " + attempt
+					+ " retries:", e);
+			return false;
+		}
+		retries.incrementAndGet();
+		logger.warn("Error inserting " + size + " logEntries into MongoDB, retrying in " + backoff + " ms: "
+				+ e.getMessage());
+		try {
+			Thread.sleep(backoff);
+		} catch (InterruptedException interrupted) {
+			// closing, try the remaining attempts without waiting
+			Thread.currentThread().interrupt();
+		}
+		return true;
+	}
+
+	private static class Buffered {
+
+		private final LogEntry entry;
+
+		private final DBObject document;
+
+		private final CompletableFuture<Void> done = new CompletableFuture<Void>();
+
+		Buffered(LogEntry entry, DBObject document) {
+			this.entry = entry;
+			this.document = document;
+		}
+
+	}
+
+}
@@ -20,31 +20,189 @@
 package org.edgexfoundry.support.logging.dao;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.regex.Pattern;
 
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.bson.types.ObjectId;
 import org.edgexfoundry.support.domain.logging.LogEntry;
 import org.edgexfoundry.support.domain.logging.MatchCriteria;
+import org.edgexfoundry.support.logging.service.MetricsProvider;
+import org.edgexfoundry.support.logging.service.QueryCache;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.slf4j.event.Level;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.QueryMapper;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.TextIndexDefinition;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentEntity;
 import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.data.mongodb.core.query.SerializationUtils;
+import org.springframework.data.mongodb.core.query.TextCriteria;
+import org.springframework.data.util.CloseableIterator;
 import org.springframework.stereotype.Component;
 
+import com.mongodb.BasicDBObject;
+import com.mongodb.BulkWriteOperation;
+import com.mongodb.DBCursor;
+import com.mongodb.DBObject;
+
 @Component("serviceDAO")
 @ConditionalOnProperty(name = { "logging.persistence" }, havingValue = "mongodb")
-public class MongoDBLogEntryDAO extends BaseLogEntryDAO {
+public class MongoDBLogEntryDAO extends BaseLogEntryDAO implements MetricsProvider {
 
 	private final static Logger logger = LoggerFactory.getLogger(MongoDBLogEntryDAO.class);
 
+	/**
+	 * How message keywords are matched.
+	 */
+	enum KeywordSearch {
+		/** text search when a text index on message exists, regex otherwise */
+		AUTO,
+		/** ensure a text index on message and match keywords as words */
+		TEXT,
+		/** match keywords as exact substrings, scanning every message */
+		REGEX
+	}
+
 	@Autowired
 	private MongoTemplate mongoTemplate;
 
+	@Value("${logging.persistence.mongodb.indexes:created;originService,created;logLevel,created;labels}")
+	private String indexes;
+
+	@Value("${logging.persistence.mongodb.explain:false}")
+	private boolean explain;
+
+	@Value("${logging.persistence.mongodb.keywords:auto}")
+	private String keywordSearch;
+
+	private boolean textSearch;
+
+	@Value("${logging.persistence.mongodb.writebehind.enabled:false}")
+	private boolean writeBehind;
+
+	@Value("${logging.persistence.mongodb.writebehind.batch:1000}")
+	private int writeBehindBatch;
+
+	// in milliseconds
+	@Value("${logging.persistence.mongodb.writebehind.delay:100}")
+	private long writeBehindDelay;
+
+	@Value("${logging.persistence.mongodb.writebehind.capacity:100000}")
+	private int writeBehindCapacity;
+
+	@Value("${logging.persistence.mongodb.writebehind.retries:5}")
+	private int writeBehindRetries;
+
+	// in milliseconds, doubled for every further retry
+	@Value("${logging.persistence.mongodb.writebehind.backoff:100}")
+	private long writeBehindBackoff;
+
+	@Autowired(required = false)
+	private QueryCache queryCache;
+
+	@Autowired
+	private MongoRetention retention;
+
+	private MongoBulkWriter writer;
+
+	@PostConstruct
+	private void init() {
+		ensureIndexes();
+		if (writeBehind) {
+			writer = new MongoBulkWriter(new MongoBulkWriter.Target() {
+				@Override
+				public void insert(List<DBObject> documents) {
+					BulkWriteOperation bulk = mongoTemplate
+							.getCollection(mongoTemplate.getCollectionName(LogEntry.class))
+							.initializeUnorderedBulkOperation();
+					for (DBObject document : documents) {
+						bulk.insert(document);
+					}
+					bulk.execute();
+				}
+
+				@Override
+				public void inserted(List<LogEntry> entries) {
+					// queries run before the flush may have cached results
+					// without these logEntries
+					if (null != queryCache) {
+						queryCache.invalidate(entries);
+					}
+				}
+			}, writeBehindBatch, writeBehindDelay, writeBehindCapacity, writeBehindRetries, writeBehindBackoff);
+			writer.start();
+		}
+	}
+
+	@PreDestroy
+	private void destroy() {
+		if (null != writer) {
+			writer.close();
+		}
+	}
+
+	/**
+	 * Ensure the configured indexes, so the created range and the
+	 * originService, logLevel and labels filters of MatchCriteria don't scan
+	 * the whole collection. Ensuring an existing index is a no-op.
+	 */
+	private void ensureIndexes() {
+		for (Index index : MongoIndexes.parse(indexes)) {
+			try {
+				mongoTemplate.indexOps(LogEntry.class).ensureIndex(index);
+				logger.info("ensured mongoDB index:{}", index.getIndexKeys());
+			} catch (DataAccessException e) {
+				// e.g. an index on the same keys with other options exists
+				logger.warn("unable to ensure mongoDB index:{}, {}", index.getIndexKeys(), e.getMessage());
+			}
+		}
+		if (retention.isEnabled()) {
+			// MongoDB removes the documents once their expireAt has passed
+			Index expiry = new Index(MongoRetention.EXPIRE_AT, Sort.Direction.ASC).expire(0);
+			try {
+				mongoTemplate.indexOps(LogEntry.class).ensureIndex(expiry);
+				logger.info("ensured mongoDB TTL index:{}", expiry.getIndexKeys());
+			} catch (DataAccessException e) {
+				logger.warn("unable to ensure mongoDB TTL index:{}, {}", expiry.getIndexKeys(), e.getMessage());
+			}
+		}
+		textSearch = false;
+		String message = MDC_ENUM_CONSTANTS.MESSAGE.getValue();
+		try {
+			switch (KeywordSearch.valueOf(keywordSearch.toUpperCase())) {
+			case TEXT:
+				mongoTemplate.indexOps(LogEntry.class)
+						.ensureIndex(new TextIndexDefinition.TextIndexDefinitionBuilder().onField(message).build());
+				textSearch = true;
+				break;
+			case AUTO:
+				textSearch = MongoIndexes.hasTextIndex(mongoTemplate.indexOps(LogEntry.class).getIndexInfo(),
+						message);
+				break;
+			default:
+				break;
+			}
+		} catch (DataAccessException e) {
+			// e.g. the collection has a text index on other fields
+			logger.warn("unable to use a mongoDB text index on {}, {}", message, e.getMessage());
+		}
+		logger.info("mongoDB message keywords matched by {}", textSearch ? "text search" : "substring regex");
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * 
@@ -56,11 +214,53 @@ public class MongoDBLogEntryDAO extends BaseLogEntryDAO {
 	public boolean save(LogEntry entry) {
 		boolean result = super.save(entry);
 		if (result) {// only save the logEntry into MongoDB when it's loggable
-			mongoTemplate.insert(entry);
+			insert(Collections.singletonList(entry));
+		}
+		return result;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * org.edgexfoundry.support.logging.dao.LogEntryDAO#saveAll(java.util.List)
+	 */
+	@Override
+	public List<LogEntry> saveAll(List<LogEntry> entries) {
+		List<LogEntry> result = super.saveAll(entries);
+		if (!result.isEmpty()) {// insert loggable logEntries with one bulk insert
+			insert(result);
 		}
 		return result;
 	}
 
+	/**
+	 * Hand the logEntries to the write-behind buffer, or insert them right
+	 * away when it is disabled or closed. Buffered logEntries become visible
+	 * to queries once flushed, within the write-behind delay.
+	 * 
+	 * @param entries
+	 */
+	private void insert(List<LogEntry> entries) {
+		List<LogEntry> remaining = entries;
+		if (null != writer) {
+			remaining = new ArrayList<LogEntry>();
+			for (LogEntry entry : entries) {
+				// the _id is set now so retried bulk inserts don't duplicate
+				BasicDBObject document = new BasicDBObject();
+				mongoTemplate.getConverter().write(entry, document);
+				document.put("_id", new ObjectId());
+				retention.stamp(entry, document);
+				if (!writer.append(entry, document)) {
+					remaining.add(entry);
+				}
+			}
+		}
+		if (!remaining.isEmpty()) {
+			mongoTemplate.insert(remaining, LogEntry.class);
+		}
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * 
@@ -75,10 +275,105 @@ public class MongoDBLogEntryDAO extends BaseLogEntryDAO {
 		if (null != mongoCriteria) {
 			query.addCriteria(mongoCriteria);
 		}
+		addTextCriteria(query, criteria);
+		explain(query);
 		List<LogEntry> result = mongoTemplate.find(query, LogEntry.class);
 		return result;
 	}
 
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.edgexfoundry.support.logging.dao.LogEntryDAO#findByCriteria(org.
+	 * edgexfoundry.support.domain.logging.MatchCriteria, int,
+	 * org.springframework.data.domain.Sort.Direction)
+	 */
+	@Override
+	public List<LogEntry> findByCriteria(MatchCriteria criteria, int limit, Sort.Direction direction) {
+		Query query = new Query();
+		query.limit(limit);
+		// with the limit, the server only keeps the top limit documents while
+		// sorting, or walks an index on created in that direction
+		query.with(new Sort(direction, MDC_ENUM_CONSTANTS.CREATED.getValue()));
+		Criteria mongoCriteria = toCriteria(criteria);
+		if (null != mongoCriteria) {
+			query.addCriteria(mongoCriteria);
+		}
+		addTextCriteria(query, criteria);
+		explain(query);
+		return mongoTemplate.find(query, LogEntry.class);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * org.edgexfoundry.support.logging.dao.LogEntryDAO#findPageByCriteria(org.
+	 * edgexfoundry.support.domain.logging.MatchCriteria, int, java.lang.String)
+	 */
+	@Override
+	public LogEntryPage findPageByCriteria(MatchCriteria criteria, int limit, String cursor) {
+		PageCursor after = PageCursor.decode(cursor);
+		if (limit <= 0) {
+			return new LogEntryPage(new ArrayList<LogEntry>(), null);
+		}
+		// the ObjectId breaks ties between logEntries created in the same
+		// millisecond, the query resumes right after the last one returned
+		String created = MDC_ENUM_CONSTANTS.CREATED.getValue();
+		Query query = new Query();
+		query.limit(limit);
+		query.with(new Sort(Sort.Direction.ASC, created, "_id"));
+		Criteria mongoCriteria = toCriteria(criteria);
+		if (null != after) {
+			if (!ObjectId.isValid(after.getSequence())) {
+				throw new IllegalArgumentException("Invalid cursor");
+			}
+			Criteria afterCriteria = new Criteria().orOperator(Criteria.where(created).gt(after.getCreated()),
+					Criteria.where(created).is(after.getCreated()).and("_id")
+							.gt(new ObjectId(after.getSequence())));
+			mongoCriteria = null == mongoCriteria ? afterCriteria
+					: new Criteria().andOperator(mongoCriteria, afterCriteria);
+		}
+		if (null != mongoCriteria) {
+			query.addCriteria(mongoCriteria);
+		}
+		addTextCriteria(query, criteria);
+		explain(query);
+		// read the raw documents, the _id isn't part of LogEntry
+		List<BasicDBObject> documents = mongoTemplate.find(query, BasicDBObject.class,
+				mongoTemplate.getCollectionName(LogEntry.class));
+		List<LogEntry> result = new ArrayList<LogEntry>(documents.size());
+		for (BasicDBObject document : documents) {
+			result.add(mongoTemplate.getConverter().read(LogEntry.class, document));
+		}
+		String next = null;
+		if (documents.size() == limit) {
+			BasicDBObject last = documents.get(documents.size() - 1);
+			next = new PageCursor(last.getLong(created), last.getObjectId("_id").toHexString()).encode();
+		}
+		return new LogEntryPage(result, next);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * org.edgexfoundry.support.logging.dao.LogEntryDAO#streamByCriteria(org.
+	 * edgexfoundry.support.domain.logging.MatchCriteria)
+	 */
+	@Override
+	public CloseableIterator<LogEntry> streamByCriteria(MatchCriteria criteria) {
+		Query query = new Query();
+		Criteria mongoCriteria = toCriteria(criteria);
+		if (null != mongoCriteria) {
+			query.addCriteria(mongoCriteria);
+		}
+		addTextCriteria(query, criteria);
+		explain(query);
+		// documents are fetched batch by batch through a server side cursor
+		return mongoTemplate.stream(query, LogEntry.class);
+	}
+
 	/**
 	 * Convert MatchCriteria into a MongoDB Query Criteria Ideally, a
 	 * MatchCriteria could be converted to a criteria that represents a mongodb
@@ -88,8 +383,11 @@ public class MongoDBLogEntryDAO extends BaseLogEntryDAO {
 	 * { "created" : { "$lte" : 1477468656189}} ] , "logLevel" : { "$in" : [
 	 * "WARN" , "INFO"]} , "originService" : { "$in" : [ "testService" ,
 	 * "service1"]} , "labels" : { "$in" : [ "15" , "l8", "l6"]} , "$or" : [ {
-	 * "message" : { "$regex" : ".*edgex.*"}} , { "message" : { "$regex" :
-	 * ".*edgexfoundry.*"}} ] } )
+	 * "message" : { "$regex" : "\\Qedgex\\E"}} , { "message" : { "$regex" :
+	 * "\\Qedgexfoundry\\E"}} ] } )
+	 * 
+	 * The message keywords are left to a $text search when the text index on
+	 * message is used.
 	 * 
 	 * @param criteria
 	 * @return MongoDB Query Criteria
@@ -123,13 +421,14 @@ public class MongoDBLogEntryDAO extends BaseLogEntryDAO {
 				result = result.and(MDC_ENUM_CONSTANTS.LABELS.getValue()).in((Object[]) targetLabels);
 			}
 			String[] targetKeywords = criteria.getMessageKeywords();
-			if (null != targetKeywords && targetKeywords.length > 0) {
+			if (!textSearch && null != targetKeywords && targetKeywords.length > 0) {
 				// add criteria where message must contain at least one elements
-				// of targetKeywords
+				// of targetKeywords, taken literally rather than as regex
+				// syntax; an unanchored regex already matches anywhere
 				List<Criteria> keywordList = new ArrayList<Criteria>();
 				for (String keyword : targetKeywords) {
 					keywordList.add(new Criteria(MDC_ENUM_CONSTANTS.MESSAGE.getValue())
-							.regex(Pattern.compile(".*" + keyword + ".*")));
+							.regex(Pattern.compile(Pattern.quote(keyword))));
 				}
 				result = result.orOperator(keywordList.toArray(new Criteria[0]));
 			}
@@ -139,6 +438,25 @@ public class MongoDBLogEntryDAO extends BaseLogEntryDAO {
 		return result;
 	}
 
+	/**
+	 * Add the message keywords of the MatchCriteria as a $text search when
+	 * the text index on message is used. Text search matches any of the
+	 * keywords as whole, stemmed and case insensitive words through the
+	 * index, unlike the substring regex which has to scan every message.
+	 * 
+	 * @param query
+	 * @param criteria
+	 */
+	private void addTextCriteria(Query query, MatchCriteria criteria) {
+		if (!textSearch || null == criteria || (criteria.getStart() <= 0 && criteria.getEnd() <= 0)) {
+			return;
+		}
+		String[] targetKeywords = criteria.getMessageKeywords();
+		if (null != targetKeywords && targetKeywords.length > 0) {
+			query.addCriteria(TextCriteria.forDefaultLanguage().matchingAny(targetKeywords));
+		}
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * 
@@ -148,13 +466,56 @@ public class MongoDBLogEntryDAO extends BaseLogEntryDAO {
 	 */
 	@Override
 	public List<LogEntry> removeByCriteria(MatchCriteria criteria) {
+		if (null != writer) {// buffered logEntries are removed as well
+			writer.flush().join();
+		}
 		Query query = new Query();
 		Criteria mongoCriteria = toCriteria(criteria);
 		if (null != mongoCriteria) {
 			query.addCriteria(mongoCriteria);
 		}
+		addTextCriteria(query, criteria);
+		explain(query);
 		List<LogEntry> result = mongoTemplate.findAllAndRemove(query, LogEntry.class);
 		return result;
 	}
 
+	/**
+	 * Log the index the query is answered with when explaining is enabled.
+	 * Explaining runs the query planner on the server once more, so it is
+	 * meant for checking the indexes rather than for production.
+	 * 
+	 * @param query
+	 */
+	private void explain(Query query) {
+		if (!explain) {
+			return;
+		}
+		try {
+			MongoPersistentEntity<?> entity = mongoTemplate.getConverter().getMappingContext()
+					.getPersistentEntity(LogEntry.class);
+			QueryMapper mapper = new QueryMapper(mongoTemplate.getConverter());
+			DBCursor cursor = mongoTemplate.getCollection(mongoTemplate.getCollectionName(LogEntry.class))
+					.find(mapper.getMappedObject(query.getQueryObject(), entity))
+					.sort(mapper.getMappedSort(query.getSortObject(), entity)).limit(query.getLimit());
+			DBObject plan = cursor.explain();
+			logger.info("mongoDB query used index:{}", MongoIndexes.usedIndex(plan));
+		} catch (RuntimeException e) {
+			logger.warn("unable to explain mongoDB query:{}", e.getMessage());
+		}
+	}
+
+	@Override
+	public String getMetricsName() {
+		return "mongoWriteBehind";
+	}
+
+	@Override
+	public Map<String, Object> getMetrics() {
+		if (null == writer) {
+			return new LinkedHashMap<String, Object>();
+		}
+		return writer.getMetrics();
+	}
+
 }
@@ -0,0 +1,135 @@
+/*******************************************************************************
+ * Copyright 2016-2017 Dell Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * @microservice:  support-logging
+ * @author: Jude Hung, Dell
+ * @version: 1.0.0
+ *******************************************************************************/
+package org.edgexfoundry.support.logging.dao;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.IndexField;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+
+import com.mongodb.DBObject;
+
+/**
+ * Reads the MongoDB indexes to provision from their configuration, and which
+ * index a query used from its explain output.
+ * 
+ * Indexes are separated by semicolons and the fields of a compound index by
+ * commas, e.g. "created;originService,created;logLevel,created;labels". An
+ * index on an array field such as labels is multikey.
+ */
+class MongoIndexes {
+
+	static final String COLLECTION_SCAN = "COLLSCAN";
+
+	private MongoIndexes() {
+	}
+
+	/**
+	 * @param indexes
+	 *            the configured indexes, null or blank for none
+	 * @return one ascending index per configured entry
+	 */
+	static List<Index> parse(String indexes) {
+		List<Index> result = new ArrayList<Index>();
+		if (null == indexes) {
+			return result;
+		}
+		for (String keys : indexes.split(";")) {
+			Index index = null;
+			for (String key : keys.split(",")) {
+				key = key.trim();
+				if (key.isEmpty()) {
+					continue;
+				}
+				index = null == index ? new Index(key, Sort.Direction.ASC) : index.on(key, Sort.Direction.ASC);
+			}
+			if (null != index) {
+				result.add(index);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * @param indexes
+	 *            the indexes of a collection
+	 * @param field
+	 * @return whether the text index of the collection covers the field
+	 */
+	static boolean hasTextIndex(List<IndexInfo> indexes, String field) {
+		for (IndexInfo index : indexes) {
+			for (IndexField indexField : index.getIndexFields()) {
+				if (indexField.isText() && field.equals(indexField.getKey())) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * @param explain
+	 *            the output of explaining a query
+	 * @return the name of the index the winning plan walks, COLLSCAN when it
+	 *         scans the collection, or null if the output has no plan
+	 */
+	static String usedIndex(DBObject explain) {
+		if (null == explain) {
+			return null;
+		}
+		Object planner = explain.get("queryPlanner");
+		if (!(planner instanceof DBObject)) {
+			return null;
+		}
+		Object plan = ((DBObject) planner).get("winningPlan");
+		return plan instanceof DBObject ? stageIndex((DBObject) plan) : null;
+	}
+
+	private static String stageIndex(DBObject stage) {
+		Object name = stage.get("indexName");
+		if (null != name) {
+			return name.toString();
+		}
+		if (COLLECTION_SCAN.equals(stage.get("stage"))) {
+			return COLLECTION_SCAN;
+		}
+		Object input = stage.get("inputStage");
+		if (input instanceof DBObject) {
+			return stageIndex((DBObject) input);
+		}
+		// an $or is answered by several index scans
+		Object inputs = stage.get("inputStages");
+		if (inputs instanceof List) {
+			StringBuilder names = new StringBuilder();
+			for (Object each : (List<?>) inputs) {
+				String used = each instanceof DBObject ? stageIndex((DBObject) each) : null;
+				if (null != used) {
+					names.append(names.length() > 0 ? "," : "").append(used);
+				}
+			}
+			return names.length() > 0 ? names.toString() : null;
+		}
+		return null;
+	}
+
+}
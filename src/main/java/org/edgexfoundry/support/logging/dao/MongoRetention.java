@@ -0,0 +1,158 @@
+/*******************************************************************************
+ * Copyright 2016-2017 Dell Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * @microservice:  support-logging
+ * @author: Jude Hung, Dell
+ * @version: 1.0.0
+ *******************************************************************************/
+package org.edgexfoundry.support.logging.dao;
+
+import java.util.Date;
+import java.util.EnumMap;
+import java.util.Map;
+
+import javax.annotation.PostConstruct;
+
+import org.edgexfoundry.support.domain.logging.LogEntry;
+import org.slf4j.event.Level;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.mongodb.core.mapping.event.AbstractMongoEventListener;
+import org.springframework.data.mongodb.core.mapping.event.BeforeSaveEvent;
+import org.springframework.stereotype.Component;
+
+import com.mongodb.DBObject;
+
+/**
+ * Retention of the MongoDB persistence: every logEntry document is written
+ * with an expireAt date, its created plus the retention of its logLevel, and
+ * a TTL index on expireAt lets MongoDB remove the expired documents in the
+ * background.
+ * 
+ * Per logLevel retentions are given as "LEVEL:milliseconds" pairs separated
+ * by commas, e.g. "DEBUG:86400000,TRACE:3600000"; other logLevels keep the
+ * default retention. A retention of 0 keeps the logEntries until they are
+ * removed. As the date is fixed when a logEntry is written, a changed
+ * retention only applies to logEntries written afterwards.
+ */
+@Component
+@ConditionalOnProperty(name = { "logging.persistence" }, havingValue = "mongodb")
+public class MongoRetention extends AbstractMongoEventListener<LogEntry> implements LogEntryRetention {
+
+	static final String EXPIRE_AT = "expireAt";
+
+	// in milliseconds
+	@Value("${logging.persistence.mongodb.retention:0}")
+	private long retention;
+
+	@Value("${logging.persistence.mongodb.retention.levels:}")
+	private String levels;
+
+	private final Map<Level, Long> retentions = new EnumMap<Level, Long>(Level.class);
+
+	private boolean enabled;
+
+	public MongoRetention() {
+	}
+
+	MongoRetention(long retention, String levels) {
+		this.retention = retention;
+		this.levels = levels;
+		init();
+	}
+
+	/**
+	 * @throws IllegalArgumentException
+	 *             if the per logLevel retentions can't be parsed
+	 */
+	@PostConstruct
+	public void init() {
+		for (Level level : Level.values()) {
+			retentions.put(level, retention);
+		}
+		if (null != levels) {
+			for (String pair : levels.split(",")) {
+				if (pair.trim().isEmpty()) {
+					continue;
+				}
+				String[] parts = pair.split(":");
+				if (parts.length != 2) {
+					throw new IllegalArgumentException("Invalid logLevel retention: " + pair);
+				}
+				retentions.put(Level.valueOf(parts[0].trim().toUpperCase()), Long.parseLong(parts[1].trim()));
+			}
+		}
+		enabled = false;
+		for (long each : retentions.values()) {
+			enabled |= each > 0;
+		}
+	}
+
+	/**
+	 * @return whether any logEntry expires, and the TTL index is needed
+	 */
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * org.edgexfoundry.support.logging.dao.LogEntryRetention#getRetention(org.
+	 * slf4j.event.Level)
+	 */
+	@Override
+	public long getRetention(Level logLevel) {
+		Long retention = null == logLevel ? null : retentions.get(logLevel);
+		return null == retention || retention <= 0 ? 0L : retention;
+	}
+
+	/**
+	 * @param entry
+	 * @return when the logEntry expires, null if it is kept
+	 */
+	public Date expireAt(LogEntry entry) {
+		long retention = getRetention(entry.getLogLevel());
+		if (retention <= 0) {
+			return null;
+		}
+		// a logEntry without created is taken as created now
+		long created = entry.getCreated() > 0 ? entry.getCreated() : System.currentTimeMillis();
+		return new Date(created + retention);
+	}
+
+	/**
+	 * Add the expireAt date of the logEntry to its document
+	 * 
+	 * @param entry
+	 * @param document
+	 */
+	public void stamp(LogEntry entry, DBObject document) {
+		Date expireAt = expireAt(entry);
+		if (null != expireAt) {
+			document.put(EXPIRE_AT, expireAt);
+		}
+	}
+
+	/**
+	 * Stamp the logEntries inserted through the MongoTemplate
+	 */
+	@Override
+	public void onBeforeSave(BeforeSaveEvent<LogEntry> event) {
+		stamp(event.getSource(), event.getDBObject());
+	}
+
+}
@@ -0,0 +1,92 @@
+/*******************************************************************************
+ * Copyright 2016-2017 Dell Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * @microservice:  support-logging
+ * @author: Jude Hung, Dell
+ * @version: 1.0.0
+ *******************************************************************************/
+package org.edgexfoundry.support.logging.dao;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Opaque continuation token of a page of logEntries: the created and the
+ * backend specific sequence of the last logEntry returned, from which the
+ * next page resumes. Pages are ordered by created then sequence, so
+ * logEntries created within the same millisecond are never skipped or
+ * returned twice.
+ */
+class PageCursor {
+
+	private final long created;
+
+	private final String sequence;
+
+	PageCursor(long created, String sequence) {
+		this.created = created;
+		this.sequence = sequence;
+	}
+
+	long getCreated() {
+		return created;
+	}
+
+	String getSequence() {
+		return sequence;
+	}
+
+	/**
+	 * @return the sequence of a backend using numeric sequences
+	 * @throws IllegalArgumentException
+	 *             if the sequence isn't numeric
+	 */
+	long getNumericSequence() {
+		try {
+			return Long.parseLong(sequence);
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException("Invalid cursor", e);
+		}
+	}
+
+	String encode() {
+		return Base64.getUrlEncoder().withoutPadding()
+				.encodeToString((created + ":" + sequence).getBytes(StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * @param token - cursor of the previous page, null or empty for the first
+	 *            page
+	 * @return the decoded cursor, null for the first page
+	 * @throws IllegalArgumentException
+	 *             if the token isn't a valid cursor
+	 */
+	static PageCursor decode(String token) {
+		if (null == token || token.isEmpty()) {
+			return null;
+		}
+		String decoded = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+		int separator = decoded.indexOf(':');
+		if (separator <= 0 || separator == decoded.length() - 1) {
+			throw new IllegalArgumentException("Invalid cursor");
+		}
+		try {
+			return new PageCursor(Long.parseLong(decoded.substring(0, separator)), decoded.substring(separator + 1));
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException("Invalid cursor", e);
+		}
+	}
+
+}
@@ -0,0 +1,98 @@
+/*******************************************************************************
+ * Copyright 2016-2017 Dell Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * @microservice:  support-logging
+ * @author: Jude Hung, Dell
+ * @version: 1.0.0
+ *******************************************************************************/
+package org.edgexfoundry.support.logging.dao;
+
+import org.edgexfoundry.support.domain.logging.LogEntry;
+
+/**
+ * A logEntry standing for several identical ones (same originService,
+ * logLevel, labels and message) received within the coalescing window.
+ * created is the time of the first of them.
+ */
+public class RepeatedLogEntry extends LogEntry {
+
+	private int repeatCount;
+
+	private long lastCreated;
+
+	public RepeatedLogEntry() {
+	}
+
+	public RepeatedLogEntry(LogEntry first) {
+		setLogLevel(first.getLogLevel());
+		setLabels(first.getLabels());
+		setOriginService(first.getOriginService());
+		setMessage(first.getMessage());
+		setCreated(first.getCreated());
+		this.repeatCount = 1;
+		this.lastCreated = first.getCreated();
+	}
+
+	/**
+	 * Account for one more identical logEntry
+	 * 
+	 * @param created - time the identical logEntry was received
+	 */
+	public void repeat(long created) {
+		repeatCount++;
+		if (created > lastCreated) {
+			lastCreated = created;
+		}
+	}
+
+	/**
+	 * @return number of identical logEntries this logEntry stands for
+	 */
+	public int getRepeatCount() {
+		return repeatCount;
+	}
+
+	public void setRepeatCount(int repeatCount) {
+		this.repeatCount = repeatCount;
+	}
+
+	/**
+	 * @return time of the first identical logEntry, same as created
+	 */
+	public long getFirstCreated() {
+		return getCreated();
+	}
+
+	/**
+	 * @return time of the last identical logEntry
+	 */
+	public long getLastCreated() {
+		return lastCreated;
+	}
+
+	public void setLastCreated(long lastCreated) {
+		this.lastCreated = lastCreated;
+	}
+
+	/**
+	 * @return the line of this logEntry in the log file, where the repeat
+	 *         count and last created follow created
+	 */
+	@Override
+	public String toString() {
+		return new LogEntryEncoder().encodeLine(this);
+	}
+
+}
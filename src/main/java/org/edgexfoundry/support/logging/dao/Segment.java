@@ -0,0 +1,446 @@
+/*******************************************************************************
+ * Copyright 2016-2017 Dell Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * @microservice:  support-logging
+ * @author: Jude Hung, Dell
+ * @version: 1.0.0
+ *******************************************************************************/
+package org.edgexfoundry.support.logging.dao;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+import org.edgexfoundry.support.domain.logging.LogEntry;
+import org.slf4j.event.Level;
+
+/**
+ * One fixed-size, memory-mapped, append-only segment file of the segment
+ * store. Records are laid out back to back:
+ * 
+ * <pre>
+ * int   record length (including this field), 0 past the last record
+ * byte  flags (1 = removed, 2 = repeated)
+ * byte  logLevel ordinal
+ * long  created
+ * short originService length (-1 = null), UTF-8 bytes
+ * short labels count (-1 = null), per label: short length (-1 = null), UTF-8 bytes
+ * int   message length (-1 = null), UTF-8 bytes
+ * int   repeat count, long last created (only if repeated)
+ * </pre>
+ * 
+ * Appends are serialized by the caller; queries read the mapped buffer
+ * concurrently up to the published write position and only decode the
+ * records that match.
+ */
+class Segment {
+
+	static final byte REMOVED = 1;
+
+	static final byte REPEATED = 2;
+
+	private static final Level[] LEVELS = Level.values();
+
+	/**
+	 * A record found for a page, with its position in the page order
+	 */
+	static final class Match {
+
+		final long created;
+
+		final long sequence;
+
+		final LogEntry entry;
+
+		Match(long created, long sequence, LogEntry entry) {
+			this.created = created;
+			this.sequence = sequence;
+			this.entry = entry;
+		}
+
+	}
+
+	// page order, by created then sequence
+	static final Comparator<Match> PAGE_ORDER = new Comparator<Match>() {
+		@Override
+		public int compare(Match a, Match b) {
+			int result = Long.compare(a.created, b.created);
+			return result != 0 ? result : Long.compare(a.sequence, b.sequence);
+		}
+	};
+
+	private static final int FIXED_LENGTH = 4 + 1 + 1 + 8 + 2 + 2 + 4;
+
+	private final File file;
+
+	private final MappedByteBuffer buffer;
+
+	private volatile int writePosition;
+
+	private volatile long minCreated = Long.MAX_VALUE;
+
+	private volatile long maxCreated = Long.MIN_VALUE;
+
+	private Segment(File file, MappedByteBuffer buffer) {
+		this.file = file;
+		this.buffer = buffer;
+	}
+
+	/**
+	 * Create and map a new empty segment file
+	 */
+	static Segment create(File file, int size) throws IOException {
+		RandomAccessFile raf = new RandomAccessFile(file, "rw");
+		try {
+			raf.setLength(size);
+			// the mapping stays valid once the channel is closed
+			return new Segment(file, raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size));
+		} finally {
+			raf.close();
+		}
+	}
+
+	/**
+	 * Map an existing segment file and recover its write position
+	 */
+	static Segment open(File file) throws IOException {
+		RandomAccessFile raf = new RandomAccessFile(file, "rw");
+		Segment segment;
+		try {
+			segment = new Segment(file, raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, raf.length()));
+		} finally {
+			raf.close();
+		}
+		segment.recover();
+		return segment;
+	}
+
+	File getFile() {
+		return file;
+	}
+
+	long getMinCreated() {
+		return minCreated;
+	}
+
+	long getMaxCreated() {
+		return maxCreated;
+	}
+
+	boolean isEmpty() {
+		return writePosition == 0;
+	}
+
+	/**
+	 * Append one record, caller must serialize appends
+	 * 
+	 * @param entry
+	 * @return false if the record doesn't fit into the remaining space
+	 * @throws IllegalArgumentException
+	 *             if originService or a label exceeds the short length field
+	 */
+	boolean append(LogEntry entry) {
+		byte[] originService = shortBytes(entry.getOriginService());
+		String[] labels = entry.getLabels();
+		byte[][] labelBytes = null;
+		int length = FIXED_LENGTH + (null == originService ? 0 : originService.length);
+		if (null != labels) {
+			if (labels.length > Short.MAX_VALUE) {
+				throw new IllegalArgumentException("More than " + Short.MAX_VALUE + " labels");
+			}
+			labelBytes = new byte[labels.length][];
+			for (int i = 0; i < labels.length; i++) {
+				labelBytes[i] = shortBytes(labels[i]);
+				length += 2 + (null == labelBytes[i] ? 0 : labelBytes[i].length);
+			}
+		}
+		byte[] message = bytes(entry.getMessage());
+		length += null == message ? 0 : message.length;
+		boolean repeated = entry instanceof RepeatedLogEntry;
+		if (repeated) {
+			length += 4 + 8;
+		}
+		int position = writePosition;
+		// keep room for the terminating zero length of a full segment
+		if (position + length + 4 > buffer.capacity()) {
+			return false;
+		}
+		ByteBuffer out = buffer.duplicate();
+		out.position(position + 4);
+		out.put(repeated ? REPEATED : 0);
+		out.put((byte) entry.getLogLevel().ordinal());
+		out.putLong(entry.getCreated());
+		putShortBytes(out, originService);
+		if (null == labelBytes) {
+			out.putShort((short) -1);
+		} else {
+			out.putShort((short) labelBytes.length);
+			for (byte[] label : labelBytes) {
+				putShortBytes(out, label);
+			}
+		}
+		if (null == message) {
+			out.putInt(-1);
+		} else {
+			out.putInt(message.length);
+			out.put(message);
+		}
+		if (repeated) {
+			out.putInt(((RepeatedLogEntry) entry).getRepeatCount());
+			out.putLong(((RepeatedLogEntry) entry).getLastCreated());
+		}
+		// the length goes in last, a torn record reads as the end of data
+		buffer.putInt(position, length);
+		if (entry.getCreated() < minCreated)
+			minCreated = entry.getCreated();
+		if (entry.getCreated() > maxCreated)
+			maxCreated = entry.getCreated();
+		writePosition = position + length;
+		return true;
+	}
+
+	/**
+	 * Collect the records matching the criteria in append order
+	 * 
+	 * @param criteria
+	 * @param limit - maximum number of records to collect, negative for all
+	 * @param result - receives the matching records
+	 * @param remove - mark the matching records as removed
+	 * @return number of records collected
+	 */
+	int find(SegmentCriteria criteria, int limit, List<LogEntry> result, boolean remove) {
+		if (!criteria.overlaps(minCreated, maxCreated)) {
+			return 0;
+		}
+		ByteBuffer in = buffer.duplicate();
+		int end = writePosition;
+		int position = 0;
+		int found = 0;
+		while (position < end && (limit < 0 || found < limit)) {
+			int length = in.getInt(position);
+			byte flags = in.get(position + 4);
+			if ((flags & REMOVED) == 0 && criteria.matches(in, position)) {
+				result.add(decode(in, position));
+				if (remove) {
+					in.put(position + 4, (byte) (flags | REMOVED));
+				}
+				found++;
+			}
+			position += length;
+		}
+		return found;
+	}
+
+	/**
+	 * @param criteria
+	 * @param after - position of the previous record, negative to start at
+	 *            the first one
+	 * @return position of the next live record matching the criteria, -1 if
+	 *         there is none
+	 */
+	int next(SegmentCriteria criteria, int after) {
+		if (!criteria.overlaps(minCreated, maxCreated)) {
+			return -1;
+		}
+		int end = writePosition;
+		int position = after < 0 ? 0 : after + buffer.getInt(after);
+		while (position < end) {
+			if ((buffer.get(position + 4) & REMOVED) == 0 && criteria.matches(buffer, position)) {
+				return position;
+			}
+			position += buffer.getInt(position);
+		}
+		return -1;
+	}
+
+	/**
+	 * @return the record at position
+	 */
+	LogEntry read(int position) {
+		return decode(buffer, position);
+	}
+
+	/**
+	 * Keep in page the first limit records matching the criteria that come
+	 * after the given position in page order. The sequence of a record is the
+	 * segment number in the high and its position in the low 32 bits.
+	 * 
+	 * @param criteria
+	 * @param number - number of this segment
+	 * @param afterCreated, afterSequence - position of the last record of the
+	 *            previous page, a negative sequence for the first page
+	 * @param limit - size of the page
+	 * @param page - heap of the records kept so far, largest in page order
+	 *            first
+	 */
+	void findPage(SegmentCriteria criteria, long number, long afterCreated, long afterSequence, int limit,
+			PriorityQueue<Match> page) {
+		if (!criteria.overlaps(minCreated, maxCreated) || maxCreated < afterCreated) {
+			return;
+		}
+		ByteBuffer in = buffer.duplicate();
+		int end = writePosition;
+		int position = 0;
+		while (position < end) {
+			int length = in.getInt(position);
+			byte flags = in.get(position + 4);
+			long created = in.getLong(position + 6);
+			long sequence = (number << 32) | position;
+			if ((flags & REMOVED) == 0
+					&& (created > afterCreated || (created == afterCreated && sequence > afterSequence))
+					&& criteria.matches(in, position)) {
+				Match largest = page.peek();
+				if (page.size() < limit) {
+					page.add(new Match(created, sequence, decode(in, position)));
+				} else if (created < largest.created || (created == largest.created && sequence < largest.sequence)) {
+					page.poll();
+					page.add(new Match(created, sequence, decode(in, position)));
+				}
+			}
+			position += length;
+		}
+	}
+
+	/**
+	 * Keep in latest the limit records matching the criteria that come last
+	 * in page order
+	 * 
+	 * @param criteria
+	 * @param number - number of this segment
+	 * @param limit - number of records to keep
+	 * @param latest - heap of the records kept so far, smallest in page order
+	 *            first
+	 */
+	void findLatest(SegmentCriteria criteria, long number, int limit, PriorityQueue<Match> latest) {
+		if (!criteria.overlaps(minCreated, maxCreated)
+				|| (latest.size() == limit && maxCreated < latest.peek().created)) {
+			return;
+		}
+		ByteBuffer in = buffer.duplicate();
+		int end = writePosition;
+		int position = 0;
+		while (position < end) {
+			int length = in.getInt(position);
+			byte flags = in.get(position + 4);
+			long created = in.getLong(position + 6);
+			long sequence = (number << 32) | position;
+			if ((flags & REMOVED) == 0 && criteria.matches(in, position)) {
+				Match smallest = latest.peek();
+				if (latest.size() < limit) {
+					latest.add(new Match(created, sequence, decode(in, position)));
+				} else if (created > smallest.created || (created == smallest.created && sequence > smallest.sequence)) {
+					latest.poll();
+					latest.add(new Match(created, sequence, decode(in, position)));
+				}
+			}
+			position += length;
+		}
+	}
+
+	/**
+	 * Force the written records to the storage device
+	 */
+	void force() {
+		buffer.force();
+	}
+
+	private void recover() {
+		int capacity = buffer.capacity();
+		int position = 0;
+		while (position + 4 <= capacity) {
+			int length = buffer.getInt(position);
+			if (length < FIXED_LENGTH || position + length > capacity) {
+				break;
+			}
+			long created = buffer.getLong(position + 6);
+			if (created < minCreated)
+				minCreated = created;
+			if (created > maxCreated)
+				maxCreated = created;
+			position += length;
+		}
+		writePosition = position;
+	}
+
+	static LogEntry decode(ByteBuffer in, int position) {
+		boolean repeated = (in.get(position + 4) & REPEATED) != 0;
+		LogEntry entry = repeated ? new RepeatedLogEntry() : new LogEntry();
+		entry.setLogLevel(LEVELS[in.get(position + 5)]);
+		entry.setCreated(in.getLong(position + 6));
+		int offset = position + 14;
+		int length = in.getShort(offset);
+		entry.setOriginService(string(in, offset + 2, length));
+		offset += 2 + Math.max(length, 0);
+		int count = in.getShort(offset);
+		offset += 2;
+		if (count >= 0) {
+			String[] labels = new String[count];
+			for (int i = 0; i < count; i++) {
+				length = in.getShort(offset);
+				labels[i] = string(in, offset + 2, length);
+				offset += 2 + Math.max(length, 0);
+			}
+			entry.setLabels(labels);
+		}
+		length = in.getInt(offset);
+		entry.setMessage(string(in, offset + 4, length));
+		if (repeated) {
+			offset += 4 + Math.max(length, 0);
+			((RepeatedLogEntry) entry).setRepeatCount(in.getInt(offset));
+			((RepeatedLogEntry) entry).setLastCreated(in.getLong(offset + 4));
+		}
+		return entry;
+	}
+
+	private static String string(ByteBuffer in, int offset, int length) {
+		if (length < 0) {
+			return null;
+		}
+		byte[] bytes = new byte[length];
+		for (int i = 0; i < length; i++) {
+			bytes[i] = in.get(offset + i);
+		}
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	private static byte[] shortBytes(String value) {
+		byte[] bytes = bytes(value);
+		if (null != bytes && bytes.length > Short.MAX_VALUE) {
+			throw new IllegalArgumentException("Field longer than " + Short.MAX_VALUE + " bytes");
+		}
+		return bytes;
+	}
+
+	private static void putShortBytes(ByteBuffer out, byte[] bytes) {
+		if (null == bytes) {
+			out.putShort((short) -1);
+		} else {
+			out.putShort((short) bytes.length);
+			out.put(bytes);
+		}
+	}
+
+	private static byte[] bytes(String value) {
+		return null == value ? null : value.getBytes(StandardCharsets.UTF_8);
+	}
+
+}
@@ -0,0 +1,163 @@
+/*******************************************************************************
+ * Copyright 2016-2017 Dell Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * @microservice:  support-logging
+ * @author: Jude Hung, Dell
+ * @version: 1.0.0
+ *******************************************************************************/
+package org.edgexfoundry.support.logging.dao;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import org.edgexfoundry.support.domain.logging.MatchCriteria;
+import org.slf4j.event.Level;
+
+/**
+ * MatchCriteria compiled once per query into UTF-8 bytes, so Segment records
+ * can be matched in place in the mapped buffer and only matching records are
+ * decoded into logEntries.
+ */
+class SegmentCriteria {
+
+	private final long start;
+
+	private final long end;
+
+	// bit per Level ordinal, all set when no logLevel is requested
+	private final int levelMask;
+
+	private final byte[][] originServices;
+
+	private final byte[][] labels;
+
+	private final byte[][] keywords;
+
+	SegmentCriteria(MatchCriteria criteria) {
+		start = null == criteria ? 0L : criteria.getStart();
+		end = null == criteria ? 0L : criteria.getEnd();
+		Level[] levels = null == criteria ? null : criteria.getLogLevels();
+		if (null == levels || levels.length == 0) {
+			levelMask = -1;
+		} else {
+			int mask = 0;
+			for (Level level : levels) {
+				if (null != level)
+					mask |= 1 << level.ordinal();
+			}
+			levelMask = mask;
+		}
+		originServices = bytes(null == criteria ? null : criteria.getOriginServices());
+		labels = bytes(null == criteria ? null : criteria.getLabels());
+		keywords = bytes(null == criteria ? null : criteria.getMessageKeywords());
+	}
+
+	/**
+	 * @return false if no record created between min and max can match
+	 */
+	boolean overlaps(long min, long max) {
+		if (min > max) {// no record yet
+			return false;
+		}
+		return (0L == start || max > start) && (0L == end || min < end);
+	}
+
+	/**
+	 * Match the record at position, with the same semantics as the file
+	 * backend: start and end are exclusive, every other criterion matches
+	 * any of its values and is ignored when empty
+	 */
+	boolean matches(ByteBuffer in, int position) {
+		if ((levelMask & (1 << in.get(position + 5))) == 0) {
+			return false;
+		}
+		long created = in.getLong(position + 6);
+		if ((0L != start && created <= start) || (0L != end && created >= end)) {
+			return false;
+		}
+		int offset = position + 14;
+		int length = in.getShort(offset);
+		if (null != originServices && !equalsAny(in, offset + 2, length, originServices)) {
+			return false;
+		}
+		offset += 2 + Math.max(length, 0);
+		int count = in.getShort(offset);
+		offset += 2;
+		boolean labelMatched = null == labels;
+		for (int i = 0; i < count; i++) {
+			length = in.getShort(offset);
+			if (!labelMatched && equalsAny(in, offset + 2, length, labels)) {
+				labelMatched = true;
+			}
+			offset += 2 + Math.max(length, 0);
+		}
+		if (!labelMatched) {
+			return false;
+		}
+		if (null != keywords) {
+			length = in.getInt(offset);
+			for (byte[] keyword : keywords) {
+				if (contains(in, offset + 4, length, keyword)) {
+					return true;
+				}
+			}
+			return false;
+		}
+		return true;
+	}
+
+	private static boolean equalsAny(ByteBuffer in, int offset, int length, byte[][] values) {
+		if (length < 0) {
+			return false;
+		}
+		for (byte[] value : values) {
+			if (value.length == length && regionMatches(in, offset, value)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	// UTF-8 is self-synchronizing, so a byte match is a character match
+	private static boolean contains(ByteBuffer in, int offset, int length, byte[] keyword) {
+		for (int i = 0; i <= length - keyword.length; i++) {
+			if (regionMatches(in, offset + i, keyword)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static boolean regionMatches(ByteBuffer in, int offset, byte[] value) {
+		for (int i = 0; i < value.length; i++) {
+			if (in.get(offset + i) != value[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static byte[][] bytes(String[] values) {
+		if (null == values || values.length == 0) {
+			return null;
+		}
+		byte[][] result = new byte[values.length][];
+		for (int i = 0; i < values.length; i++) {
+			result[i] = values[i].getBytes(StandardCharsets.UTF_8);
+		}
+		return result;
+	}
+
+}
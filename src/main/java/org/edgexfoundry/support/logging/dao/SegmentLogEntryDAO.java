@@ -0,0 +1,399 @@
+/*******************************************************************************
+ * Copyright 2016-2017 Dell Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * @microservice:  support-logging
+ * @author: Jude Hung, Dell
+ * @version: 1.0.0
+ *******************************************************************************/
+package org.edgexfoundry.support.logging.dao;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.edgexfoundry.support.domain.logging.LogEntry;
+import org.edgexfoundry.support.domain.logging.MatchCriteria;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.util.CloseableIterator;
+import org.springframework.stereotype.Component;
+
+import ch.qos.logback.core.util.FileSize;
+
+/**
+ * LogEntryDAO storing logEntries in fixed-size, memory-mapped, append-only
+ * segment files. Capacity is bounded by disk rather than heap: once
+ * logging.persistence.segment.max segments exist the oldest one is dropped,
+ * and its logEntries are reported to the LogEntryExpiryListeners.
+ * Queries match records in place in the mapped buffers and skip whole
+ * segments outside the requested time range.
+ */
+@Component("serviceDAO")
+@ConditionalOnProperty(name = { "logging.persistence" }, havingValue = "segment")
+public class SegmentLogEntryDAO extends BaseLogEntryDAO {
+
+	private final static Logger logger = LoggerFactory.getLogger(SegmentLogEntryDAO.class);
+
+	private final static String segmentFilePrefix = "segment-";
+
+	private final static String segmentFileExt = ".dat";
+
+	@Value("${logging.persistence.segment.dir:edgex-support-logging-segments}")
+	private String segmentDir;
+
+	@Value("${logging.persistence.segment.size:8MB}")
+	private String segmentSize;
+
+	@Value("${logging.persistence.segment.max:16}")
+	private int maxSegments;
+
+	// oldest first, copied on the rare roll over so queries never lock
+	private final List<Segment> segments = new CopyOnWriteArrayList<Segment>();
+
+	private static final Comparator<LogEntry> CREATED_ORDER = new Comparator<LogEntry>() {
+		@Override
+		public int compare(LogEntry a, LogEntry b) {
+			return Long.compare(a.getCreated(), b.getCreated());
+		}
+	};
+
+	private final Lock appendLock = new ReentrantLock();
+
+	private long nextSequence;
+
+	@PostConstruct
+	private void init() throws IOException {
+		File dir = new File(segmentDir);
+		if (!dir.exists() && !dir.mkdirs()) {
+			throw new IOException("Unable to create segment directory " + segmentDir);
+		}
+		File[] files = dir.listFiles();
+		if (null != files) {
+			// zero padded sequence numbers sort in creation order
+			Arrays.sort(files);
+			for (File file : files) {
+				String name = file.getName();
+				if (name.startsWith(segmentFilePrefix) && name.endsWith(segmentFileExt)) {
+					Segment segment = Segment.open(file);
+					segments.add(segment);
+					nextSequence = number(segment) + 1;
+				}
+			}
+		}
+		if (segments.isEmpty()) {
+			roll(new ArrayList<LogEntry>());
+		}
+	}
+
+	@PreDestroy
+	private void destroy() {
+		for (Segment segment : segments) {
+			segment.force();
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * org.edgexfoundry.support.logging.dao.LogEntryDAO#save(org.edgexfoundry.support.
+	 * logging.domain.LogEntry)
+	 */
+	@Override
+	public boolean save(LogEntry entry) {
+		if (!super.save(entry)) {// only store the logEntry when it's loggable
+			return false;
+		}
+		List<LogEntry> expired = new ArrayList<LogEntry>();
+		boolean stored;
+		appendLock.lock();
+		try {
+			stored = append(entry, expired);
+		} finally {
+			appendLock.unlock();
+		}
+		expired(expired);
+		return stored;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * org.edgexfoundry.support.logging.dao.LogEntryDAO#saveAll(java.util.List)
+	 */
+	@Override
+	public List<LogEntry> saveAll(List<LogEntry> entries) {
+		List<LogEntry> result = super.saveAll(entries);
+		if (result.isEmpty()) {
+			return result;
+		}
+		List<LogEntry> expired = new ArrayList<LogEntry>();
+		appendLock.lock();
+		try {
+			for (Iterator<LogEntry> stored = result.iterator(); stored.hasNext();) {
+				if (!append(stored.next(), expired)) {
+					stored.remove();
+				}
+			}
+		} finally {
+			appendLock.unlock();
+		}
+		expired(expired);
+		return result;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * org.edgexfoundry.support.logging.dao.LogEntryDAO#findByCriteria(org.edgexfoundry.
+	 * support.logging.domain.MatchCriteria, int)
+	 */
+	@Override
+	public List<LogEntry> findByCriteria(MatchCriteria criteria, int limit) {
+		return scan(criteria, limit, false);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * org.edgexfoundry.support.logging.dao.LogEntryDAO#findByCriteria(org.edgexfoundry.
+	 * support.logging.domain.MatchCriteria, int, org.springframework.data.domain.Sort.Direction)
+	 */
+	@Override
+	public List<LogEntry> findByCriteria(MatchCriteria criteria, int limit, Sort.Direction direction) {
+		if (Sort.Direction.ASC == direction) {
+			return findByCriteria(criteria, limit);
+		}
+		if (null == criteria || limit == 0) {
+			return new ArrayList<LogEntry>();
+		}
+		if (limit < 0) {
+			List<LogEntry> result = scan(criteria, -1, false);
+			Collections.sort(result, Collections.reverseOrder(CREATED_ORDER));
+			return result;
+		}
+		// newest segments first, keeping the latest limit records; older
+		// segments are skipped once they can't hold anything later
+		SegmentCriteria segmentCriteria = new SegmentCriteria(criteria);
+		PriorityQueue<Segment.Match> latest = new PriorityQueue<Segment.Match>(limit + 1, Segment.PAGE_ORDER);
+		List<Segment> snapshot = new ArrayList<Segment>(segments);
+		for (int i = snapshot.size() - 1; i >= 0; i--) {
+			Segment segment = snapshot.get(i);
+			segment.findLatest(segmentCriteria, number(segment), limit, latest);
+		}
+		List<Segment.Match> matches = new ArrayList<Segment.Match>(latest);
+		Collections.sort(matches, Collections.reverseOrder(Segment.PAGE_ORDER));
+		List<LogEntry> result = new ArrayList<LogEntry>(matches.size());
+		for (Segment.Match match : matches) {
+			result.add(match.entry);
+		}
+		return result;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * org.edgexfoundry.support.logging.dao.LogEntryDAO#findPageByCriteria(org.edgexfoundry.
+	 * support.logging.domain.MatchCriteria, int, java.lang.String)
+	 */
+	@Override
+	public LogEntryPage findPageByCriteria(MatchCriteria criteria, int limit, String cursor) {
+		PageCursor after = PageCursor.decode(cursor);
+		if (null == criteria || limit <= 0) {
+			return new LogEntryPage(new ArrayList<LogEntry>(), null);
+		}
+		// records are in append order, so every segment is scanned keeping
+		// the first limit records after the cursor; the tie breaker is the
+		// segment number and record position, stable across restarts
+		long afterCreated = null == after ? Long.MIN_VALUE : after.getCreated();
+		long afterSequence = null == after ? -1L : after.getNumericSequence();
+		SegmentCriteria segmentCriteria = new SegmentCriteria(criteria);
+		PriorityQueue<Segment.Match> page = new PriorityQueue<Segment.Match>(limit,
+				Collections.reverseOrder(Segment.PAGE_ORDER));
+		for (Segment segment : segments) {
+			segment.findPage(segmentCriteria, number(segment), afterCreated, afterSequence, limit, page);
+		}
+		List<Segment.Match> matches = new ArrayList<Segment.Match>(page);
+		Collections.sort(matches, Segment.PAGE_ORDER);
+		List<LogEntry> result = new ArrayList<LogEntry>(matches.size());
+		for (Segment.Match match : matches) {
+			result.add(match.entry);
+		}
+		String next = null;
+		if (matches.size() == limit) {
+			Segment.Match last = matches.get(matches.size() - 1);
+			next = new PageCursor(last.created, String.valueOf(last.sequence)).encode();
+		}
+		return new LogEntryPage(result, next);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * org.edgexfoundry.support.logging.dao.LogEntryDAO#streamByCriteria(org.edgexfoundry.
+	 * support.logging.domain.MatchCriteria)
+	 */
+	@Override
+	public CloseableIterator<LogEntry> streamByCriteria(MatchCriteria criteria) {
+		final SegmentCriteria segmentCriteria = null == criteria ? null : new SegmentCriteria(criteria);
+		// records are decoded one at a time off the mapped buffers, in append
+		// order of the segments existing when the stream starts
+		return new CloseableIterator<LogEntry>() {
+
+			private Iterator<Segment> remaining = null == segmentCriteria
+					? Collections.<Segment> emptyList().iterator() : segments.iterator();
+
+			private Segment segment;
+
+			private int position = -1;
+
+			@Override
+			public boolean hasNext() {
+				while (position < 0 && remaining.hasNext()) {
+					segment = remaining.next();
+					position = segment.next(segmentCriteria, -1);
+				}
+				return position >= 0;
+			}
+
+			@Override
+			public LogEntry next() {
+				if (!hasNext()) {
+					throw new NoSuchElementException();
+				}
+				LogEntry result = segment.read(position);
+				position = segment.next(segmentCriteria, position);
+				return result;
+			}
+
+			@Override
+			public void remove() {
+				throw new UnsupportedOperationException();
+			}
+
+			@Override
+			public void close() {
+				remaining = Collections.<Segment> emptyList().iterator();
+				position = -1;
+			}
+		};
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * org.edgexfoundry.support.logging.dao.LogEntryDAO#removeByCriteria(org.edgexfoundry.support.logging.domain.MatchCriteria)
+	 */
+	@Override
+	public List<LogEntry> removeByCriteria(MatchCriteria criteria) {
+		return scan(criteria, -1, true);
+	}
+
+	private List<LogEntry> scan(MatchCriteria criteria, int limit, boolean remove) {
+		List<LogEntry> result = new ArrayList<LogEntry>();
+		if (null == criteria) {
+			return result;
+		}
+		SegmentCriteria segmentCriteria = new SegmentCriteria(criteria);
+		int remaining = limit;
+		for (Segment segment : segments) {
+			int found = segment.find(segmentCriteria, remaining, result, remove);
+			if (remaining >= 0) {
+				remaining -= found;
+				if (remaining == 0) {
+					break;
+				}
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Append to the active segment, rolling over to a new one when it is
+	 * full. Caller must hold the appendLock.
+	 * 
+	 * @param entry
+	 * @param expired - receives the logEntries of a segment dropped to make
+	 *            room
+	 * @return true if stored; false if the logEntry is larger than a segment
+	 *         or couldn't be written
+	 */
+	private boolean append(LogEntry entry, List<LogEntry> expired) {
+		try {
+			Segment active = segments.get(segments.size() - 1);
+			if (active.append(entry)) {
+				return true;
+			}
+			if (active.isEmpty()) {
+				logger.error("LogEntry larger than the segment size {} is dropped", segmentSize);
+				return false;
+			}
+			active.force();
+			roll(expired);
+			if (!segments.get(segments.size() - 1).append(entry)) {
+				logger.error("LogEntry larger than the segment size {} is dropped", segmentSize);
+				return false;
+			}
+			return true;
+		} catch (IllegalArgumentException e) {
+			logger.error("Error storing logEntry:", e);
+		} catch (IOException e) {
+			logger.error("Error creating segment:", e);
+		}
+		return false;
+	}
+
+	private static long number(Segment segment) {
+		String name = segment.getFile().getName();
+		return Long.parseLong(name.substring(segmentFilePrefix.length(), name.length() - segmentFileExt.length()));
+	}
+
+	private void roll(List<LogEntry> expired) throws IOException {
+		File file = new File(segmentDir, String.format("%s%020d%s", segmentFilePrefix, nextSequence++, segmentFileExt));
+		segments.add(Segment.create(file, (int) FileSize.valueOf(segmentSize).getSize()));
+		while (segments.size() > maxSegments) {
+			Segment oldest = segments.remove(0);
+			// the records not removed yet are what gets dropped
+			oldest.find(new SegmentCriteria(new MatchCriteria()), -1, expired, false);
+			// running queries keep reading the mapping of the deleted file
+			if (!oldest.getFile().delete()) {
+				logger.warn("Unable to delete segment {}", oldest.getFile());
+			}
+		}
+	}
+
+}
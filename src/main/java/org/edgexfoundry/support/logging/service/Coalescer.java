@@ -0,0 +1,230 @@
+/*******************************************************************************
+ * Copyright 2016-2017 Dell Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * @microservice:  support-logging
+ * @author: Jude Hung, Dell
+ * @version: 1.0.0
+ *******************************************************************************/
+package org.edgexfoundry.support.logging.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiFunction;
+
+import javax.annotation.PreDestroy;
+
+import org.edgexfoundry.support.domain.logging.LogEntry;
+import org.edgexfoundry.support.logging.dao.LogEntryDAO;
+import org.edgexfoundry.support.logging.dao.RepeatedLogEntry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.event.Level;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Optional stage collapsing identical logEntries (same originService,
+ * logLevel, labels and message) received within logging.coalesce.window
+ * into a single stored RepeatedLogEntry. A logEntry is held back until the
+ * window opened by its first occurrence has elapsed; one without repeats is
+ * stored unchanged.
+ */
+@Component
+public class Coalescer implements MetricsProvider {
+
+	private final static Logger logger = LoggerFactory.getLogger(Coalescer.class);
+
+	@Value("${logging.coalesce.enabled:false}")
+	private boolean enabled;
+
+	// in milliseconds
+	@Value("${logging.coalesce.window:1000}")
+	private long window;
+
+	// distinct logEntries held back at most, further ones bypass coalescing
+	@Value("${logging.coalesce.max.pending:10000}")
+	private int maxPending;
+
+	@Autowired(required = false)
+	@Qualifier("serviceDAO")
+	private LogEntryDAO logEntryDAO;
+
+	@Autowired(required = false)
+	private QueryCache queryCache;
+
+	@Autowired(required = false)
+	private RollupCounters rollups;
+
+	private final ConcurrentMap<Key, RepeatedLogEntry> pending = new ConcurrentHashMap<Key, RepeatedLogEntry>();
+
+	private final AtomicLong coalesced = new AtomicLong();
+
+	public Coalescer() {
+	}
+
+	Coalescer(long window, int maxPending, LogEntryDAO logEntryDAO) {
+		this.enabled = true;
+		this.window = window;
+		this.maxPending = maxPending;
+		this.logEntryDAO = logEntryDAO;
+	}
+
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * Hold the logEntry back, or account for it as a repeat of one already
+	 * held back
+	 * 
+	 * @param entry - logEntry being persisted
+	 * @return false if the logEntry hasn't been taken and is to be persisted
+	 *         by the caller
+	 */
+	public boolean add(final LogEntry entry) {
+		Key key = new Key(entry);
+		RepeatedLogEntry repeated = pending.get(key);
+		if (null == repeated && pending.size() >= maxPending) {
+			return false;
+		}
+		pending.merge(key, new RepeatedLogEntry(entry),
+				new BiFunction<RepeatedLogEntry, RepeatedLogEntry, RepeatedLogEntry>() {
+					@Override
+					public RepeatedLogEntry apply(RepeatedLogEntry held, RepeatedLogEntry added) {
+						held.repeat(entry.getCreated());
+						coalesced.incrementAndGet();
+						return held;
+					}
+				});
+		return true;
+	}
+
+	/**
+	 * Persist the logEntries whose window has elapsed
+	 */
+	@Scheduled(fixedDelayString = "${logging.coalesce.window:1000}")
+	public void flush() {
+		flush(System.currentTimeMillis() - window);
+	}
+
+	/**
+	 * Persist every logEntry held back
+	 */
+	@PreDestroy
+	public void destroy() {
+		flush(Long.MAX_VALUE);
+	}
+
+	private void flush(final long openedBefore) {
+		if (pending.isEmpty()) {
+			return;
+		}
+		final List<LogEntry> entries = new ArrayList<LogEntry>();
+		BiFunction<Key, RepeatedLogEntry, RepeatedLogEntry> expire = new BiFunction<Key, RepeatedLogEntry, RepeatedLogEntry>() {
+			@Override
+			public RepeatedLogEntry apply(Key key, RepeatedLogEntry held) {
+				if (held.getCreated() > openedBefore) {
+					return held;
+				}
+				entries.add(held.getRepeatCount() == 1 ? key.entry : held);
+				return null;
+			}
+		};
+		for (Key key : pending.keySet()) {
+			pending.computeIfPresent(key, expire);
+		}
+		if (!entries.isEmpty()) {
+			try {
+				List<LogEntry> saved = logEntryDAO.saveAll(entries);
+				if (null != rollups) {
+					rollups.addAll(saved);
+				}
+				if (null != queryCache) {
+					queryCache.invalidate(entries);
+				}
+			} catch (Exception e) {
+				logger.error("Error persisting " + entries.size() + " coalesced logEntries:", e);
+			}
+		}
+	}
+
+	@Override
+	public String getMetricsName() {
+		return "coalescing";
+	}
+
+	@Override
+	public Map<String, Object> getMetrics() {
+		Map<String, Object> metrics = new LinkedHashMap<String, Object>();
+		metrics.put("pendingLogEntries", pending.size());
+		metrics.put("coalescedLogEntries", coalesced.get());
+		return metrics;
+	}
+
+	/**
+	 * Identity of a logEntry for coalescing, created is left out
+	 */
+	private static class Key {
+
+		private final LogEntry entry;
+
+		private final int hash;
+
+		Key(LogEntry entry) {
+			this.entry = entry;
+			Level logLevel = entry.getLogLevel();
+			int h = null == entry.getOriginService() ? 0 : entry.getOriginService().hashCode();
+			h = 31 * h + (null == logLevel ? 0 : logLevel.ordinal());
+			h = 31 * h + Arrays.hashCode(entry.getLabels());
+			h = 31 * h + (null == entry.getMessage() ? 0 : entry.getMessage().hashCode());
+			this.hash = h;
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			}
+			if (!(obj instanceof Key)) {
+				return false;
+			}
+			LogEntry other = ((Key) obj).entry;
+			return hash == ((Key) obj).hash && entry.getLogLevel() == other.getLogLevel()
+					&& equals(entry.getOriginService(), other.getOriginService())
+					&& equals(entry.getMessage(), other.getMessage())
+					&& Arrays.equals(entry.getLabels(), other.getLabels());
+		}
+
+		private static boolean equals(String a, String b) {
+			return null == a ? null == b : a.equals(b);
+		}
+
+	}
+
+}
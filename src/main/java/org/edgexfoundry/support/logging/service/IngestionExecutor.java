@@ -0,0 +1,84 @@
+/*******************************************************************************
+ * Copyright 2016-2017 Dell Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * @microservice:  support-logging
+ * @author: Jude Hung, Dell
+ * @version: 1.0.0
+ *******************************************************************************/
+package org.edgexfoundry.support.logging.service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * Bounded executor running the asynchronous ingestion of logEntries. Once
+ * both the workers and the queue are busy, further submissions are rejected
+ * rather than queued without limit, and every rejection is counted.
+ */
+public class IngestionExecutor extends ThreadPoolTaskExecutor implements MetricsProvider {
+
+	private static final long serialVersionUID = 1L;
+
+	private final AtomicLong rejected = new AtomicLong();
+
+	public IngestionExecutor(int workers, int queueCapacity) {
+		setCorePoolSize(workers);
+		setMaxPoolSize(workers);
+		setQueueCapacity(queueCapacity);
+		setThreadNamePrefix("logging-ingest-");
+		setRejectedExecutionHandler(new CountingAbortPolicy());
+		setWaitForTasksToCompleteOnShutdown(true);
+	}
+
+	public long getRejectedCount() {
+		return rejected.get();
+	}
+
+	@Override
+	public String getMetricsName() {
+		return "ingestion";
+	}
+
+	@Override
+	public Map<String, Object> getMetrics() {
+		Map<String, Object> metrics = new LinkedHashMap<String, Object>();
+		ThreadPoolExecutor executor = getThreadPoolExecutor();
+		metrics.put("workers", executor.getPoolSize());
+		metrics.put("activeWorkers", executor.getActiveCount());
+		metrics.put("queueDepth", executor.getQueue().size());
+		metrics.put("queueRemainingCapacity", executor.getQueue().remainingCapacity());
+		metrics.put("completedTasks", executor.getCompletedTaskCount());
+		metrics.put("rejectedTasks", rejected.get());
+		return metrics;
+	}
+
+	private class CountingAbortPolicy implements RejectedExecutionHandler {
+
+		private final RejectedExecutionHandler delegate = new ThreadPoolExecutor.AbortPolicy();
+
+		@Override
+		public void rejectedExecution(Runnable task, ThreadPoolExecutor executor) {
+			rejected.incrementAndGet();
+			delegate.rejectedExecution(task, executor);
+		}
+
+	}
+
+}
@@ -0,0 +1,136 @@
+/*******************************************************************************
+ * Copyright 2016-2017 Dell Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * @microservice:  support-logging
+ * @author: Jude Hung, Dell
+ * @version: 1.0.0
+ *******************************************************************************/
+package org.edgexfoundry.support.logging.service;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.edgexfoundry.support.domain.logging.LogEntry;
+import org.slf4j.event.Level;
+import org.springframework.stereotype.Component;
+
+/**
+ * Runtime-adjustable logLevel thresholds keyed by originService. LogEntries
+ * less severe than the threshold of their originService are discarded when
+ * they are received, before being queued for persistence. OriginServices
+ * without a threshold keep all of their logEntries.
+ */
+@Component
+public class LevelThresholds implements MetricsProvider {
+
+	private final ConcurrentMap<String, Level> thresholds = new ConcurrentHashMap<String, Level>();
+
+	private final AtomicLong discarded = new AtomicLong();
+
+	/**
+	 * @param entry - logEntry being received
+	 * @return true if the logEntry is at or above the threshold of its
+	 *         originService, false if it has been discarded
+	 */
+	public boolean accept(LogEntry entry) {
+		Level logLevel = entry.getLogLevel();
+		if (null == logLevel || thresholds.isEmpty()) {
+			return true;
+		}
+		Level threshold = thresholds.get(key(entry.getOriginService()));
+		if (null == threshold || logLevel.ordinal() <= threshold.ordinal()) {
+			return true;
+		}
+		discarded.incrementAndGet();
+		return false;
+	}
+
+	/**
+	 * Remove from the list, in place, the logEntries below the threshold of
+	 * their originService.
+	 * 
+	 * @param entries - logEntries being received
+	 */
+	public void filter(List<LogEntry> entries) {
+		if (thresholds.isEmpty()) {
+			return;
+		}
+		for (Iterator<LogEntry> iterator = entries.iterator(); iterator.hasNext();) {
+			if (!accept(iterator.next())) {
+				iterator.remove();
+			}
+		}
+	}
+
+	/**
+	 * @return current thresholds keyed by originService
+	 */
+	public Map<String, Level> getThresholds() {
+		return new TreeMap<String, Level>(thresholds);
+	}
+
+	/**
+	 * @param originService - originService the threshold applies to
+	 * @return threshold of the originService, null if it keeps all logEntries
+	 */
+	public Level getThreshold(String originService) {
+		return thresholds.get(key(originService));
+	}
+
+	/**
+	 * @param originService - originService the threshold applies to
+	 * @param threshold - least severe logLevel still kept
+	 * @return previous threshold of the originService, null if there was none
+	 */
+	public Level setThreshold(String originService, Level threshold) {
+		return thresholds.put(key(originService), threshold);
+	}
+
+	/**
+	 * @param originService - originService to keep all logEntries of again
+	 * @return removed threshold of the originService, null if there was none
+	 */
+	public Level removeThreshold(String originService) {
+		return thresholds.remove(key(originService));
+	}
+
+	public long getDiscardedCount() {
+		return discarded.get();
+	}
+
+	@Override
+	public String getMetricsName() {
+		return "thresholds";
+	}
+
+	@Override
+	public Map<String, Object> getMetrics() {
+		Map<String, Object> metrics = new LinkedHashMap<String, Object>();
+		metrics.put("thresholds", thresholds.size());
+		metrics.put("discardedLogEntries", discarded.get());
+		return metrics;
+	}
+
+	private String key(String originService) {
+		return null == originService ? "" : originService;
+	}
+
+}
@@ -0,0 +1,320 @@
+/*******************************************************************************
+ * Copyright 2016-2017 Dell Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * @microservice:  support-logging
+ * @author: Jude Hung, Dell
+ * @version: 1.0.0
+ *******************************************************************************/
+package org.edgexfoundry.support.logging.service;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.edgexfoundry.support.domain.logging.LogEntry;
+import org.edgexfoundry.support.domain.logging.MatchCriteria;
+import org.edgexfoundry.support.logging.dao.KeywordMatcher;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.event.Level;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+
+/**
+ * Pushes the logEntries passing through ingestion to the subscribers whose
+ * MatchCriteria they match. Each subscription buffers at most
+ * logging.tail.buffer logEntries; when a subscriber can't keep up the oldest
+ * buffered logEntry is dropped, so ingestion only ever appends to a bounded
+ * buffer and never waits for a subscriber. Buffers are drained towards the
+ * subscribers on a small pool of sender threads, at most one drain per
+ * subscription at a time.
+ */
+@Component
+public class LiveTail implements MetricsProvider {
+
+	private final static Logger logger = LoggerFactory.getLogger(LiveTail.class);
+
+	/**
+	 * Receives the logEntries of a subscription, from one sender thread at a
+	 * time
+	 */
+	public interface Sink {
+
+		void send(LogEntry entry) throws IOException;
+
+		/**
+		 * @param count - logEntries dropped since the last one sent
+		 */
+		void dropped(long count) throws IOException;
+
+		/**
+		 * @param cause - failure ending the subscription, null if it was
+		 *            cancelled or the service stops
+		 */
+		void close(Throwable cause);
+
+	}
+
+	@Value("${logging.tail.buffer:1000}")
+	private int bufferSize;
+
+	@Value("${logging.tail.max.subscribers:100}")
+	private int maxSubscribers;
+
+	@Value("${logging.tail.senders:2}")
+	private int senders;
+
+	private Executor executor;
+
+	private final Set<Subscription> subscriptions = new CopyOnWriteArraySet<Subscription>();
+
+	private final AtomicLong published = new AtomicLong();
+
+	private final AtomicLong dropped = new AtomicLong();
+
+	public class Subscription implements Runnable {
+
+		private final MatchCriteria criteria;
+
+		private final KeywordMatcher keywords;
+
+		private final Sink sink;
+
+		private final ArrayDeque<LogEntry> buffer = new ArrayDeque<LogEntry>();
+
+		private long lost;
+
+		private boolean draining;
+
+		private boolean closed;
+
+		private Subscription(MatchCriteria criteria, Sink sink) {
+			this.criteria = criteria;
+			this.keywords = new KeywordMatcher(criteria.getMessageKeywords(), false);
+			this.sink = sink;
+		}
+
+		public void cancel() {
+			close(null);
+		}
+
+		private void offer(LogEntry entry) {
+			boolean schedule = false;
+			synchronized (this) {
+				if (closed) {
+					return;
+				}
+				if (buffer.size() >= bufferSize) {
+					buffer.pollFirst();
+					lost++;
+					dropped.incrementAndGet();
+				}
+				buffer.addLast(entry);
+				if (!draining) {
+					draining = schedule = true;
+				}
+			}
+			if (schedule) {
+				try {
+					executor.execute(this);
+				} catch (RejectedExecutionException e) {
+					close(e);
+				}
+			}
+		}
+
+		/**
+		 * Drain the buffer towards the sink
+		 */
+		@Override
+		public void run() {
+			try {
+				while (true) {
+					LogEntry entry;
+					long count;
+					synchronized (this) {
+						entry = buffer.pollFirst();
+						count = lost;
+						lost = 0;
+						if (closed || (null == entry && 0 == count)) {
+							draining = false;
+							return;
+						}
+					}
+					if (count > 0) {
+						sink.dropped(count);
+					}
+					if (null != entry) {
+						sink.send(entry);
+					}
+				}
+			} catch (Exception e) {
+				logger.debug("Live tail subscriber gone: {}", e.getMessage());
+				synchronized (this) {
+					draining = false;
+				}
+				close(e);
+			}
+		}
+
+		private void close(Throwable cause) {
+			synchronized (this) {
+				if (closed) {
+					return;
+				}
+				closed = true;
+				buffer.clear();
+			}
+			subscriptions.remove(this);
+			sink.close(cause);
+		}
+
+		private boolean matches(LogEntry entry) {
+			long created = entry.getCreated();
+			if ((0L != criteria.getStart() && created <= criteria.getStart())
+					|| (0L != criteria.getEnd() && created >= criteria.getEnd())) {
+				return false;
+			}
+			Level[] logLevels = criteria.getLogLevels();
+			if (null != logLevels && logLevels.length > 0
+					&& !Arrays.asList(logLevels).contains(entry.getLogLevel())) {
+				return false;
+			}
+			String[] originServices = criteria.getOriginServices();
+			if (null != originServices && originServices.length > 0
+					&& !Arrays.asList(originServices).contains(entry.getOriginService())) {
+				return false;
+			}
+			String[] labels = criteria.getLabels();
+			if (null != labels && labels.length > 0) {
+				if (null == entry.getLabels()) {
+					return false;
+				}
+				List<String> requested = Arrays.asList(labels);
+				boolean found = false;
+				for (String label : entry.getLabels()) {
+					if (requested.contains(label)) {
+						found = true;
+						break;
+					}
+				}
+				if (!found) {
+					return false;
+				}
+			}
+			return keywords.matches(entry.getMessage());
+		}
+
+	}
+
+	public LiveTail() {
+	}
+
+	LiveTail(int bufferSize, int maxSubscribers, Executor executor) {
+		this.bufferSize = bufferSize;
+		this.maxSubscribers = maxSubscribers;
+		this.executor = executor;
+	}
+
+	@PostConstruct
+	private void init() {
+		ThreadPoolTaskExecutor pool = new ThreadPoolTaskExecutor();
+		pool.setCorePoolSize(senders);
+		pool.setMaxPoolSize(senders);
+		pool.setThreadNamePrefix("logging-tail-");
+		pool.initialize();
+		executor = pool;
+	}
+
+	@PreDestroy
+	private void destroy() {
+		for (Subscription subscription : subscriptions) {
+			subscription.cancel();
+		}
+		if (executor instanceof ThreadPoolTaskExecutor) {
+			((ThreadPoolTaskExecutor) executor).shutdown();
+		}
+	}
+
+	/**
+	 * @param criteria - logEntries to receive
+	 * @param sink - receiver of the logEntries
+	 * @return the subscription, null if there are already
+	 *         logging.tail.max.subscribers
+	 */
+	public Subscription subscribe(MatchCriteria criteria, Sink sink) {
+		Subscription subscription = new Subscription(criteria, sink);
+		synchronized (subscriptions) {
+			if (subscriptions.size() >= maxSubscribers) {
+				return null;
+			}
+			subscriptions.add(subscription);
+		}
+		return subscription;
+	}
+
+	/**
+	 * Hand the logEntry to the matching subscriptions, never blocking
+	 * 
+	 * @param entry - logEntry being ingested
+	 */
+	public void publish(LogEntry entry) {
+		if (subscriptions.isEmpty()) {
+			return;
+		}
+		for (Subscription subscription : subscriptions) {
+			if (subscription.matches(entry)) {
+				subscription.offer(entry);
+				published.incrementAndGet();
+			}
+		}
+	}
+
+	public void publishAll(List<LogEntry> entries) {
+		if (subscriptions.isEmpty()) {
+			return;
+		}
+		for (LogEntry entry : entries) {
+			publish(entry);
+		}
+	}
+
+	@Override
+	public String getMetricsName() {
+		return "liveTail";
+	}
+
+	@Override
+	public Map<String, Object> getMetrics() {
+		Map<String, Object> metrics = new LinkedHashMap<String, Object>();
+		metrics.put("subscribers", subscriptions.size());
+		metrics.put("publishedLogEntries", published.get());
+		metrics.put("droppedLogEntries", dropped.get());
+		return metrics;
+	}
+
+}
@@ -23,15 +23,26 @@ import java.util.List;
 
 import org.edgexfoundry.support.domain.logging.LogEntry;
 import org.edgexfoundry.support.domain.logging.MatchCriteria;
+import org.edgexfoundry.support.logging.dao.LogEntryPage;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.util.CloseableIterator;
 
 public interface LoggingService {
 
 	void addLogEntry(LogEntry entry);
 
+	void addLogEntries(List<LogEntry> entries);
+
 	List<LogEntry> searchByCriteria(MatchCriteria criteria);
 
 	List<LogEntry> searchByCriteria(MatchCriteria criteria, int limit);
 
+	List<LogEntry> searchByCriteria(MatchCriteria criteria, int limit, Sort.Direction direction);
+
+	LogEntryPage searchPageByCriteria(MatchCriteria criteria, int limit, String cursor);
+
+	CloseableIterator<LogEntry> streamByCriteria(MatchCriteria criteria);
+
 	List<LogEntry> removeByCriteria(MatchCriteria criteria);
 
 }
@@ -19,13 +19,17 @@
  *******************************************************************************/
 package org.edgexfoundry.support.logging.service;
 
+import java.util.ArrayList;
 import java.util.List;
 
 import org.edgexfoundry.support.domain.logging.LogEntry;
 import org.edgexfoundry.support.domain.logging.MatchCriteria;
 import org.edgexfoundry.support.logging.dao.LogEntryDAO;
+import org.edgexfoundry.support.logging.dao.LogEntryPage;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.util.CloseableIterator;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 
@@ -35,26 +39,97 @@ public class LoggingServiceImpl implements LoggingService {
 	@Autowired @Qualifier("serviceDAO")
 	private LogEntryDAO logEntryDAO;
 
+	@Autowired
+	private Coalescer coalescer;
+
+	@Autowired
+	private QueryCache queryCache;
+
+	@Autowired
+	private RollupCounters rollups;
+
+	@Autowired
+	private LiveTail liveTail;
+
 	@Override
 	@Async
 	public void addLogEntry(LogEntry entry) {
-		logEntryDAO.save(entry);
+		liveTail.publish(entry);
+		if (coalescer.isEnabled() && coalescer.add(entry)) {
+			return;
+		}
+		if (logEntryDAO.save(entry)) {
+			rollups.add(entry);
+		}
+		queryCache.invalidate(entry);
+	}
+
+	@Override
+	@Async
+	public void addLogEntries(List<LogEntry> entries) {
+		liveTail.publishAll(entries);
+		if (coalescer.isEnabled()) {
+			List<LogEntry> remaining = new ArrayList<LogEntry>();
+			for (LogEntry entry : entries) {
+				if (!coalescer.add(entry)) {
+					remaining.add(entry);
+				}
+			}
+			entries = remaining;
+		}
+		if (!entries.isEmpty()) {
+			rollups.addAll(logEntryDAO.saveAll(entries));
+			queryCache.invalidate(entries);
+		}
 	}
 
 	@Override
 	public List<LogEntry> searchByCriteria(MatchCriteria criteria) {
-		List<LogEntry> result = logEntryDAO.findByCriteria(criteria, -1);
-		return result;
+		return searchByCriteria(criteria, -1);
+	}
+
+	@Override
+	public List<LogEntry> searchByCriteria(final MatchCriteria criteria, final int limit) {
+		return queryCache.find(criteria, limit, new QueryCache.Loader() {
+			@Override
+			public List<LogEntry> load() {
+				return logEntryDAO.findByCriteria(criteria, limit);
+			}
+		});
+	}
+
+	@Override
+	public List<LogEntry> searchByCriteria(final MatchCriteria criteria, final int limit,
+			final Sort.Direction direction) {
+		if (Sort.Direction.ASC == direction) {
+			return searchByCriteria(criteria, limit);
+		}
+		return queryCache.find(criteria, limit, direction, new QueryCache.Loader() {
+			@Override
+			public List<LogEntry> load() {
+				return logEntryDAO.findByCriteria(criteria, limit, direction);
+			}
+		});
+	}
+
+	@Override
+	public LogEntryPage searchPageByCriteria(MatchCriteria criteria, int limit, String cursor) {
+		// pages are walked once, caching them would only evict useful results
+		return logEntryDAO.findPageByCriteria(criteria, limit, cursor);
 	}
 
 	@Override
-	public List<LogEntry> searchByCriteria(MatchCriteria criteria, int limit) {
-		return logEntryDAO.findByCriteria(criteria, limit);
+	public CloseableIterator<LogEntry> streamByCriteria(MatchCriteria criteria) {
+		return logEntryDAO.streamByCriteria(criteria);
 	}
 
 	@Override
 	public List<LogEntry> removeByCriteria(MatchCriteria criteria) {
 		List<LogEntry> result = logEntryDAO.removeByCriteria(criteria);
+		if (null != result) {
+			rollups.removeAll(result);
+			queryCache.invalidate(result);
+		}
 		return result;
 	}
 
@@ -0,0 +1,460 @@
+/*******************************************************************************
+ * Copyright 2016-2017 Dell Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * @microservice:  support-logging
+ * @author: Jude Hung, Dell
+ * @version: 1.0.0
+ *******************************************************************************/
+package org.edgexfoundry.support.logging.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.edgexfoundry.support.domain.logging.LogEntry;
+import org.edgexfoundry.support.domain.logging.MatchCriteria;
+import org.edgexfoundry.support.logging.dao.LogEntryExpiryListener;
+import org.slf4j.event.Level;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+
+/**
+ * Cache of query results keyed by the normalized MatchCriteria, limit and
+ * sort direction, evicted least recently used once the cached results hold
+ * more than logging.query.cache.max.entries logEntries in total, and expired
+ * after logging.query.cache.ttl. Saved and removed logEntries invalidate the
+ * results they could be part of; a query running while such a logEntry is
+ * saved or removed doesn't get its result cached. Cached keys are bucketed by
+ * their most selective criteria field (originServices, then logLevels, then
+ * end), so a write only checks the keys it could affect.
+ */
+@Component
+public class QueryCache implements MetricsProvider, LogEntryExpiryListener {
+
+	/**
+	 * Runs the query on a cache miss
+	 */
+	public interface Loader {
+
+		List<LogEntry> load();
+
+	}
+
+	// in milliseconds, 0 to disable caching
+	@Value("${logging.query.cache.ttl:5000}")
+	private long ttl;
+
+	// logEntries held by all cached results together
+	@Value("${logging.query.cache.max.entries:10000}")
+	private int maxEntries;
+
+	private final LinkedHashMap<Key, Result> results = new LinkedHashMap<Key, Result>(16, 0.75f, true);
+
+	// every key of results is in exactly one of these buckets
+	private final Map<String, Set<Key>> byOriginService = new HashMap<String, Set<Key>>();
+
+	private final Map<Level, Set<Key>> byLogLevel = new HashMap<Level, Set<Key>>();
+
+	private final TreeMap<Long, Set<Key>> byEnd = new TreeMap<Long, Set<Key>>();
+
+	private final Set<Key> unbounded = new HashSet<Key>();
+
+	private int cachedEntries;
+
+	private final AtomicLong hits = new AtomicLong();
+
+	private final AtomicLong misses = new AtomicLong();
+
+	private final AtomicLong evictions = new AtomicLong();
+
+	private final AtomicLong expirations = new AtomicLong();
+
+	private final AtomicLong invalidations = new AtomicLong();
+
+	public QueryCache() {
+	}
+
+	QueryCache(long ttl, int maxEntries) {
+		this.ttl = ttl;
+		this.maxEntries = maxEntries;
+	}
+
+	/**
+	 * Return the cached result of the query, or load and cache it
+	 * 
+	 * @param criteria
+	 * @param limit
+	 * @param loader - runs the query on a miss
+	 * @return result of the query, not to be modified
+	 */
+	public List<LogEntry> find(MatchCriteria criteria, int limit, Loader loader) {
+		return find(criteria, limit, Sort.Direction.ASC, loader);
+	}
+
+	/**
+	 * Return the cached result of the query, or load and cache it
+	 * 
+	 * @param criteria
+	 * @param limit
+	 * @param direction - created order of the result
+	 * @param loader - runs the query on a miss
+	 * @return result of the query, not to be modified
+	 */
+	public List<LogEntry> find(MatchCriteria criteria, int limit, Sort.Direction direction, Loader loader) {
+		if (ttl <= 0 || maxEntries <= 0 || null == criteria) {
+			return loader.load();
+		}
+		Key key = new Key(criteria, limit, direction);
+		Result loading;
+		synchronized (this) {
+			Result result = results.get(key);
+			if (null != result && null != result.entries) {
+				if (result.expires > now()) {
+					hits.incrementAndGet();
+					return result.entries;
+				}
+				expirations.incrementAndGet();
+				remove(key);
+			}
+			misses.incrementAndGet();
+			// registered while loading, so concurrent writes can flag it
+			loading = new Result();
+			if (null == result || null != result.entries) {
+				put(key, loading);
+			}
+		}
+		List<LogEntry> entries = null;
+		try {
+			entries = loader.load();
+		} finally {
+			synchronized (this) {
+				if (results.get(key) == loading) {
+					// a failed load mustn't leave its placeholder behind
+					if (null == entries || loading.stale || entries.size() > maxEntries) {
+						remove(key);
+					} else {
+						loading.entries = Collections.unmodifiableList(new ArrayList<LogEntry>(entries));
+						loading.expires = now() + ttl;
+						cachedEntries += entries.size();
+						evict();
+					}
+				}
+			}
+		}
+		return entries;
+	}
+
+	/**
+	 * Drop the cached results the saved or removed logEntries could be part
+	 * of
+	 * 
+	 * @param entries - logEntries saved or removed
+	 */
+	public synchronized void invalidate(Collection<LogEntry> entries) {
+		if (results.isEmpty() || entries.isEmpty()) {
+			return;
+		}
+		Set<Key> affected = new HashSet<Key>();
+		for (LogEntry entry : entries) {
+			collectAffected(byOriginService.get(entry.getOriginService()), entry, affected);
+			collectAffected(byLogLevel.get(entry.getLogLevel()), entry, affected);
+			// keys ending after the logEntry was created
+			for (Set<Key> keys : byEnd.tailMap(entry.getCreated(), false).values()) {
+				collectAffected(keys, entry, affected);
+			}
+			collectAffected(unbounded, entry, affected);
+		}
+		for (Key key : affected) {
+			Result result = results.get(key);
+			if (null == result.entries) {
+				result.stale = true;
+			} else {
+				remove(key);
+				invalidations.incrementAndGet();
+			}
+		}
+	}
+
+	@Override
+	public void expired(Collection<LogEntry> entries) {
+		invalidate(entries);
+	}
+
+	public void invalidate(LogEntry entry) {
+		invalidate(Collections.singletonList(entry));
+	}
+
+	@Override
+	public String getMetricsName() {
+		return "queryCache";
+	}
+
+	@Override
+	public Map<String, Object> getMetrics() {
+		Map<String, Object> metrics = new LinkedHashMap<String, Object>();
+		long hitCount = hits.get();
+		long lookups = hitCount + misses.get();
+		synchronized (this) {
+			metrics.put("cachedResults", results.size());
+			metrics.put("cachedLogEntries", cachedEntries);
+		}
+		metrics.put("hits", hitCount);
+		metrics.put("misses", misses.get());
+		metrics.put("hitRatio", lookups == 0 ? 0.0 : (double) hitCount / lookups);
+		metrics.put("evictions", evictions.get());
+		metrics.put("expirations", expirations.get());
+		metrics.put("invalidations", invalidations.get());
+		return metrics;
+	}
+
+	protected long now() {
+		return System.currentTimeMillis();
+	}
+
+	private void collectAffected(Set<Key> keys, LogEntry entry, Set<Key> affected) {
+		if (null == keys) {
+			return;
+		}
+		for (Key key : keys) {
+			if (!affected.contains(key) && key.affectedBy(entry)) {
+				affected.add(key);
+			}
+		}
+	}
+
+	private void put(Key key, Result result) {
+		results.put(key, result);
+		if (null != key.originServices) {
+			for (String originService : key.originServices) {
+				bucket(byOriginService, originService).add(key);
+			}
+		} else if (null != key.logLevels) {
+			for (Level logLevel : key.logLevels) {
+				bucket(byLogLevel, logLevel).add(key);
+			}
+		} else if (0L != key.end) {
+			bucket(byEnd, key.end).add(key);
+		} else {
+			unbounded.add(key);
+		}
+	}
+
+	private void remove(Key key) {
+		Result result = results.remove(key);
+		if (null == result) {
+			return;
+		}
+		if (null != result.entries) {
+			cachedEntries -= result.entries.size();
+		}
+		if (null != key.originServices) {
+			for (String originService : key.originServices) {
+				unbucket(byOriginService, originService, key);
+			}
+		} else if (null != key.logLevels) {
+			for (Level logLevel : key.logLevels) {
+				unbucket(byLogLevel, logLevel, key);
+			}
+		} else if (0L != key.end) {
+			unbucket(byEnd, key.end, key);
+		} else {
+			unbounded.remove(key);
+		}
+	}
+
+	private static <V> Set<Key> bucket(Map<V, Set<Key>> buckets, V value) {
+		Set<Key> keys = buckets.get(value);
+		if (null == keys) {
+			keys = new HashSet<Key>();
+			buckets.put(value, keys);
+		}
+		return keys;
+	}
+
+	private static <V> void unbucket(Map<V, Set<Key>> buckets, V value, Key key) {
+		Set<Key> keys = buckets.get(value);
+		if (null != keys && keys.remove(key) && keys.isEmpty()) {
+			buckets.remove(value);
+		}
+	}
+
+	private void evict() {
+		List<Key> evicted = new ArrayList<Key>();
+		int remaining = cachedEntries;
+		for (Iterator<Map.Entry<Key, Result>> iterator = results.entrySet().iterator(); remaining > maxEntries
+				&& iterator.hasNext();) {
+			Map.Entry<Key, Result> cached = iterator.next();
+			if (null != cached.getValue().entries) {
+				remaining -= cached.getValue().entries.size();
+				evicted.add(cached.getKey());
+			}
+		}
+		for (Key key : evicted) {
+			remove(key);
+			evictions.incrementAndGet();
+		}
+	}
+
+	private static class Result {
+
+		// null while the query is running
+		private List<LogEntry> entries;
+
+		private long expires;
+
+		private boolean stale;
+
+	}
+
+	/**
+	 * MatchCriteria, limit and sort direction with the criteria values sorted
+	 * and deduplicated, so equivalent queries share their result
+	 */
+	private static class Key {
+
+		private final String[] labels;
+
+		private final Level[] logLevels;
+
+		private final String[] originServices;
+
+		private final String[] keywords;
+
+		private final long start;
+
+		private final long end;
+
+		private final int limit;
+
+		private final Sort.Direction direction;
+
+		private final int hash;
+
+		Key(MatchCriteria criteria, int limit, Sort.Direction direction) {
+			labels = normalize(criteria.getLabels());
+			logLevels = normalize(criteria.getLogLevels());
+			originServices = normalize(criteria.getOriginServices());
+			keywords = normalize(criteria.getMessageKeywords());
+			start = criteria.getStart();
+			end = criteria.getEnd();
+			this.limit = limit < 0 ? -1 : limit;
+			this.direction = direction;
+			int h = Arrays.hashCode(labels);
+			h = 31 * h + Arrays.hashCode(logLevels);
+			h = 31 * h + Arrays.hashCode(originServices);
+			h = 31 * h + Arrays.hashCode(keywords);
+			h = 31 * h + (int) (start ^ (start >>> 32));
+			h = 31 * h + (int) (end ^ (end >>> 32));
+			h = 31 * h + this.limit;
+			hash = 31 * h + direction.hashCode();
+		}
+
+		/**
+		 * @return true if saving or removing the logEntry could change the
+		 *         result of the query
+		 */
+		boolean affectedBy(LogEntry entry) {
+			long created = entry.getCreated();
+			if ((0L != start && created <= start) || (0L != end && created >= end)) {
+				return false;
+			}
+			// keywords may be matched case insensitively by the DAO, any
+			// logEntry within the range is assumed to match them
+			return contains(logLevels, entry.getLogLevel()) && contains(originServices, entry.getOriginService())
+					&& containsAny(labels, entry.getLabels());
+		}
+
+		private static <A extends Comparable<? super A>> A[] normalize(A[] values) {
+			if (null == values || values.length == 0) {
+				return null;
+			}
+			A[] sorted = values.clone();
+			int count = 0;
+			Arrays.sort(sorted, new Comparator<A>() {
+				@Override
+				public int compare(A a, A b) {
+					return null == a ? (null == b ? 0 : -1) : (null == b ? 1 : a.compareTo(b));
+				}
+			});
+			for (int i = 0; i < sorted.length; i++) {
+				if (count == 0 || !equals(sorted[count - 1], sorted[i])) {
+					sorted[count++] = sorted[i];
+				}
+			}
+			return Arrays.copyOf(sorted, count);
+		}
+
+		private static boolean contains(Object[] values, Object value) {
+			if (null == values) {
+				return true;
+			}
+			for (Object candidate : values) {
+				if (equals(candidate, value)) {
+					return true;
+				}
+			}
+			return false;
+		}
+
+		private static boolean containsAny(Object[] values, Object[] entryValues) {
+			if (null == values) {
+				return true;
+			}
+			if (null != entryValues) {
+				for (Object value : entryValues) {
+					if (contains(values, value)) {
+						return true;
+					}
+				}
+			}
+			return false;
+		}
+
+		private static boolean equals(Object a, Object b) {
+			return null == a ? null == b : a.equals(b);
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof Key)) {
+				return false;
+			}
+			Key other = (Key) obj;
+			return hash == other.hash && start == other.start && end == other.end && limit == other.limit
+					&& direction == other.direction
+					&& Arrays.equals(labels, other.labels) && Arrays.equals(logLevels, other.logLevels)
+					&& Arrays.equals(originServices, other.originServices) && Arrays.equals(keywords, other.keywords);
+		}
+
+	}
+
+}
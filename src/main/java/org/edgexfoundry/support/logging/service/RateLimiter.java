@@ -0,0 +1,286 @@
+/*******************************************************************************
+ * Copyright 2016-2017 Dell Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * @microservice:  support-logging
+ * @author: Jude Hung, Dell
+ * @version: 1.0.0
+ *******************************************************************************/
+package org.edgexfoundry.support.logging.service;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.PostConstruct;
+
+import org.edgexfoundry.support.domain.logging.LogEntry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.event.Level;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Per-originService token buckets limiting the rate logEntries are accepted
+ * at. While the bucket of an originService is exhausted, its ERROR and WARN
+ * logEntries are still kept, while the less severe ones are sampled down to
+ * one of every logging.ratelimit.sample. Dropped logEntries are counted per
+ * originService.
+ * 
+ * A bucket idle long enough to have refilled is in the state a new one would
+ * start in, so such buckets are expired once logging.ratelimit.max.buckets
+ * originServices have one, and their dropped counts are only kept in the
+ * total. originServices beyond that many active ones share a single bucket
+ * at the default rate.
+ */
+@Component
+public class RateLimiter implements MetricsProvider {
+
+	private final static Logger logger = LoggerFactory.getLogger(RateLimiter.class);
+
+	// default number of logEntries per second each originService is allowed,
+	// 0 to disable rate limiting
+	@Value("${logging.ratelimit.rate:0}")
+	private double rate;
+
+	// number of logEntries an originService can send at once after being idle
+	@Value("${logging.ratelimit.burst:0}")
+	private long burst;
+
+	// keep one of every N low-severity logEntries while the bucket is exhausted
+	@Value("${logging.ratelimit.sample:10}")
+	private int sample;
+
+	// per-originService rates overriding the default, e.g. "svc1:100,svc2:50"
+	@Value("${logging.ratelimit.rates:}")
+	private String rateOverrides;
+
+	// originServices having a bucket of their own
+	@Value("${logging.ratelimit.max.buckets:10000}")
+	private int maxBuckets;
+
+	private final Map<String, Double> rates = new ConcurrentHashMap<String, Double>();
+
+	private final ConcurrentMap<String, Bucket> buckets = new ConcurrentHashMap<String, Bucket>();
+
+	private final AtomicLong dropped = new AtomicLong();
+
+	// shared by the originServices beyond maxBuckets
+	private volatile Bucket overflow;
+
+	// nanoTime of the last expiry of idle buckets
+	private final AtomicLong swept = new AtomicLong(Long.MIN_VALUE);
+
+	public RateLimiter() {
+	}
+
+	RateLimiter(double rate, long burst, int sample, String rateOverrides) {
+		this(rate, burst, sample, rateOverrides, 10000);
+	}
+
+	RateLimiter(double rate, long burst, int sample, String rateOverrides, int maxBuckets) {
+		this.maxBuckets = maxBuckets;
+		this.rate = rate;
+		this.burst = burst;
+		this.sample = sample;
+		this.rateOverrides = rateOverrides;
+		init();
+	}
+
+	@PostConstruct
+	public void init() {
+		if (sample < 1) {
+			sample = 1;
+		}
+		if (null == rateOverrides || rateOverrides.trim().isEmpty()) {
+			return;
+		}
+		for (String override : rateOverrides.split(",")) {
+			int separator = override.lastIndexOf(':');
+			try {
+				rates.put(override.substring(0, separator).trim(),
+						Double.valueOf(override.substring(separator + 1).trim()));
+			} catch (RuntimeException e) {
+				logger.error("Ignoring malformed rate limit: " + override);
+			}
+		}
+	}
+
+	/**
+	 * @param entry - logEntry being received
+	 * @return true if the logEntry is to be kept, false if it has been dropped
+	 */
+	public boolean accept(LogEntry entry) {
+		String originService = null == entry.getOriginService() ? "" : entry.getOriginService();
+		Bucket bucket = buckets.get(originService);
+		if (null == bucket) {
+			Double serviceRate = rates.get(originService);
+			double bucketRate = null == serviceRate ? rate : serviceRate;
+			if (bucketRate <= 0) {
+				return true;
+			}
+			bucket = bucket(originService, bucketRate);
+			if (null == bucket) {
+				return true;
+			}
+		}
+		if (bucket.tryAcquire(now()) || isSevere(entry.getLogLevel()) || bucket.sample(sample)) {
+			return true;
+		}
+		bucket.dropped.incrementAndGet();
+		dropped.incrementAndGet();
+		return false;
+	}
+
+	private Bucket bucket(String originService, double bucketRate) {
+		if (buckets.size() >= maxBuckets && !expireIdle()) {
+			return overflow();
+		}
+		Bucket created = new Bucket(bucketRate, Math.max(burst, (long) Math.ceil(bucketRate)));
+		Bucket bucket = buckets.putIfAbsent(originService, created);
+		return null == bucket ? created : bucket;
+	}
+
+	/**
+	 * Remove the buckets idle long enough to have refilled, at most once a
+	 * second so a full map isn't scanned for every new originService.
+	 * 
+	 * @return true if there is room for another bucket
+	 */
+	private boolean expireIdle() {
+		long now = now();
+		long last = swept.get();
+		if ((Long.MIN_VALUE == last || now - last >= TimeUnit.SECONDS.toNanos(1)) && swept.compareAndSet(last, now)) {
+			for (Map.Entry<String, Bucket> entry : buckets.entrySet()) {
+				if (entry.getValue().isRefilled(now)) {
+					buckets.remove(entry.getKey(), entry.getValue());
+				}
+			}
+		}
+		return buckets.size() < maxBuckets;
+	}
+
+	private Bucket overflow() {
+		if (null == overflow && rate > 0) {
+			synchronized (this) {
+				if (null == overflow) {
+					overflow = new Bucket(rate, Math.max(burst, (long) Math.ceil(rate)));
+				}
+			}
+		}
+		return overflow;
+	}
+
+	/**
+	 * Remove from the list, in place, the logEntries dropped by their
+	 * originService bucket.
+	 * 
+	 * @param entries - logEntries being received
+	 */
+	public void filter(List<LogEntry> entries) {
+		if (rate <= 0 && rates.isEmpty()) {
+			return;
+		}
+		for (Iterator<LogEntry> iterator = entries.iterator(); iterator.hasNext();) {
+			if (!accept(iterator.next())) {
+				iterator.remove();
+			}
+		}
+	}
+
+	/**
+	 * @return number of logEntries dropped, keyed by originService
+	 */
+	public Map<String, Long> getDroppedCounts() {
+		Map<String, Long> result = new TreeMap<String, Long>();
+		for (Map.Entry<String, Bucket> entry : buckets.entrySet()) {
+			result.put(entry.getKey(), entry.getValue().dropped.get());
+		}
+		return result;
+	}
+
+	public long getDroppedCount() {
+		return dropped.get();
+	}
+
+	@Override
+	public String getMetricsName() {
+		return "rateLimits";
+	}
+
+	@Override
+	public Map<String, Object> getMetrics() {
+		Map<String, Object> metrics = new LinkedHashMap<String, Object>();
+		metrics.put("droppedLogEntries", dropped.get());
+		metrics.put("droppedByOriginService", getDroppedCounts());
+		return metrics;
+	}
+
+	protected long now() {
+		return System.nanoTime();
+	}
+
+	private boolean isSevere(Level logLevel) {
+		return Level.ERROR == logLevel || Level.WARN == logLevel;
+	}
+
+	private class Bucket {
+
+		private final double tokensPerNano;
+
+		private final double capacity;
+
+		private double tokens;
+
+		private long refilled;
+
+		private final AtomicLong sampled = new AtomicLong();
+
+		private final AtomicLong dropped = new AtomicLong();
+
+		Bucket(double rate, long capacity) {
+			this.tokensPerNano = rate / TimeUnit.SECONDS.toNanos(1);
+			this.capacity = capacity;
+			this.tokens = capacity;
+			this.refilled = now();
+		}
+
+		synchronized boolean tryAcquire(long now) {
+			tokens = Math.min(capacity, tokens + (now - refilled) * tokensPerNano);
+			refilled = now;
+			if (tokens >= 1) {
+				tokens -= 1;
+				return true;
+			}
+			return false;
+		}
+
+		synchronized boolean isRefilled(long now) {
+			return tokens + (now - refilled) * tokensPerNano >= capacity;
+		}
+
+		boolean sample(int sample) {
+			return sampled.getAndIncrement() % sample == 0;
+		}
+
+	}
+
+}
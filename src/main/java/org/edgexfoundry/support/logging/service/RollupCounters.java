@@ -0,0 +1,426 @@
+/*******************************************************************************
+ * Copyright 2016-2017 Dell Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * @microservice:  support-logging
+ * @author: Jude Hung, Dell
+ * @version: 1.0.0
+ *******************************************************************************/
+package org.edgexfoundry.support.logging.service;
+
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.LongUnaryOperator;
+
+import javax.annotation.PostConstruct;
+
+import org.edgexfoundry.support.domain.logging.LogEntry;
+import org.edgexfoundry.support.domain.logging.MatchCriteria;
+import org.edgexfoundry.support.logging.dao.LogEntryDAO;
+import org.edgexfoundry.support.logging.dao.LogEntryExpiryListener;
+import org.edgexfoundry.support.logging.dao.LogEntryRetention;
+import org.edgexfoundry.support.logging.dao.RepeatedLogEntry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.event.Level;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.util.CloseableIterator;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Counters of the persisted logEntries per time bucket, originService and
+ * logLevel, incremented as logEntries are saved and decremented as they are
+ * removed, so counts and histograms are answered without reading any
+ * logEntry. Buckets are kept at two sizes, logging.rollup.bucket and
+ * COARSE_FACTOR times that, and a count reads the coarse buckets a range
+ * covers and the fine ones only at its edges. A repeated logEntry counts as
+ * many times as it repeated, in the bucket of its first occurrence.
+ * 
+ * Counters live in memory and are rebuilt when the service starts from the
+ * logEntries of the window the coarse buckets keep. Once more than
+ * logging.rollup.max.buckets buckets of a size exist the oldest are dropped,
+ * and ranges reaching before them are undercounted. logEntries a persistence
+ * drops by itself (a rolled out segment or log file) are decremented as they
+ * are reported; with a retention per logLevel instead (MongoDB's TTL index)
+ * the counts of a logLevel are cleared from the buckets entirely past it, so
+ * a bucket straddling the retention is counted until it has wholly expired.
+ */
+@Component
+public class RollupCounters implements MetricsProvider, LogEntryExpiryListener {
+
+	private final static Logger logger = LoggerFactory.getLogger(RollupCounters.class);
+
+	// coarse buckets span that many fine buckets
+	static final int COARSE_FACTOR = 60;
+
+	private static final Level[] LEVELS = Level.values();
+
+	// in milliseconds
+	@Value("${logging.rollup.bucket:60000}")
+	private long bucketSize;
+
+	@Value("${logging.rollup.max.buckets:10080}")
+	private int maxBuckets;
+
+	@Autowired(required = false)
+	@Qualifier("serviceDAO")
+	private LogEntryDAO logEntryDAO;
+
+	@Autowired(required = false)
+	private LogEntryRetention retention;
+
+	private Tier fine;
+
+	private Tier coarse;
+
+	/**
+	 * Buckets of one size: bucket start, originService, count per logLevel
+	 * ordinal
+	 */
+	private final class Tier {
+
+		final long size;
+
+		final ConcurrentSkipListMap<Long, ConcurrentMap<String, AtomicLongArray>> buckets = new ConcurrentSkipListMap<Long, ConcurrentMap<String, AtomicLongArray>>();
+
+		final AtomicLong dropped = new AtomicLong();
+
+		Tier(long size) {
+			this.size = size;
+		}
+
+		void adjust(long created, String originService, int ordinal, long delta) {
+			Long bucket = Long.valueOf(Math.floorDiv(created, size) * size);
+			ConcurrentMap<String, AtomicLongArray> services = buckets.get(bucket);
+			if (null == services) {
+				if (delta < 0) {// the bucket was dropped
+					return;
+				}
+				ConcurrentMap<String, AtomicLongArray> added = new ConcurrentHashMap<String, AtomicLongArray>();
+				services = buckets.putIfAbsent(bucket, added);
+				if (null == services) {
+					services = added;
+					while (buckets.size() > maxBuckets && null != buckets.pollFirstEntry()) {
+						dropped.incrementAndGet();
+					}
+				}
+			}
+			AtomicLongArray counts = services.get(originService);
+			if (null == counts) {
+				AtomicLongArray added = new AtomicLongArray(LEVELS.length);
+				counts = services.putIfAbsent(originService, added);
+				if (null == counts) {
+					counts = added;
+				}
+			}
+			if (delta < 0) {// the count may have been cleared on expiry
+				final long removed = delta;
+				counts.updateAndGet(ordinal, new LongUnaryOperator() {
+					@Override
+					public long applyAsLong(long count) {
+						return Math.max(0L, count + removed);
+					}
+				});
+			} else {
+				counts.addAndGet(ordinal, delta);
+			}
+		}
+
+		/**
+		 * Clear the counts of the logLevel from the buckets ending at or
+		 * before expiredBefore, and drop the buckets left empty
+		 */
+		void expire(int ordinal, long expiredBefore) {
+			NavigableMap<Long, ConcurrentMap<String, AtomicLongArray>> expired = buckets.headMap(expiredBefore - size,
+					true);
+			for (Map.Entry<Long, ConcurrentMap<String, AtomicLongArray>> bucket : expired.entrySet()) {
+				boolean empty = true;
+				for (AtomicLongArray counts : bucket.getValue().values()) {
+					counts.set(ordinal, 0L);
+					for (int i = 0; empty && i < counts.length(); i++) {
+						empty = counts.get(i) == 0L;
+					}
+				}
+				if (empty) {
+					buckets.remove(bucket.getKey(), bucket.getValue());
+				}
+			}
+		}
+
+		/**
+		 * Add the counts of the buckets from inclusive to to exclusive into
+		 * result
+		 */
+		void sum(long from, long to, String[] originServices, Level[] logLevels,
+				Map<String, Map<Level, Long>> result) {
+			if (from >= to) {
+				return;
+			}
+			for (ConcurrentMap<String, AtomicLongArray> services : buckets.subMap(from, true, to, false).values()) {
+				sum(services, originServices, logLevels, result);
+			}
+		}
+
+		void sum(ConcurrentMap<String, AtomicLongArray> services, String[] originServices, Level[] logLevels,
+				Map<String, Map<Level, Long>> result) {
+			if (null == originServices || originServices.length == 0) {
+				for (Map.Entry<String, AtomicLongArray> service : services.entrySet()) {
+					sum(service.getKey(), service.getValue(), logLevels, result);
+				}
+			} else {
+				for (String originService : originServices) {
+					AtomicLongArray counts = services.get(key(originService));
+					if (null != counts) {
+						sum(key(originService), counts, logLevels, result);
+					}
+				}
+			}
+		}
+
+		void sum(String originService, AtomicLongArray counts, Level[] logLevels,
+				Map<String, Map<Level, Long>> result) {
+			for (Level level : null == logLevels || logLevels.length == 0 ? LEVELS : logLevels) {
+				long count = counts.get(level.ordinal());
+				if (count > 0) {
+					Map<Level, Long> levels = result.get(originService);
+					if (null == levels) {
+						levels = new EnumMap<Level, Long>(Level.class);
+						result.put(originService, levels);
+					}
+					Long previous = levels.get(level);
+					levels.put(level, null == previous ? count : previous + count);
+				}
+			}
+		}
+
+	}
+
+	public RollupCounters() {
+	}
+
+	RollupCounters(long bucketSize, int maxBuckets) {
+		this(bucketSize, maxBuckets, null);
+	}
+
+	RollupCounters(long bucketSize, int maxBuckets, LogEntryRetention retention) {
+		this.bucketSize = bucketSize;
+		this.maxBuckets = maxBuckets;
+		this.retention = retention;
+		initTiers();
+	}
+
+	@PostConstruct
+	private void init() {
+		initTiers();
+		if (null == logEntryDAO) {
+			return;
+		}
+		long begin = System.currentTimeMillis();
+		long counted = 0;
+		CloseableIterator<LogEntry> entries = null;
+		try {
+			// older logEntries would only fill buckets dropped right away
+			MatchCriteria window = new MatchCriteria();
+			window.setStart(Math.max(0L, Math.floorDiv(begin, coarse.size) * coarse.size
+					- (maxBuckets - 1) * coarse.size - 1));
+			entries = logEntryDAO.streamByCriteria(window);
+			while (entries.hasNext()) {
+				add(entries.next());
+				counted++;
+			}
+			logger.info("Rollup counters rebuilt from {} logEntries in {} ms", counted,
+					System.currentTimeMillis() - begin);
+		} catch (Exception e) {
+			logger.error("Error rebuilding rollup counters, counts are incomplete:", e);
+		} finally {
+			if (null != entries) {
+				entries.close();
+			}
+		}
+	}
+
+	private void initTiers() {
+		fine = new Tier(bucketSize);
+		coarse = new Tier(bucketSize * COARSE_FACTOR);
+	}
+
+	public long getBucketSize() {
+		return bucketSize;
+	}
+
+	/**
+	 * @param entry - logEntry persisted
+	 */
+	public void add(LogEntry entry) {
+		adjust(entry, 1);
+	}
+
+	public void addAll(Collection<LogEntry> entries) {
+		for (LogEntry entry : entries) {
+			adjust(entry, 1);
+		}
+	}
+
+	/**
+	 * @param entries - logEntries removed from the persistence
+	 */
+	public void removeAll(Collection<LogEntry> entries) {
+		for (LogEntry entry : entries) {
+			adjust(entry, -1);
+		}
+	}
+
+	/**
+	 * @param entries - logEntries the persistence dropped by itself
+	 */
+	@Override
+	public void expired(Collection<LogEntry> entries) {
+		removeAll(entries);
+	}
+
+	/**
+	 * Count the logEntries of the buckets from the one holding start to the
+	 * one holding end
+	 * 
+	 * @param start - 0 for no lower bound
+	 * @param end - 0 for no upper bound
+	 * @param originServices - originServices to count, null or empty for all
+	 * @param logLevels - logLevels to count, null or empty for all
+	 * @return counts per originService and logLevel, zero counts left out
+	 */
+	public Map<String, Map<Level, Long>> count(long start, long end, String[] originServices, Level[] logLevels) {
+		Map<String, Map<Level, Long>> result = new TreeMap<String, Map<Level, Long>>();
+		long from = 0L == start ? Long.MIN_VALUE : Math.floorDiv(start, bucketSize) * bucketSize;
+		long to = 0L == end ? Long.MAX_VALUE : ceil(end, bucketSize);
+		// whole coarse buckets in the middle, fine buckets at the edges
+		long coarseFrom = Long.MIN_VALUE == from ? from : ceil(from, coarse.size);
+		long coarseTo = Long.MAX_VALUE == to ? to : Math.floorDiv(to, coarse.size) * coarse.size;
+		if (coarseFrom < coarseTo) {
+			fine.sum(from, coarseFrom, originServices, logLevels, result);
+			coarse.sum(coarseFrom, coarseTo, originServices, logLevels, result);
+			fine.sum(coarseTo, to, originServices, logLevels, result);
+		} else {
+			fine.sum(from, to, originServices, logLevels, result);
+		}
+		return result;
+	}
+
+	/**
+	 * Count the logEntries of the buckets from the one holding start to the
+	 * one holding end, per interval
+	 * 
+	 * @param start - 0 for no lower bound
+	 * @param end - 0 for no upper bound
+	 * @param interval - multiple of the bucket size, in milliseconds
+	 * @param originServices - originServices to count, null or empty for all
+	 * @param logLevels - logLevels to count, null or empty for all
+	 * @return counts per originService and logLevel keyed by interval start,
+	 *         intervals without logEntries left out
+	 * @throws IllegalArgumentException
+	 *             if the interval isn't a multiple of the bucket size
+	 */
+	public SortedMap<Long, Map<String, Map<Level, Long>>> histogram(long start, long end, long interval,
+			String[] originServices, Level[] logLevels) {
+		if (interval <= 0 || interval % bucketSize != 0) {
+			throw new IllegalArgumentException("Interval must be a multiple of " + bucketSize + " ms");
+		}
+		Tier tier = interval % coarse.size == 0 ? coarse : fine;
+		long from = 0L == start ? Long.MIN_VALUE : Math.floorDiv(start, tier.size) * tier.size;
+		long to = 0L == end ? Long.MAX_VALUE : ceil(end, tier.size);
+		SortedMap<Long, Map<String, Map<Level, Long>>> result = new TreeMap<Long, Map<String, Map<Level, Long>>>();
+		NavigableMap<Long, ConcurrentMap<String, AtomicLongArray>> buckets = tier.buckets.subMap(from, true, to,
+				false);
+		for (Map.Entry<Long, ConcurrentMap<String, AtomicLongArray>> bucket : buckets.entrySet()) {
+			Long key = Long.valueOf(Math.floorDiv(bucket.getKey(), interval) * interval);
+			Map<String, Map<Level, Long>> counts = result.get(key);
+			if (null == counts) {
+				counts = new TreeMap<String, Map<Level, Long>>();
+			}
+			tier.sum(bucket.getValue(), originServices, logLevels, counts);
+			if (!counts.isEmpty()) {
+				result.put(key, counts);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Forget the logEntries the persistence has expired
+	 */
+	@Scheduled(fixedDelayString = "${logging.rollup.bucket:60000}")
+	public void expire() {
+		expire(System.currentTimeMillis());
+	}
+
+	void expire(long now) {
+		if (null == retention) {
+			return;
+		}
+		for (Level level : LEVELS) {
+			long kept = retention.getRetention(level);
+			if (kept > 0) {
+				fine.expire(level.ordinal(), now - kept);
+				coarse.expire(level.ordinal(), now - kept);
+			}
+		}
+	}
+
+	@Override
+	public String getMetricsName() {
+		return "rollups";
+	}
+
+	@Override
+	public Map<String, Object> getMetrics() {
+		Map<String, Object> metrics = new LinkedHashMap<String, Object>();
+		metrics.put("bucketSize", bucketSize);
+		metrics.put("buckets", fine.buckets.size());
+		metrics.put("coarseBuckets", coarse.buckets.size());
+		metrics.put("droppedBuckets", fine.dropped.get() + coarse.dropped.get());
+		return metrics;
+	}
+
+	private void adjust(LogEntry entry, long sign) {
+		if (null == entry.getLogLevel()) {
+			return;
+		}
+		long delta = entry instanceof RepeatedLogEntry ? sign * ((RepeatedLogEntry) entry).getRepeatCount() : sign;
+		String originService = key(entry.getOriginService());
+		int ordinal = entry.getLogLevel().ordinal();
+		fine.adjust(entry.getCreated(), originService, ordinal, delta);
+		coarse.adjust(entry.getCreated(), originService, ordinal, delta);
+	}
+
+	private static long ceil(long value, long size) {
+		return -Math.floorDiv(-value, size) * size;
+	}
+
+	private static String key(String originService) {
+		return null == originService ? "" : originService;
+	}
+
+}
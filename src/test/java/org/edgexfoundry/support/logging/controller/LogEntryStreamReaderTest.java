@@ -0,0 +1,141 @@
+/*******************************************************************************
+ * Copyright 2016-2017 Dell Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * @microservice:  support-logging
+ * @author: Jude Hung, Dell
+ * @version: 1.0.0
+ *******************************************************************************/
+package org.edgexfoundry.support.logging.controller;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.edgexfoundry.support.domain.logging.LogEntry;
+import org.edgexfoundry.test.category.RequiresNone;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.slf4j.event.Level;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+
+@Category(RequiresNone.class)
+public class LogEntryStreamReaderTest {
+
+	private LogEntryStreamReader reader;
+
+	private List<List<LogEntry>> chunks;
+
+	private LogEntryStreamReader.ChunkHandler handler;
+
+	@Before
+	public void setUp() {
+		reader = new LogEntryStreamReader(new JsonFactory());
+		chunks = new ArrayList<List<LogEntry>>();
+		handler = new LogEntryStreamReader.ChunkHandler() {
+			@Override
+			public void handle(List<LogEntry> chunk) {
+				chunks.add(chunk);
+			}
+		};
+	}
+
+	@Test
+	public void testReadSingleEntry() throws IOException {
+		int count = read("{\"originService\":\"svc\",\"logLevel\":\"WARN\",\"labels\":[\"a\",\"b\"],"
+				+ "\"message\":\"msg\",\"created\":1,\"unknown\":{\"nested\":[1,2]}}", 10);
+		assertEquals("Expect one logEntry.", 1, count);
+		LogEntry entry = chunks.get(0).get(0);
+		assertEquals("svc", entry.getOriginService());
+		assertEquals(Level.WARN, entry.getLogLevel());
+		assertArrayEquals(new String[] { "a", "b" }, entry.getLabels());
+		assertEquals("msg", entry.getMessage());
+		assertEquals("Expect created to be assigned by the reader.", 42L, entry.getCreated());
+	}
+
+	@Test
+	public void testReadArrayInChunks() throws IOException {
+		StringBuilder body = new StringBuilder("[");
+		for (int i = 0; i < 5; i++) {
+			body.append(i > 0 ? "," : "").append("{\"logLevel\":\"INFO\",\"message\":\"m").append(i).append("\"}");
+		}
+		body.append("]");
+		int count = read(body.toString(), 2);
+		assertEquals("Expect five logEntries.", 5, count);
+		assertEquals("Expect three chunks.", 3, chunks.size());
+		assertEquals(2, chunks.get(0).size());
+		assertEquals(1, chunks.get(2).size());
+		assertEquals("m4", chunks.get(2).get(0).getMessage());
+		assertNull(chunks.get(2).get(0).getLabels());
+	}
+
+	@Test
+	public void testReadEmptyArray() throws IOException {
+		assertEquals(0, read("[]", 2));
+		assertEquals(0, chunks.size());
+	}
+
+	@Test(expected = JsonParseException.class)
+	public void testReadMissingLevel() throws IOException {
+		read("[{\"message\":\"m\"}]", 2);
+	}
+
+	@Test(expected = JsonParseException.class)
+	public void testReadUnknownLevel() throws IOException {
+		read("[{\"logLevel\":\"FATAL\",\"message\":\"m\"}]", 2);
+	}
+
+	@Test(expected = JsonParseException.class)
+	public void testReadTruncated() throws IOException {
+		read("[{\"logLevel\":\"INFO\",\"message\":\"m\"},", 2);
+	}
+
+	@Test(expected = JsonParseException.class)
+	public void testReadTruncatedEntry() throws IOException {
+		read("{\"logLevel\":\"INFO\"", 2);
+	}
+
+	@Test(expected = JsonParseException.class)
+	public void testReadTruncatedLabels() throws IOException {
+		read("{\"logLevel\":\"INFO\",\"labels\":[\"a\"", 2);
+	}
+
+	@Test
+	public void testReadStructuredValues() throws IOException {
+		int count = read("[{\"logLevel\":\"INFO\",\"labels\":[\"a\",{\"message\":\"x\"},[\"b\",[\"c\"]],\"d\"],"
+				+ "\"originService\":{\"logLevel\":\"ERROR\"},\"message\":[\"m\"]},"
+				+ "{\"logLevel\":\"WARN\",\"message\":\"next\"}]", 2);
+		assertEquals("Expect nested values not to be taken for logEntries or fields.", 2, count);
+		LogEntry entry = chunks.get(0).get(0);
+		assertEquals(Level.INFO, entry.getLogLevel());
+		assertArrayEquals(new String[] { "a", "d" }, entry.getLabels());
+		assertNull(entry.getOriginService());
+		assertNull(entry.getMessage());
+		assertEquals("next", chunks.get(0).get(1).getMessage());
+	}
+
+	private int read(String body, int chunkSize) throws IOException {
+		return reader.read(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)), 42L, chunkSize, handler);
+	}
+
+}
@@ -19,12 +19,18 @@
  *******************************************************************************/
 package org.edgexfoundry.support.logging.controller.integration.web;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
 import java.lang.reflect.Field;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 
+import org.edgexfoundry.exception.controller.LimitExceededException;
 import org.edgexfoundry.support.logging.controller.LoggingController;
 import org.edgexfoundry.support.logging.dao.LogEntryDAO;
 import org.edgexfoundry.support.logging.dao.MDC_ENUM_CONSTANTS;
@@ -43,6 +49,7 @@ import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.HttpMessageNotReadableException;
 import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
 import org.springframework.test.context.web.WebAppConfiguration;
 
@@ -91,6 +98,30 @@ public class LoggingControllerTest {
 		verifyAddLogEntry(entry);
 	}
 	
+	@Test(expected = LimitExceededException.class)
+	public void testAddLogEntriesLimit() throws Exception {
+		changeControllerMaxBatch(2);
+		try {
+			controller.addLogEntries(buildBody(3));
+		} finally {
+			changeControllerMaxBatch(1000);
+		}
+	}
+
+	@Test
+	public void testAddLogEntriesMalformed() throws Exception {
+		String body = "[{\"logLevel\":\"INFO\",\"originService\":\"batchService\"},{\"logLevel\":\"NONE\"}]";
+		try {
+			controller.addLogEntries(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)));
+			fail("Expect a malformed body to be rejected.");
+		} catch (HttpMessageNotReadableException e) {
+			// expected
+		}
+		Thread.sleep(3000);
+		assertEquals("Expect no logEntry of a rejected body to be persisted.", 0,
+				mongoTemplate.count(new Query(Criteria.where(MDC_ENUM_CONSTANTS.ORIGINSERVICE.getValue()).is("batchService")), LogEntry.class));
+	}
+
 	//TODO @Test
 	public void testGetLogEntries() throws InterruptedException {		
 		LogEntry debug = buildLogEntry("debugService", Level.DEBUG, new String[]{"debug1", "debug2"}, "test log message for debug.");
@@ -103,7 +134,7 @@ public class LoggingControllerTest {
 		verifyAddLogEntry(warn);
 		verifyAddLogEntry(error);
 		verifyAddLogEntry(trace);
-		List<LogEntry> logEntries = controller.getLogEntries(10);
+		List<LogEntry> logEntries = controller.getLogEntries(10, "asc");
 		assertTrue("Expect 5 but got " + logEntries.size() + " logEntries.", logEntries.size()==5);
 	}
 	
@@ -168,6 +199,21 @@ public class LoggingControllerTest {
 		
 	}*/
 	
+	private InputStream buildBody(int count) {
+		StringBuilder body = new StringBuilder("[");
+		for (int i = 0; i < count; i++) {
+			body.append(i == 0 ? "" : ",").append("{\"logLevel\":\"INFO\",\"originService\":\"batchService\"}");
+		}
+		return new ByteArrayInputStream(body.append("]").toString().getBytes(StandardCharsets.UTF_8));
+	}
+
+	// use Java reflection to change controller's batch limit
+	private void changeControllerMaxBatch(int maxBatch) throws Exception {
+		Field temp = controller.getClass().getDeclaredField("MAX_BATCH");
+		temp.setAccessible(true);
+		temp.set(controller, maxBatch);
+	}
+
 	// use Java reflection to change service's DAO
 	private void changeControllerService(boolean isReset) throws Exception {
 		Class<?> controllerClass = controller.getClass();
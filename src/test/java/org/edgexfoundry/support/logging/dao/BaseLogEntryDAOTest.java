@@ -0,0 +1,176 @@
+/*******************************************************************************
+ * Copyright 2016-2017 Dell Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * @microservice:  support-logging
+ * @author: Jude Hung, Dell
+ * @version: 1.0.0
+ *******************************************************************************/
+package org.edgexfoundry.support.logging.dao;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.reflect.Field;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.edgexfoundry.support.domain.logging.LogEntry;
+import org.edgexfoundry.support.domain.logging.MatchCriteria;
+import org.edgexfoundry.test.category.RequiresNone;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.slf4j.event.Level;
+import org.springframework.data.domain.Sort.Direction;
+import org.springframework.data.util.CloseableIterator;
+
+/**
+ * Concurrent saves through BaseLogEntryDAO against a persistence that only
+ * counts, with the echo thread held up in the logger.
+ */
+@Category(RequiresNone.class)
+public class BaseLogEntryDAOTest {
+
+	private static final int THREADS = 8;
+
+	private static final int SAVES = 2000;
+
+	// ECHO_QUEUE_CAPACITY of BaseLogEntryDAO
+	private static final int ECHO_QUEUE_CAPACITY = 10000;
+
+	private CountingLogEntryDAO logEntryDAO;
+
+	@Before
+	public void setUp() throws Exception {
+		logEntryDAO = new CountingLogEntryDAO();
+		setField("ECHO", true);
+		setField("ADD_COLOR", true);
+	}
+
+	@Test
+	public void testSavesDontWaitOnEcho() throws Exception {
+		final CountDownLatch echoing = new CountDownLatch(1);
+		final CountDownLatch release = new CountDownLatch(1);
+		// holds the echo thread in the logger until released
+		LogEntry blocking = new LogEntry() {
+			@Override
+			public String getMessage() {
+				echoing.countDown();
+				try {
+					release.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				return "blocking";
+			}
+		};
+		blocking.setOriginService("blockingService");
+		blocking.setLogLevel(Level.INFO);
+		try {
+			assertTrue(logEntryDAO.save(blocking));
+			assertTrue("Expect the echo thread to take the logEntry.", echoing.await(10, TimeUnit.SECONDS));
+			final AtomicInteger loggable = new AtomicInteger();
+			final CountDownLatch go = new CountDownLatch(1);
+			ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+			for (int t = 0; t < THREADS; t++) {
+				final String originService = "service" + t;
+				pool.execute(new Runnable() {
+					@Override
+					public void run() {
+						try {
+							go.await();
+						} catch (InterruptedException e) {
+							Thread.currentThread().interrupt();
+							return;
+						}
+						for (int n = 0; n < SAVES; n++) {
+							if (logEntryDAO.save(buildLogEntry(originService, "concurrent save " + n)))
+								loggable.incrementAndGet();
+						}
+					}
+				});
+			}
+			go.countDown();
+			pool.shutdown();
+			assertTrue("Expect concurrent saves to complete while the echo is held up.",
+					pool.awaitTermination(30, TimeUnit.SECONDS));
+			assertEquals(THREADS * SAVES, loggable.get());
+			assertEquals(THREADS * SAVES + 1, logEntryDAO.saved.get());
+			assertEquals("Expect echoes beyond the queue capacity to be dropped.",
+					THREADS * SAVES - ECHO_QUEUE_CAPACITY, logEntryDAO.getDroppedEchoes());
+		} finally {
+			release.countDown();
+		}
+	}
+
+	private void setField(String name, Object value) throws Exception {
+		Field field = BaseLogEntryDAO.class.getDeclaredField(name);
+		field.setAccessible(true);
+		field.set(logEntryDAO, value);
+	}
+
+	private LogEntry buildLogEntry(String originService, String message) {
+		LogEntry entry = new LogEntry();
+		entry.setCreated(System.currentTimeMillis());
+		entry.setOriginService(originService);
+		entry.setLogLevel(Level.INFO);
+		entry.setMessage(message);
+		return entry;
+	}
+
+	private static class CountingLogEntryDAO extends BaseLogEntryDAO {
+
+		private final AtomicInteger saved = new AtomicInteger();
+
+		@Override
+		public boolean save(LogEntry entry) {
+			boolean result = super.save(entry);
+			if (result)
+				saved.incrementAndGet();
+			return result;
+		}
+
+		@Override
+		public List<LogEntry> findByCriteria(MatchCriteria criteria, int limit) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public List<LogEntry> findByCriteria(MatchCriteria criteria, int limit, Direction direction) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public LogEntryPage findPageByCriteria(MatchCriteria criteria, int limit, String cursor) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public CloseableIterator<LogEntry> streamByCriteria(MatchCriteria criteria) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public List<LogEntry> removeByCriteria(MatchCriteria criteria) {
+			throw new UnsupportedOperationException();
+		}
+
+	}
+
+}
@@ -0,0 +1,124 @@
+/*******************************************************************************
+ * Copyright 2016-2017 Dell Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * @microservice:  support-logging
+ * @author: Jude Hung, Dell
+ * @version: 1.0.0
+ *******************************************************************************/
+package org.edgexfoundry.support.logging.dao;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.BitSet;
+import java.util.Random;
+
+import org.edgexfoundry.test.category.RequiresNone;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+@Category(RequiresNone.class)
+public class CompressedBitmapTest {
+
+	@Test
+	public void testAgainstBitSet() {
+		Random random = new Random(42);
+		// sparse, dense and empty containers
+		int[] ranges = { 200000, 9000, 70000 };
+		for (int range : ranges) {
+			CompressedBitmap a = new CompressedBitmap();
+			CompressedBitmap b = new CompressedBitmap();
+			BitSet expectedA = new BitSet();
+			BitSet expectedB = new BitSet();
+			for (int i = 0; i < 8000; i++) {
+				int value = random.nextInt(range);
+				a.add(value);
+				expectedA.set(value);
+				value = random.nextInt(range);
+				b.add(value);
+				expectedB.set(value);
+			}
+			for (int i = 0; i < 3000; i++) {
+				int value = random.nextInt(range);
+				a.remove(value);
+				expectedA.clear(value);
+			}
+			assertSame(expectedA, a);
+			BitSet expectedOr = (BitSet) expectedA.clone();
+			expectedOr.or(expectedB);
+			assertSame(expectedOr, CompressedBitmap.or(a, b));
+			BitSet expectedAnd = (BitSet) expectedA.clone();
+			expectedAnd.and(expectedB);
+			assertSame(expectedAnd, CompressedBitmap.and(a, b));
+		}
+	}
+
+	@Test
+	public void testAddRange() {
+		Random random = new Random(42);
+		CompressedBitmap bitmap = new CompressedBitmap();
+		BitSet expected = new BitSet();
+		for (int i = 0; i < 2000; i++) {
+			int value = random.nextInt(300000);
+			bitmap.add(value);
+			expected.set(value);
+		}
+		// within an array container, growing one into a bitmap, across containers
+		int[][] ranges = { { 10, 20 }, { 70000, 74000 }, { 100000, 110000 }, { 60000, 200000 }, { 5, 5 },
+				{ 250000, 262144 } };
+		for (int[] range : ranges) {
+			bitmap.addRange(range[0], range[1]);
+			expected.set(range[0], range[1]);
+			assertSame(expected, bitmap);
+		}
+		bitmap.add(300001);
+		bitmap.add(25);
+		bitmap.remove(150000);
+		expected.set(300001);
+		expected.set(25);
+		expected.clear(150000);
+		assertSame(expected, bitmap);
+	}
+
+	@Test
+	public void testEmpty() {
+		CompressedBitmap bitmap = new CompressedBitmap();
+		assertTrue(bitmap.isEmpty());
+		assertEquals(-1, bitmap.nextSetBit(0));
+		assertEquals(-1, bitmap.previousSetBit(100));
+		bitmap.add(5);
+		bitmap.remove(5);
+		assertTrue(bitmap.isEmpty());
+		assertTrue(CompressedBitmap.and(bitmap, bitmap).isEmpty());
+	}
+
+	private void assertSame(BitSet expected, CompressedBitmap actual) {
+		assertEquals(expected.cardinality(), actual.cardinality());
+		int value = actual.nextSetBit(0);
+		for (int bit = expected.nextSetBit(0); bit >= 0; bit = expected.nextSetBit(bit + 1)) {
+			assertEquals(bit, value);
+			assertTrue(actual.contains(bit));
+			value = actual.nextSetBit(value + 1);
+		}
+		assertEquals(-1, value);
+		value = actual.previousSetBit(Integer.MAX_VALUE);
+		for (int bit = expected.previousSetBit(expected.length()); bit >= 0; bit = expected.previousSetBit(bit - 1)) {
+			assertEquals(bit, value);
+			value = actual.previousSetBit(value - 1);
+		}
+		assertEquals(-1, value);
+	}
+
+}
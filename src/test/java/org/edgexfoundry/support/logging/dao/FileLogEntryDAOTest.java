@@ -19,6 +19,7 @@
  *******************************************************************************/
 package org.edgexfoundry.support.logging.dao;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
@@ -28,7 +29,9 @@ import java.io.FileNotFoundException;
 import java.io.FileReader;
 import java.io.IOException;
 
+import org.junit.Test;
 import org.junit.experimental.categories.Category;
+import org.slf4j.event.Level;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.test.context.TestPropertySource;
 
@@ -51,6 +54,19 @@ public class FileLogEntryDAOTest extends LogEntryDAOTest {
 		logEntryDAO.removeByCriteria(criteria);
     }
 
+	@Test
+	public void testRemoveRepeated() {
+		RepeatedLogEntry repeated = new RepeatedLogEntry(
+				buildLogEntry("repeatedService", Level.WARN, new String[] { "repeated" }, "repeated message"));
+		repeated.repeat(repeated.getCreated() + 10);
+		assertTrue(logEntryDAO.save(repeated));
+		verifyPersistence(repeated, true);
+		MatchCriteria criteria = new MatchCriteria();
+		criteria.setOriginServices(new String[] { "repeatedService" });
+		assertEquals(1, logEntryDAO.removeByCriteria(criteria).size());
+		verifyPersistence(repeated, false);
+	}
+
 	@Override
 	public void verifyPersistence(LogEntry entry, boolean expectToBeSaved) {
 		File logFile = new File(loggingFilePath);
@@ -62,7 +78,7 @@ public class FileLogEntryDAOTest extends LogEntryDAOTest {
 			reader = new BufferedReader(new FileReader(logFile));
 			while ((currentLine = reader.readLine()) != null) {
 				String trimmedLine = currentLine.trim();
-				if (trimmedLine.equals(entry.toString())) {
+				if (trimmedLine.equals(new LogEntryEncoder().encodeLine(entry).trim())) {
 					foundEntry = true;
 					break;
 				}
@@ -0,0 +1,208 @@
+/*******************************************************************************
+ * Copyright 2016-2017 Dell Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * @microservice:  support-logging
+ * @author: Jude Hung, Dell
+ * @version: 1.0.0
+ *******************************************************************************/
+package org.edgexfoundry.support.logging.dao;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.edgexfoundry.support.domain.logging.LogEntry;
+import org.edgexfoundry.test.category.RequiresNone;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.rules.TemporaryFolder;
+import org.slf4j.event.Level;
+
+@Category(RequiresNone.class)
+public class GroupCommitWriterTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void testAppendThenClose() throws Exception {
+		File file = new File(folder.getRoot(), "logs/writer.log");
+		GroupCommitWriter writer = new GroupCommitWriter(file.getPath(), 1024 * 1024,
+				GroupCommitWriter.FsyncPolicy.BATCH, 0);
+		writer.start();
+		List<CompletableFuture<Void>> futures = new ArrayList<CompletableFuture<Void>>();
+		for (int i = 0; i < 100; i++) {
+			futures.add(writer.append(Collections.singletonList(buildLogEntry(i))));
+		}
+		for (CompletableFuture<Void> future : futures) {
+			future.get();
+		}
+		writer.close();
+		List<String> lines = Files.readAllLines(file.toPath(), StandardCharsets.UTF_8);
+		assertEquals("Expect 100 lines to be written.", 100, lines.size());
+		assertEquals("99 [writerService] [l1] INFO  - message 99", lines.get(99));
+	}
+
+	@Test
+	public void testRollOver() throws Exception {
+		File file = new File(folder.getRoot(), "rolling.log");
+		GroupCommitWriter writer = new GroupCommitWriter(file.getPath(), 100,
+				GroupCommitWriter.FsyncPolicy.NEVER, 0);
+		writer.start();
+		for (int i = 0; i < 10; i++) {
+			writer.append(Collections.singletonList(buildLogEntry(i))).get();
+		}
+		writer.close();
+		assertTrue("Expect the log file to be rolled over.", new File(file.getPath() + 1).exists());
+		assertTrue("Expect at most seven archives.", !new File(file.getPath() + 8).exists());
+	}
+
+	@Test
+	public void testRollListener() throws Exception {
+		File file = new File(folder.getRoot(), "listened.log");
+		final List<LogEntry> rolled = new ArrayList<LogEntry>();
+		GroupCommitWriter writer = new GroupCommitWriter(file.getPath(), 100, GroupCommitWriter.FsyncPolicy.NEVER, 0,
+				new GroupCommitWriter.RollListener() {
+					@Override
+					public void rolled(List<LogEntry> written) {
+						rolled.addAll(written);
+					}
+				});
+		writer.start();
+		List<LogEntry> entries = new ArrayList<LogEntry>();
+		for (int i = 0; i < 10; i++) {
+			entries.add(buildLogEntry(i));
+			writer.append(Collections.singletonList(entries.get(i))).get();
+		}
+		writer.close();
+		List<String> active = Files.readAllLines(file.toPath(), StandardCharsets.UTF_8);
+		assertEquals("Expect every logEntry either rolled or in the active file.", 10,
+				rolled.size() + writer.getWritten().size());
+		assertEquals(active.size(), writer.getWritten().size());
+		assertEquals(entries.subList(0, rolled.size()), rolled);
+	}
+
+	@Test(expected = ExecutionException.class)
+	public void testAppendAfterClose() throws Exception {
+		GroupCommitWriter writer = new GroupCommitWriter(new File(folder.getRoot(), "closed.log").getPath(), 1024,
+				GroupCommitWriter.FsyncPolicy.INTERVAL, 1000);
+		writer.start();
+		writer.close();
+		writer.append(Collections.singletonList(buildLogEntry(0))).get();
+	}
+
+	@Test(expected = ExecutionException.class)
+	public void testAppendBeforeStart() throws Exception {
+		GroupCommitWriter writer = new GroupCommitWriter(new File(folder.getRoot(), "idle.log").getPath(), 1024,
+				GroupCommitWriter.FsyncPolicy.BATCH, 0);
+		writer.append(Collections.singletonList(buildLogEntry(0))).get(1, TimeUnit.SECONDS);
+	}
+
+	@Test
+	public void testWriterFailure() throws Exception {
+		GroupCommitWriter writer = new GroupCommitWriter(new File(folder.getRoot(), "failing.log").getPath(), 1024,
+				GroupCommitWriter.FsyncPolicy.BATCH, 0);
+		writer.start();
+		try {
+			// the encoder fails on the null logEntry
+			writer.append(Collections.<LogEntry>singletonList(null)).get(10, TimeUnit.SECONDS);
+			fail("Expect the failed write to be reported.");
+		} catch (ExecutionException e) {
+			// expected
+		}
+		try {
+			writer.append(Collections.singletonList(buildLogEntry(0))).get(10, TimeUnit.SECONDS);
+			fail("Expect a stopped writer to refuse logEntries.");
+		} catch (ExecutionException e) {
+			// expected
+		}
+		writer.close();
+	}
+
+	@Test
+	public void testIntervalCompletesWhenWritten() throws Exception {
+		File file = new File(folder.getRoot(), "interval.log");
+		GroupCommitWriter writer = new GroupCommitWriter(file.getPath(), 1024 * 1024,
+				GroupCommitWriter.FsyncPolicy.INTERVAL, 60000);
+		writer.start();
+		long start = System.nanoTime();
+		for (int i = 0; i < 4; i++) {
+			writer.append(Collections.singletonList(buildLogEntry(i))).get(10, TimeUnit.SECONDS);
+		}
+		assertTrue("Expect saves not to wait for the next fsync.",
+				System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5));
+		assertEquals(4, Files.readAllLines(file.toPath(), StandardCharsets.UTF_8).size());
+		writer.close();
+	}
+
+	@Test
+	public void testCancelQueued() throws Exception {
+		File file = new File(folder.getRoot(), "cancelled.log");
+		GroupCommitWriter writer = new GroupCommitWriter(file.getPath(), 1024 * 1024,
+				GroupCommitWriter.FsyncPolicy.NEVER, 0);
+		writer.start();
+		final CountDownLatch encoding = new CountDownLatch(1);
+		final CountDownLatch release = new CountDownLatch(1);
+		// holds the writer thread in the encoder until released
+		LogEntry blocking = new LogEntry() {
+			@Override
+			public String getMessage() {
+				encoding.countDown();
+				try {
+					release.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				return "blocking";
+			}
+		};
+		blocking.setCreated(0L);
+		blocking.setLogLevel(Level.INFO);
+		CompletableFuture<Void> taken = writer.append(Collections.singletonList(blocking));
+		assertTrue(encoding.await(10, TimeUnit.SECONDS));
+		CompletableFuture<Void> queued = writer.append(Collections.singletonList(buildLogEntry(1)));
+		assertFalse("Expect logEntries being written not to be cancelled.", taken.cancel(false));
+		assertTrue("Expect queued logEntries to be cancelled.", queued.cancel(false));
+		release.countDown();
+		taken.get(10, TimeUnit.SECONDS);
+		writer.close();
+		assertEquals(Collections.singletonList("0 [] [] INFO  - blocking"),
+				Files.readAllLines(file.toPath(), StandardCharsets.UTF_8));
+	}
+
+	private LogEntry buildLogEntry(long created) {
+		LogEntry entry = new LogEntry();
+		entry.setCreated(created);
+		entry.setOriginService("writerService");
+		entry.setLabels(new String[] { "l1" });
+		entry.setLogLevel(Level.INFO);
+		entry.setMessage("message " + created);
+		return entry;
+	}
+
+}
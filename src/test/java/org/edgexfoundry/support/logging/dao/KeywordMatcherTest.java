@@ -0,0 +1,92 @@
+/*******************************************************************************
+ * Copyright 2016-2017 Dell Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * @microservice:  support-logging
+ * @author: Jude Hung, Dell
+ * @version: 1.0.0
+ *******************************************************************************/
+package org.edgexfoundry.support.logging.dao;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.edgexfoundry.test.category.RequiresNone;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+@Category(RequiresNone.class)
+public class KeywordMatcherTest {
+
+	@Test
+	public void testMatchAny() {
+		KeywordMatcher matcher = new KeywordMatcher(new String[] { "he", "she", "his", "hers" }, false);
+		assertTrue(matcher.matches("ushers"));
+		assertTrue(matcher.matches("this"));
+		assertFalse(matcher.matches("hits"));
+		assertFalse(matcher.matches("HERS"));
+		assertFalse(matcher.matches(null));
+	}
+
+	@Test
+	public void testFailureTransitions() {
+		KeywordMatcher matcher = new KeywordMatcher(new String[] { "abcd", "bce" }, false);
+		assertTrue(matcher.matches("xabce"));
+		assertFalse(matcher.matches("abcbd"));
+	}
+
+	@Test
+	public void testIgnoreCase() {
+		KeywordMatcher matcher = new KeywordMatcher(new String[] { "Timeout" }, true);
+		assertTrue(matcher.matches("connection TIMEOUT"));
+		assertFalse(new KeywordMatcher(new String[] { "Timeout" }, false).matches("connection TIMEOUT"));
+	}
+
+	@Test
+	public void testMatchAll() {
+		assertTrue(new KeywordMatcher(null, false).matches("anything"));
+		assertTrue(new KeywordMatcher(new String[] {}, false).matches(null));
+		assertTrue(new KeywordMatcher(new String[] { "x", "" }, false).matches("abc"));
+	}
+
+	@Test
+	public void testAgainstContains() {
+		Random random = new Random(7);
+		for (int round = 0; round < 500; round++) {
+			String[] keywords = new String[1 + random.nextInt(4)];
+			for (int i = 0; i < keywords.length; i++) {
+				keywords[i] = randomString(random, 1 + random.nextInt(4));
+			}
+			KeywordMatcher matcher = new KeywordMatcher(keywords, false);
+			String message = randomString(random, random.nextInt(30));
+			boolean expected = false;
+			for (String keyword : keywords) {
+				expected |= message.contains(keyword);
+			}
+			assertEquals(message, expected, matcher.matches(message));
+		}
+	}
+
+	private String randomString(Random random, int length) {
+		StringBuilder builder = new StringBuilder();
+		for (int i = 0; i < length; i++) {
+			builder.append((char) ('a' + random.nextInt(3)));
+		}
+		return builder.toString();
+	}
+
+}
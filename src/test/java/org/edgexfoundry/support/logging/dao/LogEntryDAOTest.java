@@ -21,7 +21,11 @@ package org.edgexfoundry.support.logging.dao;
 
 import static org.junit.Assert.assertTrue;
 
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -126,6 +130,43 @@ public abstract class LogEntryDAOTest {
 		assertTrue("Expect 0 but got " + logEntriesFound.size() + " logEntries to be found.", logEntriesFound.size()==0);
     }
 	
+	@Test
+    public void testSaveAll(){
+    	LogEntry debug = buildLogEntry("debugService", Level.DEBUG, new String[]{"debug1", "debug2"}, "unit test of testSaveAll for debug level.");
+		LogEntry error = buildLogEntry("errorService", Level.ERROR, new String[]{"error1"}, "unit test of testSaveAll for error level.");
+		LogEntry trace = buildLogEntry("traceService", Level.TRACE, new String[]{"trace1"}, "unit test of testSaveAll for trace level.");
+		List<LogEntry> saved = logEntryDAO.saveAll(Arrays.asList(debug, error, trace));
+		assertTrue("Expect 2 but got " + saved.size() + " logEntries to be saved.", saved.size()==2);
+		verifyPersistence(debug, true);
+		verifyPersistence(error, true);
+		verifyPersistence(trace, false);
+		List<LogEntry> logEntriesFound = logEntryDAO.findByCriteria(new MatchCriteria(), -1);
+		assertTrue("Expect 2 but got " + logEntriesFound.size() + " logEntries to be found.", logEntriesFound.size()==2);
+    }
+	
+	@Test
+    public void testConcurrentSave() throws InterruptedException{
+		final int threads = 4;
+		final int entriesPerThread = 50;
+		ExecutorService pool = Executors.newFixedThreadPool(threads);
+		for (int t = 0; t < threads; t++) {
+			final String originService = "concurrentService" + t;
+			pool.execute(new Runnable() {
+				@Override
+				public void run() {
+					for (int n = 0; n < entriesPerThread; n++) {
+						logEntryDAO.save(buildLogEntry(originService, Level.INFO, new String[]{"concurrent"}, "concurrent save " + n));
+					}
+				}
+			});
+		}
+		pool.shutdown();
+		assertTrue("Concurrent saves didn't complete in time.", pool.awaitTermination(60, TimeUnit.SECONDS));
+		List<LogEntry> logEntriesFound = logEntryDAO.findByCriteria(new MatchCriteria(), -1);
+		assertTrue("Expect " + threads * entriesPerThread + " but got " + logEntriesFound.size() + " logEntries to be found.",
+				logEntriesFound.size()==threads * entriesPerThread);
+    }
+	
 	abstract public void cleanPersistence();
 	
 	abstract public void verifyPersistence(LogEntry entry, boolean expectToBeSaved);
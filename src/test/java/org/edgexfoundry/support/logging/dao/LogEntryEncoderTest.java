@@ -0,0 +1,142 @@
+/*******************************************************************************
+ * Copyright 2016-2017 Dell Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * @microservice:  support-logging
+ * @author: Jude Hung, Dell
+ * @version: 1.0.0
+ *******************************************************************************/
+package org.edgexfoundry.support.logging.dao;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+
+import org.edgexfoundry.support.domain.logging.LogEntry;
+import org.edgexfoundry.test.category.RequiresNone;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.slf4j.event.Level;
+
+@Category(RequiresNone.class)
+public class LogEntryEncoderTest {
+
+	private static final String LINE_SEPARATOR = System.getProperty("line.separator");
+
+	private LogEntryEncoder encoder;
+
+	@Before
+	public void setUp() {
+		encoder = new LogEntryEncoder();
+	}
+
+	@Test
+	public void testEncodeLine() {
+		encoder.encode(buildLogEntry(1476952483377L, "testService", Level.INFO, new String[] { "l1", "l2" },
+				"message é中"));
+		assertEquals("1476952483377 [testService] [l1, l2] INFO  - message é中" + LINE_SEPARATOR,
+				encoded());
+	}
+
+	@Test
+	public void testEncodeMissingFields() {
+		encoder.encode(buildLogEntry(0L, null, Level.ERROR, null, "message"));
+		assertEquals("0 [] [] ERROR - message" + LINE_SEPARATOR,
+				encoded());
+	}
+
+	@Test
+	public void testEncodeBatch() {
+		encoder.encode(buildLogEntry(1L, "s1", Level.DEBUG, new String[] { "a" }, "first"));
+		encoder.encode(buildLogEntry(2L, "s2", Level.WARN, new String[] {}, "second"));
+		assertEquals("1 [s1] [a] DEBUG - first" + LINE_SEPARATOR + "2 [s2] [] WARN  - second"
+				+ LINE_SEPARATOR, encoded());
+	}
+
+	@Test
+	public void testEncodeRepeated() {
+		RepeatedLogEntry repeated = new RepeatedLogEntry(buildLogEntry(1L, "s1", Level.WARN, null, "lost"));
+		repeated.repeat(5L);
+		encoder.encode(repeated);
+		assertEquals("1 (repeated 2 times until 5) [s1] [] WARN  - lost" + LINE_SEPARATOR, encoded());
+		assertEquals("Expect the line FileLogEntryDAO removes a RepeatedLogEntry by.",
+				"1 (repeated 2 times until 5) [s1] [] WARN  - lost", repeated.toString());
+	}
+
+	@Test
+	public void testDecodeRepeated() {
+		RepeatedLogEntry repeated = new RepeatedLogEntry(
+				buildLogEntry(1L, "s1", Level.WARN, new String[] { "a" }, "lost"));
+		repeated.repeat(5L);
+		encoder.encode(repeated);
+		LogEntry decoded = FileLogEntryDAO.convertString2LogEntry(encoded().trim());
+		assertTrue(decoded instanceof RepeatedLogEntry);
+		assertEquals(2, ((RepeatedLogEntry) decoded).getRepeatCount());
+		assertEquals(5L, ((RepeatedLogEntry) decoded).getLastCreated());
+		assertEquals("lost", decoded.getMessage());
+		assertEquals("s1", decoded.getOriginService());
+		encoder.reset();
+		// a message merely ending like the old repeat suffix stays a plain logEntry
+		encoder.encode(buildLogEntry(1L, "s1", Level.WARN, null, "lost (repeated 2 times until 5)"));
+		decoded = FileLogEntryDAO.convertString2LogEntry(encoded().trim());
+		assertFalse(decoded instanceof RepeatedLogEntry);
+		assertEquals("lost (repeated 2 times until 5)", decoded.getMessage());
+		assertEquals(1L, decoded.getCreated());
+	}
+
+	@Test
+	public void testEncodeAllocations() {
+		java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+		if (!(bean instanceof com.sun.management.ThreadMXBean)) {
+			return; // allocation counters are HotSpot specific
+		}
+		com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) bean;
+		long threadId = Thread.currentThread().getId();
+		LogEntry entry = buildLogEntry(System.currentTimeMillis(), "allocationService", Level.INFO,
+				new String[] { "label1", "label2", "label3" }, "a typical device service log message");
+		for (int i = 0; i < 10000; i++) {// warm up and grow the buffer
+			encoder.reset();
+			encoder.encode(entry);
+		}
+		int iterations = 100000;
+		long before = threads.getThreadAllocatedBytes(threadId);
+		for (int i = 0; i < iterations; i++) {
+			encoder.reset();
+			encoder.encode(entry);
+		}
+		long allocated = threads.getThreadAllocatedBytes(threadId) - before;
+		assertTrue("Expect encoding to be allocation free but allocated " + allocated + " bytes for " + iterations
+				+ " logEntries.", allocated < 64 * 1024);
+	}
+
+	private String encoded() {
+		return new String(encoder.getBuffer(), 0, encoder.getLength(), StandardCharsets.UTF_8);
+	}
+
+	private LogEntry buildLogEntry(long created, String originService, Level logLevel, String[] labels,
+			String message) {
+		LogEntry entry = new LogEntry();
+		entry.setCreated(created);
+		entry.setOriginService(originService);
+		entry.setLabels(labels);
+		entry.setLogLevel(logLevel);
+		entry.setMessage(message);
+		return entry;
+	}
+
+}
@@ -0,0 +1,380 @@
+/*******************************************************************************
+ * Copyright 2016-2017 Dell Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * @microservice:  support-logging
+ * @author: Jude Hung, Dell
+ * @version: 1.0.0
+ *******************************************************************************/
+package org.edgexfoundry.support.logging.dao;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import org.edgexfoundry.support.domain.logging.LogEntry;
+import org.edgexfoundry.support.domain.logging.MatchCriteria;
+import org.edgexfoundry.test.category.RequiresNone;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.slf4j.event.Level;
+
+@Category(RequiresNone.class)
+public class LogEntryIndexTest {
+
+	private static final LogEntryIndex.Filter ALL = new LogEntryIndex.Filter() {
+		@Override
+		public boolean accept(LogEntry entry) {
+			return true;
+		}
+	};
+
+	private LogEntryIndex index;
+
+	@Before
+	public void setUp() {
+		index = new LogEntryIndex(1 << 20);
+	}
+
+	@Test
+	public void testTimeRange() {
+		for (long created = 1; created <= 100; created++) {
+			index.add(buildLogEntry(created, "s1", Level.INFO, null, Long.toString(created)));
+		}
+		assertEquals("Expect start and end to be exclusive.", Arrays.asList("11", "12", "13", "14"),
+				messages(criteria(10L, 15L), -1));
+		assertEquals(Arrays.asList("99", "100"), messages(criteria(98L, 0L), -1));
+		assertEquals(Arrays.asList("1", "2"), messages(criteria(0L, 3L), -1));
+		assertEquals(Arrays.asList("11", "12"), messages(criteria(10L, 15L), 2));
+		assertEquals(0, messages(criteria(15L, 10L), -1).size());
+		assertEquals(0, messages(criteria(100L, 0L), -1).size());
+	}
+
+	@Test
+	public void testTimeRangeBoundaries() {
+		assertEquals("Expect an empty index to match nothing.", 0, messages(criteria(0L, 0L), -1).size());
+		index.add(buildLogEntry(50L, "s1", Level.INFO, null, "a"));
+		index.add(buildLogEntry(50L, "s1", Level.INFO, null, "b"));
+		index.add(buildLogEntry(50L, "s1", Level.INFO, null, "c"));
+		assertEquals(Arrays.asList("a", "b", "c"), messages(criteria(49L, 51L), -1));
+		assertEquals(0, messages(criteria(50L, 0L), -1).size());
+		assertEquals(0, messages(criteria(0L, 50L), -1).size());
+		assertEquals(0, messages(criteria(50L, 50L), -1).size());
+		// late arrivals right at the bounds of a range
+		index.add(buildLogEntry(60L, "s1", Level.INFO, null, "d"));
+		index.add(buildLogEntry(49L, "s1", Level.INFO, null, "e"));
+		index.add(buildLogEntry(51L, "s1", Level.INFO, null, "f"));
+		assertEquals(Arrays.asList("a", "b", "c"), messages(criteria(49L, 51L), -1));
+		assertEquals(Arrays.asList("e", "a", "b", "c", "f"), messages(criteria(48L, 52L), -1));
+		assertEquals(Arrays.asList("f", "d"), messages(criteria(50L, 0L), -1));
+		assertEquals(Arrays.asList("e"), messages(criteria(0L, 50L), -1));
+	}
+
+	@Test
+	public void testLateArrivals() {
+		index.addAll(Arrays.asList(buildLogEntry(10L, "s1", Level.INFO, null, "a"),
+				buildLogEntry(30L, "s1", Level.INFO, null, "b")));
+		index.add(buildLogEntry(20L, "s1", Level.INFO, null, "c"));
+		index.add(buildLogEntry(5L, "s1", Level.INFO, null, "d"));
+		index.add(buildLogEntry(40L, "s1", Level.INFO, null, "e"));
+		index.add(buildLogEntry(20L, "s1", Level.INFO, null, "f"));
+		assertEquals(Arrays.asList("d", "a", "c", "f", "b", "e"), messages(criteria(0L, 0L), -1));
+		assertEquals(Arrays.asList("d", "a"), messages(criteria(0L, 0L), 2));
+		assertEquals(Arrays.asList("d", "a", "c", "f"), messages(criteria(0L, 30L), -1));
+		assertEquals(Arrays.asList("c", "f", "b"), messages(criteria(10L, 40L), -1));
+	}
+
+	@Test
+	public void testFieldCriteria() {
+		index.add(buildLogEntry(1L, "s1", Level.ERROR, new String[] { "a", "b" }, "1"));
+		index.add(buildLogEntry(2L, "s2", Level.ERROR, new String[] { "b" }, "2"));
+		index.add(buildLogEntry(3L, "s1", Level.DEBUG, null, "3"));
+		index.add(buildLogEntry(4L, null, Level.ERROR, new String[] { "c" }, "4"));
+		index.add(buildLogEntry(5L, "s1", Level.ERROR, new String[] { "c" }, "5"));
+
+		MatchCriteria criteria = criteria(0L, 0L);
+		criteria.setOriginServices(new String[] { "s1" });
+		criteria.setLogLevels(new Level[] { Level.ERROR });
+		assertEquals(Arrays.asList("1", "5"), messages(criteria, -1));
+
+		criteria.setLabels(new String[] { "a", "c" });
+		assertEquals(Arrays.asList("1", "5"), messages(criteria, -1));
+		criteria.setStart(1L);
+		assertEquals(Arrays.asList("5"), messages(criteria, -1));
+
+		criteria = criteria(0L, 0L);
+		criteria.setOriginServices(new String[] { "s2", "unknown" });
+		assertEquals(Arrays.asList("2"), messages(criteria, -1));
+		criteria.setLogLevels(new Level[] { Level.DEBUG });
+		assertEquals(0, messages(criteria, -1).size());
+
+		criteria = criteria(0L, 0L);
+		criteria.setLabels(new String[] { "c" });
+		assertEquals("Expect entries without originService to still be found.", Arrays.asList("4", "5"),
+				messages(criteria, -1));
+	}
+
+	@Test
+	public void testKeywords() {
+		index.add(buildLogEntry(1L, "s1", Level.ERROR, null, "Connection refused"));
+		index.add(buildLogEntry(2L, "s1", Level.INFO, null, "connected to broker"));
+		index.add(buildLogEntry(3L, "s2", Level.ERROR, null, "timeout"));
+		index.add(buildLogEntry(4L, "s2", Level.ERROR, null, null));
+
+		assertEquals(Arrays.asList("connected to broker"), keywordMessages(criteria(0L, 0L), "connect"));
+		assertEquals(Arrays.asList("connected to broker", "timeout"), keywordMessages(criteria(0L, 0L), "connect", "out"));
+		assertEquals("Expect short keywords to fall back to the filter.", Arrays.asList("timeout"),
+				keywordMessages(criteria(0L, 0L), "ou"));
+		assertEquals(0, keywordMessages(criteria(0L, 0L), "unknown").size());
+		MatchCriteria criteria = criteria(0L, 0L);
+		criteria.setOriginServices(new String[] { "s2" });
+		assertEquals(0, keywordMessages(criteria, "connect").size());
+		assertEquals(4, index.getKeywordCovered());
+	}
+
+	@Test
+	public void testKeywordBudget() {
+		index = new LogEntryIndex(5000);
+		for (int i = 0; i < 20; i++) {
+			index.add(buildLogEntry(i, "s1", Level.INFO, null, "message " + i + " of many"));
+		}
+		int covered = index.getKeywordCovered();
+		assertTrue("Expect the budget to stop indexing.", covered > 0 && covered < 20);
+		assertEquals(Arrays.asList("message 19 of many"), keywordMessages(criteria(0L, 0L), "e 19"));
+		assertEquals(Arrays.asList("message 0 of many"), keywordMessages(criteria(0L, 0L), "e 0 "));
+		assertTrue(index.getKeywordBytes() > 0);
+	}
+
+	@Test
+	public void testParallelScan() {
+		ForkJoinPool pool = new ForkJoinPool(4);
+		try {
+			LogEntryIndex parallel = new LogEntryIndex(0, pool, 1);
+			for (int i = 0; i < 50000; i++) {
+				// every 1000th logEntry arrives late
+				long created = i % 1000 == 999 ? i - 500 : i;
+				LogEntry entry = buildLogEntry(created, i % 3 == 0 ? "s1" : "s2", Level.INFO, null,
+						Integer.toString(i));
+				index.add(entry);
+				parallel.add(entry);
+			}
+			MatchCriteria criteria = criteria(100L, 45000L);
+			assertEquals(index.find(criteria, -1, ALL), parallel.find(criteria, -1, ALL));
+			assertEquals(index.findLatest(criteria, 100, ALL), parallel.findLatest(criteria, 100, ALL));
+			assertEquals(index.find(criteria, 30000, ALL), parallel.find(criteria, 30000, ALL));
+			criteria.setOriginServices(new String[] { "s1" });
+			assertEquals(index.find(criteria, 10, ALL), parallel.find(criteria, 10, ALL));
+
+			LogEntryIndex ordered = new LogEntryIndex(0, pool, 1);
+			for (int i = 0; i < 50000; i++) {
+				ordered.add(buildLogEntry(i, "s1", Level.INFO, null, Integer.toString(i)));
+			}
+			List<LogEntry> found = ordered.find(criteria(0L, 0L), 5, ALL);
+			assertEquals(5, found.size());
+			assertEquals("0", found.get(0).getMessage());
+			assertEquals(49999, ordered.find(criteria(0L, 49999L), -1, ALL).size());
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	@Test
+	public void testRemoveByIdentity() {
+		LogEntry first = buildLogEntry(10L, "s1", Level.INFO, null, "same");
+		LogEntry second = buildLogEntry(10L, "s1", Level.INFO, null, "same");
+		index.add(buildLogEntry(30L, "s2", Level.INFO, null, "late"));
+		index.add(first);
+		index.add(second);
+		index.removeAll(Arrays.asList(second));
+		assertEquals(2, index.size());
+		List<LogEntry> found = index.find(criteria(0L, 0L), -1, ALL);
+		assertSame(first, found.get(0));
+		MatchCriteria criteria = criteria(0L, 0L);
+		criteria.setOriginServices(new String[] { "s2" });
+		assertEquals("Expect postings to be updated.", Arrays.asList("late"), messages(criteria, -1));
+	}
+
+	@Test
+	public void testRemoveFromPostings() {
+		LogEntry refused = buildLogEntry(1L, "s1", Level.ERROR, new String[] { "net" }, "connection refused");
+		LogEntry timeout = buildLogEntry(2L, "s2", Level.ERROR, new String[] { "net" }, "connection timeout");
+		List<LogEntry> kept = new ArrayList<LogEntry>();
+		for (int i = 0; i < 10; i++) {
+			kept.add(buildLogEntry(10L + i, "s3", Level.INFO, new String[] { "app" }, "started " + i));
+		}
+		index.add(refused);
+		index.add(timeout);
+		index.addAll(kept);
+		int grams = index.getKeywordGrams();
+		long bytes = index.getKeywordBytes();
+		index.removeAll(Arrays.asList(refused));
+		assertEquals(11, index.size());
+		MatchCriteria criteria = criteria(0L, 0L);
+		criteria.setLogLevels(new Level[] { Level.ERROR });
+		assertEquals(Arrays.asList("connection timeout"), messages(criteria, -1));
+		criteria = criteria(0L, 0L);
+		criteria.setOriginServices(new String[] { "s1" });
+		assertEquals(0, messages(criteria, -1).size());
+		criteria = criteria(0L, 0L);
+		criteria.setLabels(new String[] { "net" });
+		assertEquals(Arrays.asList("connection timeout"), messages(criteria, -1));
+		assertEquals(0, keywordMessages(criteria(0L, 0L), "refused").size());
+		assertEquals(Arrays.asList("connection timeout"), keywordMessages(criteria(0L, 0L), "connection"));
+		assertTrue("Expect trigrams only the removed message held to go.", index.getKeywordGrams() < grams);
+		assertTrue(index.getKeywordBytes() < bytes);
+		// removing most of the logEntries compacts the slots
+		index.removeAll(Arrays.asList(timeout, kept.get(0), kept.get(1), kept.get(2), kept.get(3), kept.get(4)));
+		assertEquals(5, index.size());
+		assertEquals(Arrays.asList("started 5", "started 6", "started 7", "started 8", "started 9"),
+				messages(criteria(0L, 0L), -1));
+		assertEquals(Arrays.asList("started 7"), keywordMessages(criteria(0L, 0L), "ed 7"));
+		index.add(buildLogEntry(5L, "s1", Level.WARN, null, "late"));
+		criteria = criteria(0L, 0L);
+		criteria.setLogLevels(new Level[] { Level.WARN });
+		assertEquals(Arrays.asList("late"), messages(criteria, -1));
+		assertEquals(6, index.size());
+	}
+
+	@Test
+	public void testLimitWithLateArrivals() {
+		Random random = new Random(7);
+		for (int i = 0; i < 5000; i++) {
+			index.add(buildLogEntry(1000L + i - random.nextInt(50), "s1", Level.INFO, null, Integer.toString(i)));
+		}
+		List<String> all = messages(criteria(0L, 0L), -1);
+		assertEquals(5000, all.size());
+		assertEquals("Expect the scan to stop without missing late logEntries.", all.subList(0, 100),
+				messages(criteria(0L, 0L), 100));
+		assertEquals(all.subList(0, 1), messages(criteria(0L, 0L), 1));
+	}
+
+	@Test
+	public void testLatest() {
+		Random random = new Random(11);
+		for (int i = 0; i < 5000; i++) {
+			index.add(buildLogEntry(1000L + i - random.nextInt(50), i % 2 == 0 ? "s1" : "s2", Level.INFO, null,
+					Integer.toString(i)));
+		}
+		List<String> all = messages(criteria(0L, 0L), -1);
+		Collections.reverse(all);
+		assertEquals("Expect the newest first.", all.subList(0, 100), latestMessages(criteria(0L, 0L), 100));
+		assertEquals(all, latestMessages(criteria(0L, 0L), -1));
+
+		MatchCriteria criteria = criteria(2000L, 3000L);
+		criteria.setOriginServices(new String[] { "s1" });
+		List<String> expected = messages(criteria, -1);
+		Collections.reverse(expected);
+		assertEquals(expected.subList(0, 10), latestMessages(criteria, 10));
+	}
+
+	private List<String> latestMessages(MatchCriteria criteria, int limit) {
+		List<String> result = new ArrayList<String>();
+		for (LogEntry entry : index.findLatest(criteria, limit, ALL)) {
+			result.add(entry.getMessage());
+		}
+		return result;
+	}
+
+	@Test
+	public void testPaging() {
+		index.add(buildLogEntry(10L, "s1", Level.INFO, null, "a"));
+		index.add(buildLogEntry(20L, "s1", Level.INFO, null, "b"));
+		index.add(buildLogEntry(20L, "s1", Level.INFO, null, "c"));
+		index.add(buildLogEntry(20L, "s1", Level.INFO, null, "d"));
+		index.add(buildLogEntry(15L, "s1", Level.INFO, null, "e"));
+		LogEntry removed = buildLogEntry(30L, "s1", Level.INFO, null, "f");
+		index.add(removed);
+		index.add(buildLogEntry(40L, "s1", Level.INFO, null, "g"));
+
+		LogEntryPage page = index.findPage(criteria(0L, 0L), 3, ALL, null);
+		assertEquals(Arrays.asList("a", "e", "b"), messages(page));
+		page = index.findPage(criteria(0L, 0L), 3, ALL, PageCursor.decode(page.getCursor()));
+		assertEquals("Expect logEntries created in the same millisecond to span pages.", Arrays.asList("c", "d", "f"),
+				messages(page));
+		String cursor = page.getCursor();
+		index.removeAll(Arrays.asList(removed));
+		index.add(buildLogEntry(35L, "s1", Level.INFO, null, "h"));
+		page = index.findPage(criteria(0L, 0L), 3, ALL, PageCursor.decode(cursor));
+		assertEquals("Expect the cursor to survive removals.", Arrays.asList("h", "g"), messages(page));
+		assertNull("Expect no cursor after the last page.", page.getCursor());
+
+		page = index.findPage(criteria(15L, 0L), 2, ALL, null);
+		assertEquals(Arrays.asList("b", "c"), messages(page));
+		page = index.findPage(criteria(15L, 0L), 2, ALL, PageCursor.decode(page.getCursor()));
+		assertEquals(Arrays.asList("d", "h"), messages(page));
+	}
+
+	private List<String> messages(LogEntryPage page) {
+		List<String> result = new ArrayList<String>();
+		for (LogEntry entry : page.getLogEntries()) {
+			result.add(entry.getMessage());
+		}
+		return result;
+	}
+
+	private List<String> keywordMessages(final MatchCriteria criteria, String... keywords) {
+		criteria.setMessageKeywords(keywords);
+		List<String> result = new ArrayList<String>();
+		for (LogEntry entry : index.find(criteria, -1, new LogEntryIndex.Filter() {
+			@Override
+			public boolean accept(LogEntry entry) {
+				for (String keyword : criteria.getMessageKeywords()) {
+					if (null != entry.getMessage() && entry.getMessage().contains(keyword)) {
+						return true;
+					}
+				}
+				return false;
+			}
+		})) {
+			result.add(entry.getMessage());
+		}
+		return result;
+	}
+
+	private MatchCriteria criteria(long start, long end) {
+		MatchCriteria criteria = new MatchCriteria();
+		criteria.setStart(start);
+		criteria.setEnd(end);
+		return criteria;
+	}
+
+	private List<String> messages(MatchCriteria criteria, int limit) {
+		List<String> result = new ArrayList<String>();
+		for (LogEntry entry : index.find(criteria, limit, ALL)) {
+			result.add(entry.getMessage());
+		}
+		return result;
+	}
+
+	private LogEntry buildLogEntry(long created, String originService, Level logLevel, String[] labels,
+			String message) {
+		LogEntry entry = new LogEntry();
+		entry.setCreated(created);
+		entry.setOriginService(originService);
+		entry.setLabels(labels);
+		entry.setLogLevel(logLevel);
+		entry.setMessage(message);
+		return entry;
+	}
+
+}
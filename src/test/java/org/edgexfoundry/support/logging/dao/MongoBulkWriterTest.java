@@ -0,0 +1,165 @@
+/*******************************************************************************
+ * Copyright 2016-2017 Dell Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * @microservice:  support-logging
+ * @author: Jude Hung, Dell
+ * @version: 1.0.0
+ *******************************************************************************/
+package org.edgexfoundry.support.logging.dao;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.edgexfoundry.support.domain.logging.LogEntry;
+import org.edgexfoundry.test.category.RequiresNone;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.slf4j.event.Level;
+
+import com.mongodb.BasicDBObject;
+import com.mongodb.DBObject;
+import com.mongodb.MongoException;
+
+@Category(RequiresNone.class)
+public class MongoBulkWriterTest {
+
+	@Test
+	public void testFlushOnBatchSize() throws Exception {
+		RecordingTarget target = new RecordingTarget(0);
+		MongoBulkWriter writer = new MongoBulkWriter(target, 10, 60000, 100, 0, 1);
+		writer.start();
+		append(writer, 25);
+		waitFor(target, 20);
+		assertEquals(Arrays.asList(10, 10), target.batches);
+		writer.close();
+		assertEquals(Arrays.asList(10, 10, 5), target.batches);
+		assertEquals(25, target.inserted.size());
+		assertFalse("Expect a closed writer to refuse logEntries.", writer.append(buildLogEntry(0), null));
+	}
+
+	@Test
+	public void testFlushOnDelay() throws Exception {
+		RecordingTarget target = new RecordingTarget(0);
+		MongoBulkWriter writer = new MongoBulkWriter(target, 1000, 20, 1000, 0, 1);
+		writer.start();
+		append(writer, 3);
+		waitFor(target, 3);
+		assertEquals(Arrays.asList(3), target.batches);
+		writer.close();
+	}
+
+	@Test
+	public void testFlush() throws Exception {
+		RecordingTarget target = new RecordingTarget(0);
+		MongoBulkWriter writer = new MongoBulkWriter(target, 1000, 60000, 1000, 0, 1);
+		writer.start();
+		append(writer, 7);
+		writer.flush().get(10, TimeUnit.SECONDS);
+		assertEquals(7, target.inserted.size());
+		assertEquals(1L, writer.getMetrics().get("flushes"));
+		writer.close();
+	}
+
+	@Test
+	public void testRetry() throws Exception {
+		RecordingTarget target = new RecordingTarget(2);
+		MongoBulkWriter writer = new MongoBulkWriter(target, 1000, 60000, 1000, 3, 1);
+		writer.start();
+		append(writer, 4);
+		writer.flush().get(10, TimeUnit.SECONDS);
+		assertEquals(Arrays.asList(4), target.batches);
+		assertEquals(4, target.inserted.size());
+		assertEquals(2L, writer.getMetrics().get("retries"));
+		assertEquals(0L, writer.getMetrics().get("droppedLogEntries"));
+		writer.close();
+	}
+
+	@Test
+	public void testDropAfterRetries() throws Exception {
+		RecordingTarget target = new RecordingTarget(Integer.MAX_VALUE);
+		MongoBulkWriter writer = new MongoBulkWriter(target, 1000, 60000, 1000, 2, 1);
+		writer.start();
+		append(writer, 5);
+		writer.flush().get(10, TimeUnit.SECONDS);
+		assertTrue(target.inserted.isEmpty());
+		assertEquals(3, target.attempts.get());
+		assertEquals(5L, writer.getMetrics().get("droppedLogEntries"));
+		writer.close();
+	}
+
+	private void append(MongoBulkWriter writer, int count) {
+		for (int i = 0; i < count; i++) {
+			assertTrue(writer.append(buildLogEntry(i), new BasicDBObject("created", (long) i)));
+		}
+	}
+
+	private void waitFor(RecordingTarget target, int count) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 10000;
+		while (target.inserted.size() < count && System.currentTimeMillis() < deadline) {
+			Thread.sleep(5);
+		}
+		assertEquals(count, target.inserted.size());
+	}
+
+	private LogEntry buildLogEntry(long created) {
+		LogEntry entry = new LogEntry();
+		entry.setCreated(created);
+		entry.setOriginService("writerService");
+		entry.setLogLevel(Level.INFO);
+		entry.setMessage("message " + created);
+		return entry;
+	}
+
+	/**
+	 * Records the bulk inserts, failing the first ones
+	 */
+	private static class RecordingTarget implements MongoBulkWriter.Target {
+
+		private final int failures;
+
+		private final AtomicInteger attempts = new AtomicInteger();
+
+		private final List<Integer> batches = new CopyOnWriteArrayList<Integer>();
+
+		private final List<LogEntry> inserted = new CopyOnWriteArrayList<LogEntry>();
+
+		RecordingTarget(int failures) {
+			this.failures = failures;
+		}
+
+		@Override
+		public void insert(List<DBObject> documents) {
+			if (attempts.incrementAndGet() <= failures) {
+				throw new MongoException("connection refused");
+			}
+			batches.add(documents.size());
+		}
+
+		@Override
+		public void inserted(List<LogEntry> entries) {
+			inserted.addAll(new ArrayList<LogEntry>(entries));
+		}
+
+	}
+
+}
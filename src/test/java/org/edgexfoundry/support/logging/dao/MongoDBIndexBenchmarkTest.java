@@ -0,0 +1,136 @@
+/*******************************************************************************
+ * Copyright 2016-2017 Dell Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * @microservice:  support-logging
+ * @author: Jude Hung, Dell
+ * @version: 1.0.0
+ *******************************************************************************/
+package org.edgexfoundry.support.logging.dao;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.edgexfoundry.EdgeXSupportLoggingApplication;
+import org.edgexfoundry.support.domain.logging.LogEntry;
+import org.edgexfoundry.test.category.RequiresMongoDB;
+import org.edgexfoundry.test.category.RequiresSpring;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.runner.RunWith;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.event.Level;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import com.mongodb.BasicDBObject;
+import com.mongodb.DBCollection;
+import com.mongodb.DBObject;
+
+/**
+ * Compares the MatchCriteria queries answered with the indexes ensured at
+ * startup against the same queries forced to scan the collection. The number
+ * of logEntries is set with -Dbenchmark.logEntries, default 1000000.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = EdgeXSupportLoggingApplication.class)
+@TestPropertySource(locations = "classpath:test-mongodb.properties")
+@Category({ RequiresMongoDB.class, RequiresSpring.class })
+public class MongoDBIndexBenchmarkTest {
+
+	private static final Logger logger = LoggerFactory.getLogger(MongoDBIndexBenchmarkTest.class);
+
+	private static final int LOG_ENTRIES = Integer.getInteger("benchmark.logEntries", 1000000);
+
+	private static final int SERVICES = 50;
+
+	private static final long DAY = 24 * 60 * 60 * 1000L;
+
+	@Autowired
+	private MongoTemplate mongoTemplate;
+
+	private DBCollection collection;
+
+	private long start;
+
+	@Before
+	public void setUp() {
+		mongoTemplate.remove(new Query(), LogEntry.class);
+		collection = mongoTemplate.getCollection(mongoTemplate.getCollectionName(LogEntry.class));
+		start = System.currentTimeMillis() - DAY;
+		Random random = new Random(17);
+		Level[] levels = Level.values();
+		List<LogEntry> batch = new ArrayList<LogEntry>();
+		for (int i = 0; i < LOG_ENTRIES; i++) {
+			LogEntry entry = new LogEntry();
+			entry.setCreated(start + (long) i * DAY / LOG_ENTRIES);
+			entry.setOriginService("service" + random.nextInt(SERVICES));
+			entry.setLogLevel(levels[random.nextInt(levels.length)]);
+			entry.setLabels(new String[] { "label" + random.nextInt(100), "label" + random.nextInt(100) });
+			entry.setMessage("benchmark message " + i);
+			batch.add(entry);
+			if (batch.size() == 10000) {
+				mongoTemplate.insert(batch, LogEntry.class);
+				batch.clear();
+			}
+		}
+		if (!batch.isEmpty()) {
+			mongoTemplate.insert(batch, LogEntry.class);
+		}
+	}
+
+	@After
+	public void tearDown() {
+		mongoTemplate.remove(new Query(), LogEntry.class);
+	}
+
+	@Test
+	public void testIndexedQueries() {
+		long hourAgo = start + DAY - 60 * 60 * 1000L;
+		DBObject lastHour = new BasicDBObject("$gt", hourAgo).append("$lt", start + DAY);
+		DBObject wholeDay = new BasicDBObject("$gt", start - 1).append("$lt", start + DAY);
+		compare("created", new BasicDBObject("created", lastHour));
+		compare("originService",
+				new BasicDBObject("created", wholeDay).append("originService", "service7"));
+		compare("logLevel", new BasicDBObject("created", lastHour).append("logLevel", Level.ERROR.name()));
+		compare("labels", new BasicDBObject("created", wholeDay).append("labels",
+				new BasicDBObject("$in", new String[] { "label3", "label5" })));
+	}
+
+	private void compare(String name, DBObject query) {
+		long scanStart = System.nanoTime();
+		int scanned = collection.find(query).hint(new BasicDBObject("$natural", 1)).itcount();
+		long scanTime = System.nanoTime() - scanStart;
+		long indexStart = System.nanoTime();
+		int indexed = collection.find(query).itcount();
+		long indexTime = System.nanoTime() - indexStart;
+		String used = MongoIndexes.usedIndex(collection.find(query).explain());
+		logger.info("{}: {} of {} logEntries, collection scan {} ms, index {} {} ms", name, indexed, LOG_ENTRIES,
+				scanTime / 1000000, used, indexTime / 1000000);
+		assertEquals(scanned, indexed);
+		assertNotEquals(MongoIndexes.COLLECTION_SCAN, used);
+	}
+
+}
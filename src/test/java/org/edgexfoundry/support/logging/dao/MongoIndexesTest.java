@@ -0,0 +1,90 @@
+/*******************************************************************************
+ * Copyright 2016-2017 Dell Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * @microservice:  support-logging
+ * @author: Jude Hung, Dell
+ * @version: 1.0.0
+ *******************************************************************************/
+package org.edgexfoundry.support.logging.dao;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.edgexfoundry.test.category.RequiresNone;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.IndexField;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+
+import com.mongodb.BasicDBObject;
+import com.mongodb.DBObject;
+
+@Category(RequiresNone.class)
+public class MongoIndexesTest {
+
+	@Test
+	public void testParse() {
+		List<Index> indexes = MongoIndexes.parse("created; originService,created;;logLevel , created;labels");
+		assertEquals(4, indexes.size());
+		assertEquals(new BasicDBObject("created", 1), indexes.get(0).getIndexKeys());
+		DBObject compound = indexes.get(1).getIndexKeys();
+		assertEquals(Arrays.asList("originService", "created"), Arrays.asList(compound.keySet().toArray()));
+		assertEquals(Arrays.asList("logLevel", "created"),
+				Arrays.asList(indexes.get(2).getIndexKeys().keySet().toArray()));
+		assertEquals(new BasicDBObject("labels", 1), indexes.get(3).getIndexKeys());
+		assertTrue(MongoIndexes.parse("").isEmpty());
+		assertTrue(MongoIndexes.parse(null).isEmpty());
+	}
+
+	@Test
+	public void testUsedIndex() {
+		DBObject indexScan = new BasicDBObject("stage", "IXSCAN").append("indexName", "originService_1_created_1");
+		DBObject fetch = new BasicDBObject("stage", "FETCH").append("inputStage", indexScan);
+		assertEquals("originService_1_created_1", MongoIndexes.usedIndex(explain(fetch)));
+		assertEquals(MongoIndexes.COLLECTION_SCAN,
+				MongoIndexes.usedIndex(explain(new BasicDBObject("stage", "COLLSCAN"))));
+		DBObject or = new BasicDBObject("stage", "OR").append("inputStages",
+				Arrays.asList(indexScan, new BasicDBObject("stage", "IXSCAN").append("indexName", "labels_1")));
+		assertEquals("originService_1_created_1,labels_1", MongoIndexes.usedIndex(explain(or)));
+		assertNull(MongoIndexes.usedIndex(new BasicDBObject()));
+		assertNull(MongoIndexes.usedIndex(null));
+	}
+
+	@Test
+	public void testHasTextIndex() {
+		IndexInfo created = new IndexInfo(Arrays.asList(IndexField.create("created", Sort.Direction.ASC)),
+				"created_1", false, false, false, null);
+		IndexInfo text = new IndexInfo(
+				Arrays.asList(IndexField.text("message", 1F), IndexField.create("_fts", Sort.Direction.ASC)),
+				"message_text", false, false, false, "english");
+		assertTrue(MongoIndexes.hasTextIndex(Arrays.asList(created, text), "message"));
+		assertFalse(MongoIndexes.hasTextIndex(Arrays.asList(created), "message"));
+		assertFalse(MongoIndexes.hasTextIndex(Arrays.asList(text), "originService"));
+		assertFalse(MongoIndexes.hasTextIndex(Collections.<IndexInfo>emptyList(), "message"));
+	}
+
+	private DBObject explain(DBObject winningPlan) {
+		return new BasicDBObject("queryPlanner", new BasicDBObject("winningPlan", winningPlan));
+	}
+
+}
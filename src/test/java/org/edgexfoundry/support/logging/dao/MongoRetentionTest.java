@@ -0,0 +1,84 @@
+/*******************************************************************************
+ * Copyright 2016-2017 Dell Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * @microservice:  support-logging
+ * @author: Jude Hung, Dell
+ * @version: 1.0.0
+ *******************************************************************************/
+package org.edgexfoundry.support.logging.dao;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Date;
+
+import org.edgexfoundry.support.domain.logging.LogEntry;
+import org.edgexfoundry.test.category.RequiresNone;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.slf4j.event.Level;
+
+import com.mongodb.BasicDBObject;
+import com.mongodb.DBObject;
+
+@Category(RequiresNone.class)
+public class MongoRetentionTest {
+
+	@Test
+	public void testDisabled() {
+		MongoRetention retention = new MongoRetention(0, "");
+		assertFalse(retention.isEnabled());
+		DBObject document = new BasicDBObject();
+		retention.stamp(buildLogEntry(Level.ERROR, 1000), document);
+		assertFalse(document.containsField(MongoRetention.EXPIRE_AT));
+	}
+
+	@Test
+	public void testPerLevelRetention() {
+		MongoRetention retention = new MongoRetention(5000, "debug:100, TRACE:0");
+		assertTrue(retention.isEnabled());
+		assertEquals(new Date(6000), retention.expireAt(buildLogEntry(Level.ERROR, 1000)));
+		assertEquals(new Date(1100), retention.expireAt(buildLogEntry(Level.DEBUG, 1000)));
+		assertNull("Expect TRACE logEntries to be kept.", retention.expireAt(buildLogEntry(Level.TRACE, 1000)));
+		DBObject document = new BasicDBObject();
+		retention.stamp(buildLogEntry(Level.WARN, 1000), document);
+		assertEquals(new Date(6000), document.get(MongoRetention.EXPIRE_AT));
+	}
+
+	@Test
+	public void testLevelRetentionOnly() {
+		MongoRetention retention = new MongoRetention(0, "DEBUG:100");
+		assertTrue(retention.isEnabled());
+		assertNull(retention.expireAt(buildLogEntry(Level.ERROR, 1000)));
+		assertEquals(new Date(1100), retention.expireAt(buildLogEntry(Level.DEBUG, 1000)));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testInvalidLevelRetention() {
+		new MongoRetention(0, "DEBUG=100");
+	}
+
+	private LogEntry buildLogEntry(Level logLevel, long created) {
+		LogEntry entry = new LogEntry();
+		entry.setCreated(created);
+		entry.setLogLevel(logLevel);
+		entry.setOriginService("retentionService");
+		entry.setMessage("message");
+		return entry;
+	}
+
+}
@@ -0,0 +1,103 @@
+/*******************************************************************************
+ * Copyright 2016-2017 Dell Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * @microservice:  support-logging
+ * @author: Jude Hung, Dell
+ * @version: 1.0.0
+ *******************************************************************************/
+package org.edgexfoundry.support.logging.dao;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.slf4j.event.Level;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.TestPropertySource;
+
+import org.edgexfoundry.support.domain.logging.LogEntry;
+import org.edgexfoundry.support.domain.logging.MatchCriteria;
+import org.edgexfoundry.support.logging.service.RollupCounters;
+import org.edgexfoundry.test.category.RequiresNone;
+
+@TestPropertySource(locations="classpath:test-segment.properties")
+@Category({ RequiresNone.class })
+public class SegmentLogEntryDAOTest extends LogEntryDAOTest {
+
+	@Autowired
+	private RollupCounters rollups;
+
+	@Test
+	public void testSaveOversized() {
+		char[] message = new char[2 * 1024 * 1024];
+		Arrays.fill(message, 'x');
+		LogEntry entry = buildLogEntry("oversizedService", Level.INFO, null, new String(message));
+		assertFalse("Expect a logEntry larger than a segment to be reported dropped.", logEntryDAO.save(entry));
+		assertTrue(logEntryDAO.saveAll(Arrays.asList(entry)).isEmpty());
+	}
+
+	@Test
+	public void testDroppedSegmentExpires() {
+		char[] message = new char[10 * 1024];
+		Arrays.fill(message, 'x');
+		// more than the 4 segments of 1MB kept
+		for (int i = 0; i < 600; i++) {
+			LogEntry entry = buildLogEntry("expiringService", Level.INFO, null, i + new String(message));
+			entry.setCreated(System.currentTimeMillis());
+			rollups.add(entry);
+			assertTrue(logEntryDAO.save(entry));
+		}
+		MatchCriteria criteria = new MatchCriteria();
+		criteria.setOriginServices(new String[] { "expiringService" });
+		int kept = logEntryDAO.findByCriteria(criteria, -1).size();
+		assertTrue("Expect the oldest segments to be dropped.", kept < 600);
+		Map<Level, Long> counts = rollups.count(0L, 0L, new String[] { "expiringService" }, null)
+				.get("expiringService");
+		assertEquals("Expect the dropped logEntries not to be counted.", Long.valueOf(kept), counts.get(Level.INFO));
+	}
+
+	@Override
+	public void cleanPersistence(){
+		logEntryDAO.removeByCriteria(new MatchCriteria());
+	}
+
+	@Override
+	public void verifyPersistence(LogEntry entry, boolean expectToBeSaved) {
+		MatchCriteria criteria = new MatchCriteria();
+		criteria.setOriginServices(new String[]{entry.getOriginService()});
+		criteria.setLogLevels(new Level[]{entry.getLogLevel()});
+		boolean foundEntry = false;
+		List<LogEntry> found = logEntryDAO.findByCriteria(criteria, -1);
+		for (LogEntry candidate : found) {
+			if (candidate.getMessage().equals(entry.getMessage())
+					&& Arrays.equals(candidate.getLabels(), entry.getLabels())) {
+				foundEntry = true;
+				break;
+			}
+		}
+		if (expectToBeSaved){
+			assertTrue("Expect to found LogEntry:" + entry.toString() + ".", foundEntry);
+		} else {
+			assertTrue("Expect not to found LogEntry:" + entry.toString() + ".", !foundEntry);
+		}
+	}
+
+}
@@ -0,0 +1,230 @@
+/*******************************************************************************
+ * Copyright 2016-2017 Dell Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * @microservice:  support-logging
+ * @author: Jude Hung, Dell
+ * @version: 1.0.0
+ *******************************************************************************/
+package org.edgexfoundry.support.logging.dao;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.PriorityQueue;
+
+import org.edgexfoundry.support.domain.logging.LogEntry;
+import org.edgexfoundry.support.domain.logging.MatchCriteria;
+import org.edgexfoundry.test.category.RequiresNone;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.rules.TemporaryFolder;
+import org.slf4j.event.Level;
+
+@Category(RequiresNone.class)
+public class SegmentTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void testAppendAndFind() throws Exception {
+		Segment segment = Segment.create(folder.newFile("segment.dat"), 4096);
+		segment.append(buildLogEntry(10L, "s1", Level.INFO, new String[] { "a", "b" }, "device connected"));
+		segment.append(buildLogEntry(20L, "s2", Level.ERROR, null, "device lost"));
+		segment.append(buildLogEntry(30L, null, Level.DEBUG, new String[] { "c" }, null));
+
+		assertEquals(3, find(segment, new MatchCriteria(), -1).size());
+		assertEquals(2, find(segment, new MatchCriteria(), 2).size());
+
+		MatchCriteria criteria = new MatchCriteria();
+		criteria.setLogLevels(new Level[] { Level.ERROR });
+		List<LogEntry> found = find(segment, criteria, -1);
+		assertEquals(1, found.size());
+		assertEquals("s2", found.get(0).getOriginService());
+		assertNull(found.get(0).getLabels());
+
+		criteria = new MatchCriteria();
+		criteria.setLabels(new String[] { "b", "c" });
+		assertEquals(2, find(segment, criteria, -1).size());
+
+		criteria = new MatchCriteria();
+		criteria.setMessageKeywords(new String[] { "lost" });
+		assertEquals(1, find(segment, criteria, -1).size());
+
+		criteria = new MatchCriteria();
+		criteria.setStart(10L);
+		criteria.setEnd(30L);
+		found = find(segment, criteria, -1);
+		assertEquals("Expect start and end to be exclusive.", 1, found.size());
+		assertEquals(20L, found.get(0).getCreated());
+	}
+
+	@Test
+	public void testRemoveThenRecover() throws Exception {
+		File file = folder.newFile("segment.dat");
+		Segment segment = Segment.create(file, 4096);
+		segment.append(buildLogEntry(10L, "s1", Level.INFO, new String[] { "a" }, "keep"));
+		segment.append(buildLogEntry(20L, "s1", Level.WARN, new String[] { "a" }, "remove"));
+		MatchCriteria criteria = new MatchCriteria();
+		criteria.setLogLevels(new Level[] { Level.WARN });
+		List<LogEntry> removed = new ArrayList<LogEntry>();
+		segment.find(new SegmentCriteria(criteria), -1, removed, true);
+		assertEquals(1, removed.size());
+		segment.force();
+
+		Segment recovered = Segment.open(file);
+		List<LogEntry> found = find(recovered, new MatchCriteria(), -1);
+		assertEquals(1, found.size());
+		assertEquals("keep", found.get(0).getMessage());
+		assertArrayEquals(new String[] { "a" }, found.get(0).getLabels());
+		assertTrue("Expect the recovered segment to accept appends.",
+				recovered.append(buildLogEntry(30L, "s1", Level.INFO, null, "after recovery")));
+		assertEquals(2, find(recovered, new MatchCriteria(), -1).size());
+	}
+
+	@Test
+	public void testRepeated() throws Exception {
+		Segment segment = Segment.create(folder.newFile("segment.dat"), 4096);
+		RepeatedLogEntry repeated = new RepeatedLogEntry(buildLogEntry(10L, "s1", Level.WARN, null, "lost"));
+		repeated.repeat(40L);
+		repeated.repeat(20L);
+		segment.append(repeated);
+		segment.append(buildLogEntry(50L, "s1", Level.INFO, null, "single"));
+
+		List<LogEntry> found = find(segment, new MatchCriteria(), -1);
+		assertEquals(2, found.size());
+		assertTrue(found.get(0) instanceof RepeatedLogEntry);
+		assertEquals(3, ((RepeatedLogEntry) found.get(0)).getRepeatCount());
+		assertEquals(40L, ((RepeatedLogEntry) found.get(0)).getLastCreated());
+		assertEquals("lost", found.get(0).getMessage());
+		assertFalse(found.get(1) instanceof RepeatedLogEntry);
+
+		MatchCriteria criteria = new MatchCriteria();
+		criteria.setMessageKeywords(new String[] { "lost" });
+		segment.find(new SegmentCriteria(criteria), -1, new ArrayList<LogEntry>(), true);
+		assertEquals(1, find(segment, new MatchCriteria(), -1).size());
+	}
+
+	@Test
+	public void testFull() throws Exception {
+		Segment segment = Segment.create(folder.newFile("segment.dat"), 128);
+		int appended = 0;
+		while (segment.append(buildLogEntry(appended, "s1", Level.INFO, null, "0123456789"))) {
+			appended++;
+		}
+		assertTrue("Expect some records to fit.", appended > 0);
+		assertFalse(segment.append(buildLogEntry(0L, "s1", Level.INFO, null, "0123456789")));
+		assertEquals(appended, find(segment, new MatchCriteria(), -1).size());
+	}
+
+	@Test
+	public void testNext() throws Exception {
+		Segment segment = Segment.create(folder.newFile("segment.dat"), 4096);
+		segment.append(buildLogEntry(10L, "s1", Level.INFO, null, "a"));
+		segment.append(buildLogEntry(20L, "s2", Level.INFO, null, "b"));
+		segment.append(buildLogEntry(30L, "s1", Level.INFO, null, "c"));
+
+		MatchCriteria criteria = new MatchCriteria();
+		criteria.setOriginServices(new String[] { "s1" });
+		SegmentCriteria segmentCriteria = new SegmentCriteria(criteria);
+		List<String> messages = new ArrayList<String>();
+		for (int position = segment.next(segmentCriteria, -1); position >= 0; position = segment
+				.next(segmentCriteria, position)) {
+			messages.add(segment.read(position).getMessage());
+		}
+		assertEquals(Arrays.asList("a", "c"), messages);
+	}
+
+	@Test
+	public void testFindPage() throws Exception {
+		Segment first = Segment.create(folder.newFile("segment-1.dat"), 4096);
+		first.append(buildLogEntry(20L, "s1", Level.INFO, null, "b"));
+		first.append(buildLogEntry(10L, "s1", Level.INFO, null, "a"));
+		Segment second = Segment.create(folder.newFile("segment-2.dat"), 4096);
+		second.append(buildLogEntry(20L, "s1", Level.INFO, null, "c"));
+		second.append(buildLogEntry(15L, "s1", Level.INFO, null, "d"));
+
+		List<Segment.Match> page = findPage(new MatchCriteria(), 3, null, first, second);
+		assertEquals(Arrays.asList("a", "d", "b"), pageMessages(page));
+		page = findPage(new MatchCriteria(), 3, page.get(2), first, second);
+		assertEquals("Expect ties on created to be broken by segment and position.", Arrays.asList("c"),
+				pageMessages(page));
+	}
+
+	@Test
+	public void testFindLatest() throws Exception {
+		Segment older = Segment.create(folder.newFile("segment-1.dat"), 4096);
+		older.append(buildLogEntry(30L, "s1", Level.INFO, null, "a"));
+		older.append(buildLogEntry(10L, "s1", Level.INFO, null, "b"));
+		Segment newer = Segment.create(folder.newFile("segment-2.dat"), 4096);
+		newer.append(buildLogEntry(20L, "s1", Level.INFO, null, "c"));
+		newer.append(buildLogEntry(40L, "s1", Level.INFO, null, "d"));
+
+		PriorityQueue<Segment.Match> latest = new PriorityQueue<Segment.Match>(3, Segment.PAGE_ORDER);
+		newer.findLatest(new SegmentCriteria(new MatchCriteria()), 2, 2, latest);
+		older.findLatest(new SegmentCriteria(new MatchCriteria()), 1, 2, latest);
+		List<Segment.Match> found = new ArrayList<Segment.Match>(latest);
+		Collections.sort(found, Collections.reverseOrder(Segment.PAGE_ORDER));
+		assertEquals(Arrays.asList("d", "a"), pageMessages(found));
+	}
+
+	private List<Segment.Match> findPage(MatchCriteria criteria, int limit, Segment.Match after,
+			Segment... segments) {
+		PriorityQueue<Segment.Match> page = new PriorityQueue<Segment.Match>(limit,
+				Collections.reverseOrder(Segment.PAGE_ORDER));
+		for (int i = 0; i < segments.length; i++) {
+			segments[i].findPage(new SegmentCriteria(criteria), i + 1, null == after ? Long.MIN_VALUE : after.created,
+					null == after ? -1L : after.sequence, limit, page);
+		}
+		List<Segment.Match> result = new ArrayList<Segment.Match>(page);
+		Collections.sort(result, Segment.PAGE_ORDER);
+		return result;
+	}
+
+	private List<String> pageMessages(List<Segment.Match> page) {
+		List<String> result = new ArrayList<String>();
+		for (Segment.Match match : page) {
+			result.add(match.entry.getMessage());
+		}
+		return result;
+	}
+
+	private List<LogEntry> find(Segment segment, MatchCriteria criteria, int limit) {
+		List<LogEntry> result = new ArrayList<LogEntry>();
+		segment.find(new SegmentCriteria(criteria), limit, result, false);
+		return result;
+	}
+
+	private LogEntry buildLogEntry(long created, String originService, Level logLevel, String[] labels,
+			String message) {
+		LogEntry entry = new LogEntry();
+		entry.setCreated(created);
+		entry.setOriginService(originService);
+		entry.setLabels(labels);
+		entry.setLogLevel(logLevel);
+		entry.setMessage(message);
+		return entry;
+	}
+
+}
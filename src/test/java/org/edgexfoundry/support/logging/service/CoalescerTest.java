@@ -0,0 +1,141 @@
+/*******************************************************************************
+ * Copyright 2016-2017 Dell Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * @microservice:  support-logging
+ * @author: Jude Hung, Dell
+ * @version: 1.0.0
+ *******************************************************************************/
+package org.edgexfoundry.support.logging.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.edgexfoundry.support.domain.logging.LogEntry;
+import org.edgexfoundry.support.domain.logging.MatchCriteria;
+import org.edgexfoundry.support.logging.dao.LogEntryDAO;
+import org.edgexfoundry.support.logging.dao.LogEntryPage;
+import org.edgexfoundry.support.logging.dao.RepeatedLogEntry;
+import org.edgexfoundry.test.category.RequiresNone;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.slf4j.event.Level;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.util.CloseableIterator;
+
+@Category(RequiresNone.class)
+public class CoalescerTest {
+
+	private List<LogEntry> saved;
+
+	private long now;
+
+	private Coalescer coalescer;
+
+	@Before
+	public void setUp() {
+		saved = new ArrayList<LogEntry>();
+		now = System.currentTimeMillis();
+		coalescer = new Coalescer(60000, 2, new LogEntryDAO() {
+			@Override
+			public boolean save(LogEntry entry) {
+				saved.add(entry);
+				return true;
+			}
+
+			@Override
+			public List<LogEntry> saveAll(List<LogEntry> entries) {
+				saved.addAll(entries);
+				return entries;
+			}
+
+			@Override
+			public List<LogEntry> findByCriteria(MatchCriteria criteria, int limit) {
+				return new ArrayList<LogEntry>();
+			}
+
+			@Override
+			public List<LogEntry> findByCriteria(MatchCriteria criteria, int limit, Sort.Direction direction) {
+				return new ArrayList<LogEntry>();
+			}
+
+			@Override
+			public LogEntryPage findPageByCriteria(MatchCriteria criteria, int limit, String cursor) {
+				return new LogEntryPage(new ArrayList<LogEntry>(), null);
+			}
+
+			@Override
+			public CloseableIterator<LogEntry> streamByCriteria(MatchCriteria criteria) {
+				throw new UnsupportedOperationException();
+			}
+
+			@Override
+			public List<LogEntry> removeByCriteria(MatchCriteria criteria) {
+				return new ArrayList<LogEntry>();
+			}
+		});
+	}
+
+	@Test
+	public void testCoalesce() {
+		assertTrue(coalescer.add(buildLogEntry(now + 1, "s1", Level.ERROR, new String[] { "a" }, "reconnect failed")));
+		assertTrue(coalescer.add(buildLogEntry(now + 3, "s1", Level.ERROR, new String[] { "a" }, "reconnect failed")));
+		assertTrue(coalescer.add(buildLogEntry(now + 2, "s1", Level.ERROR, new String[] { "a" }, "reconnect failed")));
+		assertTrue(coalescer.add(buildLogEntry(now + 4, "s2", Level.ERROR, new String[] { "a" }, "reconnect failed")));
+
+		coalescer.flush();
+		assertTrue("Expect entries to be held back within the window.", saved.isEmpty());
+
+		coalescer.destroy();
+		assertEquals(2, saved.size());
+		RepeatedLogEntry repeated = (RepeatedLogEntry) (saved.get(0) instanceof RepeatedLogEntry ? saved.get(0)
+				: saved.get(1));
+		assertEquals(3, repeated.getRepeatCount());
+		assertEquals(now + 1, repeated.getFirstCreated());
+		assertEquals(now + 3, repeated.getLastCreated());
+		LogEntry single = saved.get(0) == repeated ? saved.get(1) : saved.get(0);
+		assertFalse("Expect an entry without repeats to be stored unchanged.", single instanceof RepeatedLogEntry);
+		assertEquals("s2", single.getOriginService());
+		assertEquals(2L, coalescer.getMetrics().get("coalescedLogEntries"));
+	}
+
+	@Test
+	public void testDistinct() {
+		assertTrue(coalescer.add(buildLogEntry(now + 1, "s1", Level.ERROR, null, "m")));
+		assertTrue(coalescer.add(buildLogEntry(now + 1, "s1", Level.ERROR, new String[] { "a" }, "m")));
+		assertFalse("Expect coalescing to be bypassed once max pending is reached.",
+				coalescer.add(buildLogEntry(now + 1, "s1", Level.WARN, null, "m")));
+		assertTrue("Expect repeats of held back entries to still be coalesced.",
+				coalescer.add(buildLogEntry(now + 2, "s1", Level.ERROR, null, "m")));
+		coalescer.destroy();
+		assertEquals(2, saved.size());
+	}
+
+	private LogEntry buildLogEntry(long created, String originService, Level logLevel, String[] labels,
+			String message) {
+		LogEntry entry = new LogEntry();
+		entry.setCreated(created);
+		entry.setOriginService(originService);
+		entry.setLabels(labels);
+		entry.setLogLevel(logLevel);
+		entry.setMessage(message);
+		return entry;
+	}
+
+}
@@ -0,0 +1,81 @@
+/*******************************************************************************
+ * Copyright 2016-2017 Dell Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * @microservice:  support-logging
+ * @author: Jude Hung, Dell
+ * @version: 1.0.0
+ *******************************************************************************/
+package org.edgexfoundry.support.logging.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.util.concurrent.CountDownLatch;
+
+import org.edgexfoundry.test.category.RequiresNone;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.springframework.core.task.TaskRejectedException;
+
+@Category(RequiresNone.class)
+public class IngestionExecutorTest {
+
+	private IngestionExecutor executor;
+
+	private CountDownLatch release;
+
+	@Before
+	public void setUp() {
+		executor = new IngestionExecutor(1, 1);
+		executor.initialize();
+		release = new CountDownLatch(1);
+	}
+
+	@After
+	public void cleanup() {
+		release.countDown();
+		executor.shutdown();
+	}
+
+	@Test
+	public void testRejectWhenSaturated() {
+		executor.execute(blocker());
+		executor.execute(blocker());
+		try {
+			executor.execute(blocker());
+			fail("Expect the third task to be rejected.");
+		} catch (TaskRejectedException e) {
+			// expected
+		}
+		assertEquals("Expect one rejected task.", 1L, executor.getRejectedCount());
+		assertEquals("Expect one rejected task in metrics.", 1L, executor.getMetrics().get("rejectedTasks"));
+	}
+
+	private Runnable blocker() {
+		return new Runnable() {
+			@Override
+			public void run() {
+				try {
+					release.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+		};
+	}
+
+}
@@ -0,0 +1,92 @@
+/*******************************************************************************
+ * Copyright 2016-2017 Dell Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * @microservice:  support-logging
+ * @author: Jude Hung, Dell
+ * @version: 1.0.0
+ *******************************************************************************/
+package org.edgexfoundry.support.logging.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.edgexfoundry.support.domain.logging.LogEntry;
+import org.edgexfoundry.test.category.RequiresNone;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.slf4j.event.Level;
+
+@Category(RequiresNone.class)
+public class LevelThresholdsTest {
+
+	private LevelThresholds thresholds;
+
+	@Before
+	public void setUp() {
+		thresholds = new LevelThresholds();
+	}
+
+	@Test
+	public void testAcceptWithoutThreshold() {
+		assertTrue(thresholds.accept(buildLogEntry("s1", Level.TRACE)));
+		assertEquals(0L, thresholds.getDiscardedCount());
+	}
+
+	@Test
+	public void testAcceptWithThreshold() {
+		thresholds.setThreshold("s1", Level.WARN);
+		assertTrue(thresholds.accept(buildLogEntry("s1", Level.ERROR)));
+		assertTrue(thresholds.accept(buildLogEntry("s1", Level.WARN)));
+		assertFalse(thresholds.accept(buildLogEntry("s1", Level.INFO)));
+		assertFalse(thresholds.accept(buildLogEntry("s1", Level.DEBUG)));
+		assertTrue("Expect other originServices to be unaffected.", thresholds.accept(buildLogEntry("s2", Level.DEBUG)));
+		assertEquals(2L, thresholds.getDiscardedCount());
+
+		assertEquals(Level.WARN, thresholds.removeThreshold("s1"));
+		assertNull(thresholds.getThreshold("s1"));
+		assertTrue(thresholds.accept(buildLogEntry("s1", Level.DEBUG)));
+	}
+
+	@Test
+	public void testFilter() {
+		thresholds.setThreshold("s1", Level.INFO);
+		thresholds.setThreshold(null, Level.ERROR);
+		List<LogEntry> entries = new ArrayList<LogEntry>();
+		entries.add(buildLogEntry("s1", Level.INFO));
+		entries.add(buildLogEntry("s1", Level.DEBUG));
+		entries.add(buildLogEntry(null, Level.WARN));
+		entries.add(buildLogEntry("s2", Level.TRACE));
+		thresholds.filter(entries);
+		assertEquals(2, entries.size());
+		assertEquals(Level.INFO, entries.get(0).getLogLevel());
+		assertEquals("s2", entries.get(1).getOriginService());
+		assertEquals(2L, thresholds.getMetrics().get("discardedLogEntries"));
+	}
+
+	private LogEntry buildLogEntry(String originService, Level logLevel) {
+		LogEntry entry = new LogEntry();
+		entry.setOriginService(originService);
+		entry.setLogLevel(logLevel);
+		entry.setMessage("message");
+		return entry;
+	}
+
+}
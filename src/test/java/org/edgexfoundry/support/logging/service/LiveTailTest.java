@@ -0,0 +1,148 @@
+/*******************************************************************************
+ * Copyright 2016-2017 Dell Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * @microservice:  support-logging
+ * @author: Jude Hung, Dell
+ * @version: 1.0.0
+ *******************************************************************************/
+package org.edgexfoundry.support.logging.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import org.edgexfoundry.support.domain.logging.LogEntry;
+import org.edgexfoundry.support.domain.logging.MatchCriteria;
+import org.edgexfoundry.test.category.RequiresNone;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.slf4j.event.Level;
+
+@Category(RequiresNone.class)
+public class LiveTailTest {
+
+	private List<Runnable> pending;
+
+	private LiveTail liveTail;
+
+	private List<String> received;
+
+	private boolean closed;
+
+	@Before
+	public void setUp() {
+		pending = new ArrayList<Runnable>();
+		received = new ArrayList<String>();
+		closed = false;
+		// drains only run when the test says so, like a stalled subscriber
+		liveTail = new LiveTail(2, 1, new Executor() {
+			@Override
+			public void execute(Runnable command) {
+				pending.add(command);
+			}
+		});
+	}
+
+	@Test
+	public void testFilterAndDropOldest() {
+		MatchCriteria criteria = new MatchCriteria();
+		criteria.setOriginServices(new String[] { "s1" });
+		criteria.setMessageKeywords(new String[] { "lost" });
+		assertNotNull(liveTail.subscribe(criteria, sink()));
+
+		liveTail.publish(buildLogEntry("s1", "lost 1"));
+		liveTail.publish(buildLogEntry("s2", "lost 2"));
+		liveTail.publish(buildLogEntry("s1", "found 3"));
+		liveTail.publishAll(Arrays.asList(buildLogEntry("s1", "lost 4"), buildLogEntry("s1", "lost 5")));
+		assertEquals("Expect a single drain to be scheduled.", 1, pending.size());
+
+		pending.remove(0).run();
+		assertEquals(Arrays.asList("dropped 1", "lost 4", "lost 5"), received);
+		assertEquals(1L, liveTail.getMetrics().get("droppedLogEntries"));
+
+		liveTail.publish(buildLogEntry("s1", "lost 6"));
+		pending.remove(0).run();
+		assertEquals("lost 6", received.get(3));
+	}
+
+	@Test
+	public void testMaxSubscribersAndCancel() {
+		LiveTail.Subscription subscription = liveTail.subscribe(new MatchCriteria(), sink());
+		assertNull(liveTail.subscribe(new MatchCriteria(), sink()));
+		subscription.cancel();
+		assertTrue(closed);
+		assertNotNull(liveTail.subscribe(new MatchCriteria(), sink()));
+	}
+
+	@Test
+	public void testFailingSubscriberIsRemoved() {
+		liveTail.subscribe(new MatchCriteria(), new LiveTail.Sink() {
+			@Override
+			public void send(LogEntry entry) throws IOException {
+				throw new IOException("Broken pipe");
+			}
+
+			@Override
+			public void dropped(long count) throws IOException {
+			}
+
+			@Override
+			public void close(Throwable cause) {
+				closed = null != cause;
+			}
+		});
+		liveTail.publish(buildLogEntry("s1", "a"));
+		pending.remove(0).run();
+		assertTrue(closed);
+		assertEquals(0, liveTail.getMetrics().get("subscribers"));
+	}
+
+	private LiveTail.Sink sink() {
+		return new LiveTail.Sink() {
+			@Override
+			public void send(LogEntry entry) throws IOException {
+				received.add(entry.getMessage());
+			}
+
+			@Override
+			public void dropped(long count) throws IOException {
+				received.add("dropped " + count);
+			}
+
+			@Override
+			public void close(Throwable cause) {
+				closed = true;
+			}
+		};
+	}
+
+	private LogEntry buildLogEntry(String originService, String message) {
+		LogEntry entry = new LogEntry();
+		entry.setCreated(System.currentTimeMillis());
+		entry.setOriginService(originService);
+		entry.setLogLevel(Level.INFO);
+		entry.setMessage(message);
+		return entry;
+	}
+
+}
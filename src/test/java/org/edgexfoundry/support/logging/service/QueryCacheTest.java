@@ -0,0 +1,222 @@
+/*******************************************************************************
+ * Copyright 2016-2017 Dell Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * @microservice:  support-logging
+ * @author: Jude Hung, Dell
+ * @version: 1.0.0
+ *******************************************************************************/
+package org.edgexfoundry.support.logging.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.edgexfoundry.support.domain.logging.LogEntry;
+import org.edgexfoundry.support.domain.logging.MatchCriteria;
+import org.edgexfoundry.test.category.RequiresNone;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.slf4j.event.Level;
+
+@Category(RequiresNone.class)
+public class QueryCacheTest {
+
+	private long now;
+
+	private int loads;
+
+	private QueryCache cache;
+
+	@Before
+	public void setUp() {
+		now = 0;
+		loads = 0;
+		cache = new QueryCache(1000, 5) {
+			@Override
+			protected long now() {
+				return now;
+			}
+		};
+	}
+
+	@Test
+	public void testHitWithNormalizedCriteria() {
+		MatchCriteria criteria = criteria(0L, 0L);
+		criteria.setOriginServices(new String[] { "s2", "s1", "s1" });
+		List<LogEntry> first = cache.find(criteria, 10, loader(2));
+		MatchCriteria equivalent = criteria(0L, 0L);
+		equivalent.setOriginServices(new String[] { "s1", "s2" });
+		List<LogEntry> second = cache.find(equivalent, 10, loader(2));
+		assertEquals(1, loads);
+		assertEquals(first, second);
+		cache.find(equivalent, 5, loader(2));
+		assertEquals("Expect the limit to be part of the key.", 2, loads);
+		assertEquals(1L, cache.getMetrics().get("hits"));
+		assertEquals(0.5 / 1.5, (Double) cache.getMetrics().get("hitRatio"), 0.0001);
+	}
+
+	@Test
+	public void testExpire() {
+		cache.find(criteria(0L, 0L), 10, loader(1));
+		now = 999;
+		cache.find(criteria(0L, 0L), 10, loader(1));
+		assertEquals(1, loads);
+		now = 1000;
+		cache.find(criteria(0L, 0L), 10, loader(1));
+		assertEquals(2, loads);
+		assertEquals(1L, cache.getMetrics().get("expirations"));
+	}
+
+	@Test
+	public void testEvictBySize() {
+		cache.find(criteria(1L, 0L), 10, loader(2));
+		cache.find(criteria(2L, 0L), 10, loader(2));
+		cache.find(criteria(1L, 0L), 10, loader(2));
+		// the least recently used result goes to make room
+		cache.find(criteria(3L, 0L), 10, loader(2));
+		assertEquals(3, loads);
+		cache.find(criteria(1L, 0L), 10, loader(2));
+		assertEquals(3, loads);
+		cache.find(criteria(2L, 0L), 10, loader(2));
+		assertEquals(4, loads);
+		cache.find(criteria(4L, 0L), 10, loader(6));
+		assertEquals("Expect results larger than the cache not to be cached.", 4,
+				cache.getMetrics().get("cachedLogEntries"));
+		assertEquals(2L, cache.getMetrics().get("evictions"));
+	}
+
+	@Test
+	public void testInvalidate() {
+		MatchCriteria errors = criteria(100L, 200L);
+		errors.setLogLevels(new Level[] { Level.ERROR });
+		cache.find(errors, 10, loader(1));
+		cache.invalidate(buildLogEntry(150L, Level.INFO));
+		cache.invalidate(buildLogEntry(200L, Level.ERROR));
+		cache.find(errors, 10, loader(1));
+		assertEquals("Expect logEntries outside of the query not to invalidate it.", 1, loads);
+		cache.invalidate(Arrays.asList(buildLogEntry(150L, Level.ERROR)));
+		cache.find(errors, 10, loader(1));
+		assertEquals(2, loads);
+		assertEquals(1L, cache.getMetrics().get("invalidations"));
+	}
+
+	@Test
+	public void testInvalidateBuckets() {
+		cache = new QueryCache(1000, 100);
+		MatchCriteria services = criteria(0L, 0L);
+		services.setOriginServices(new String[] { "s2", "s1" });
+		MatchCriteria warnings = criteria(0L, 0L);
+		warnings.setLogLevels(new Level[] { Level.WARN });
+		MatchCriteria past = criteria(0L, 100L);
+		MatchCriteria all = criteria(0L, 0L);
+		MatchCriteria[] queries = { services, warnings, past, all };
+		for (MatchCriteria query : queries) {
+			cache.find(query, 10, loader(1));
+		}
+		LogEntry other = buildLogEntry(150L, Level.ERROR);
+		other.setOriginService("s3");
+		cache.invalidate(other);
+		assertEquals("Expect only the unbounded query to be invalidated.", 1L, cache.getMetrics().get("invalidations"));
+		cache.invalidate(buildLogEntry(50L, Level.WARN));
+		assertEquals(4L, cache.getMetrics().get("invalidations"));
+		for (MatchCriteria query : queries) {
+			cache.find(query, 10, loader(1));
+		}
+		assertEquals(8, loads);
+		cache.invalidate(buildLogEntry(150L, Level.INFO));
+		assertEquals("Expect logEntries after the end of a query not to invalidate it.", 6L,
+				cache.getMetrics().get("invalidations"));
+	}
+
+	@Test
+	public void testInvalidateWhileLoading() {
+		final List<LogEntry> result = new ArrayList<LogEntry>();
+		List<LogEntry> found = cache.find(criteria(0L, 0L), 10, new QueryCache.Loader() {
+			@Override
+			public List<LogEntry> load() {
+				loads++;
+				cache.invalidate(buildLogEntry(150L, Level.ERROR));
+				return result;
+			}
+		});
+		assertSame(result, found);
+		cache.find(criteria(0L, 0L), 10, loader(0));
+		assertEquals("Expect a result loaded during a write not to be cached.", 2, loads);
+	}
+
+	@Test
+	public void testFailedLoad() {
+		try {
+			cache.find(criteria(0L, 0L), 10, new QueryCache.Loader() {
+				@Override
+				public List<LogEntry> load() {
+					loads++;
+					throw new IllegalStateException("database unavailable");
+				}
+			});
+			fail("Expect the failure of the loader to be thrown.");
+		} catch (IllegalStateException e) {
+			// expected
+		}
+		cache.find(criteria(0L, 0L), 10, loader(1));
+		cache.find(criteria(0L, 0L), 10, loader(1));
+		assertEquals("Expect the query to be cached after a failed load.", 2, loads);
+		assertEquals(1, cache.getMetrics().get("cachedResults"));
+	}
+
+	@Test
+	public void testDisabled() {
+		cache = new QueryCache(0, 5);
+		cache.find(criteria(0L, 0L), 10, loader(1));
+		cache.find(criteria(0L, 0L), 10, loader(1));
+		assertEquals(2, loads);
+	}
+
+	private QueryCache.Loader loader(final int size) {
+		return new QueryCache.Loader() {
+			@Override
+			public List<LogEntry> load() {
+				loads++;
+				List<LogEntry> result = new ArrayList<LogEntry>();
+				for (int i = 0; i < size; i++) {
+					result.add(buildLogEntry(i, Level.INFO));
+				}
+				return result;
+			}
+		};
+	}
+
+	private MatchCriteria criteria(long start, long end) {
+		MatchCriteria criteria = new MatchCriteria();
+		criteria.setStart(start);
+		criteria.setEnd(end);
+		return criteria;
+	}
+
+	private LogEntry buildLogEntry(long created, Level logLevel) {
+		LogEntry entry = new LogEntry();
+		entry.setCreated(created);
+		entry.setOriginService("s1");
+		entry.setLogLevel(logLevel);
+		entry.setMessage("message");
+		return entry;
+	}
+
+}
@@ -0,0 +1,139 @@
+/*******************************************************************************
+ * Copyright 2016-2017 Dell Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * @microservice:  support-logging
+ * @author: Jude Hung, Dell
+ * @version: 1.0.0
+ *******************************************************************************/
+package org.edgexfoundry.support.logging.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+
+import org.edgexfoundry.support.domain.logging.LogEntry;
+import org.edgexfoundry.test.category.RequiresNone;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.slf4j.event.Level;
+
+@Category(RequiresNone.class)
+public class RateLimiterTest {
+
+	private long now;
+
+	@Before
+	public void setUp() {
+		now = 0;
+	}
+
+	@Test
+	public void testDisabled() {
+		RateLimiter limiter = buildRateLimiter(0, 0, 10, null);
+		for (int i = 0; i < 100; i++) {
+			assertTrue(limiter.accept(buildLogEntry("s1", Level.TRACE)));
+		}
+		assertEquals(0L, limiter.getDroppedCount());
+	}
+
+	@Test
+	public void testSampleWhenExhausted() {
+		RateLimiter limiter = buildRateLimiter(2, 2, 3, null);
+		assertTrue(limiter.accept(buildLogEntry("s1", Level.DEBUG)));
+		assertTrue(limiter.accept(buildLogEntry("s1", Level.DEBUG)));
+		int kept = 0;
+		for (int i = 0; i < 9; i++) {
+			if (limiter.accept(buildLogEntry("s1", Level.DEBUG))) {
+				kept++;
+			}
+		}
+		assertEquals("Expect one of every three to be kept.", 3, kept);
+		assertTrue("Expect ERROR to always be kept.", limiter.accept(buildLogEntry("s1", Level.ERROR)));
+		assertTrue("Expect WARN to always be kept.", limiter.accept(buildLogEntry("s1", Level.WARN)));
+		assertTrue("Expect other originServices to be unaffected.", limiter.accept(buildLogEntry("s2", Level.DEBUG)));
+		assertEquals(6L, limiter.getDroppedCount());
+		assertEquals(Long.valueOf(6L), limiter.getDroppedCounts().get("s1"));
+		assertEquals(Long.valueOf(0L), limiter.getDroppedCounts().get("s2"));
+	}
+
+	@Test
+	public void testRefill() {
+		RateLimiter limiter = buildRateLimiter(2, 2, Integer.MAX_VALUE, null);
+		assertTrue(limiter.accept(buildLogEntry("s1", Level.INFO)));
+		assertTrue(limiter.accept(buildLogEntry("s1", Level.INFO)));
+		assertTrue("Expect the first sampled entry to be kept.", limiter.accept(buildLogEntry("s1", Level.INFO)));
+		assertFalse(limiter.accept(buildLogEntry("s1", Level.INFO)));
+		now += TimeUnit.MILLISECONDS.toNanos(500);
+		assertTrue(limiter.accept(buildLogEntry("s1", Level.INFO)));
+		assertFalse(limiter.accept(buildLogEntry("s1", Level.INFO)));
+	}
+
+	@Test
+	public void testRateOverride() {
+		RateLimiter limiter = buildRateLimiter(0, 0, Integer.MAX_VALUE, "s1:1, s2 : 0");
+		assertTrue(limiter.accept(buildLogEntry("s1", Level.INFO)));
+		assertTrue(limiter.accept(buildLogEntry("s1", Level.INFO)));
+		assertFalse(limiter.accept(buildLogEntry("s1", Level.INFO)));
+		for (int i = 0; i < 10; i++) {
+			assertTrue(limiter.accept(buildLogEntry("s2", Level.INFO)));
+			assertTrue(limiter.accept(buildLogEntry("s3", Level.INFO)));
+		}
+	}
+
+	@Test
+	public void testMaxBuckets() {
+		RateLimiter limiter = buildRateLimiter(1, 1, Integer.MAX_VALUE, null, 2);
+		assertTrue(limiter.accept(buildLogEntry("s1", Level.INFO)));
+		assertTrue(limiter.accept(buildLogEntry("s2", Level.INFO)));
+		assertTrue("Expect s3 to get the shared bucket.", limiter.accept(buildLogEntry("s3", Level.INFO)));
+		assertTrue("Expect the first sampled entry to be kept.", limiter.accept(buildLogEntry("s4", Level.INFO)));
+		assertFalse("Expect s4 to share the exhausted bucket of s3.", limiter.accept(buildLogEntry("s4", Level.INFO)));
+		assertEquals(2, limiter.getDroppedCounts().size());
+
+		// s1 and s2 have refilled, so their buckets are expired for s5
+		now += TimeUnit.SECONDS.toNanos(1);
+		assertTrue(limiter.accept(buildLogEntry("s5", Level.INFO)));
+		assertTrue(limiter.accept(buildLogEntry("s5", Level.INFO)));
+		assertFalse("Expect s5 to have a bucket of its own.", limiter.accept(buildLogEntry("s5", Level.INFO)));
+		assertEquals(1, limiter.getDroppedCounts().size());
+		assertEquals(Long.valueOf(1L), limiter.getDroppedCounts().get("s5"));
+		assertEquals(2L, limiter.getDroppedCount());
+	}
+
+	private RateLimiter buildRateLimiter(double rate, long burst, int sample, String rates) {
+		return buildRateLimiter(rate, burst, sample, rates, 10000);
+	}
+
+	private RateLimiter buildRateLimiter(double rate, long burst, int sample, String rates, int maxBuckets) {
+		return new RateLimiter(rate, burst, sample, rates, maxBuckets) {
+			@Override
+			protected long now() {
+				return now;
+			}
+		};
+	}
+
+	private LogEntry buildLogEntry(String originService, Level logLevel) {
+		LogEntry entry = new LogEntry();
+		entry.setOriginService(originService);
+		entry.setLogLevel(logLevel);
+		entry.setMessage("message");
+		return entry;
+	}
+
+}
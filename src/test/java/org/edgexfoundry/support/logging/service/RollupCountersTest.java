@@ -0,0 +1,161 @@
+/*******************************************************************************
+ * Copyright 2016-2017 Dell Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * @microservice:  support-logging
+ * @author: Jude Hung, Dell
+ * @version: 1.0.0
+ *******************************************************************************/
+package org.edgexfoundry.support.logging.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.SortedMap;
+
+import org.edgexfoundry.support.domain.logging.LogEntry;
+import org.edgexfoundry.support.logging.dao.LogEntryRetention;
+import org.edgexfoundry.support.logging.dao.RepeatedLogEntry;
+import org.edgexfoundry.test.category.RequiresNone;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.slf4j.event.Level;
+
+@Category(RequiresNone.class)
+public class RollupCountersTest {
+
+	private RollupCounters rollups;
+
+	@Before
+	public void setUp() {
+		rollups = new RollupCounters(10, 1000);
+	}
+
+	@Test
+	public void testCount() {
+		for (long created = 0; created < 2000; created++) {
+			rollups.add(buildLogEntry(created, created % 2 == 0 ? "s1" : "s2", Level.INFO));
+		}
+		rollups.add(buildLogEntry(1005L, "s1", Level.ERROR));
+
+		Map<String, Map<Level, Long>> counts = rollups.count(0L, 0L, null, null);
+		assertEquals(Long.valueOf(1000), counts.get("s1").get(Level.INFO));
+		assertEquals(Long.valueOf(1), counts.get("s1").get(Level.ERROR));
+		assertEquals(Long.valueOf(1000), counts.get("s2").get(Level.INFO));
+
+		counts = rollups.count(15L, 1795L, new String[] { "s1" }, new Level[] { Level.INFO });
+		assertEquals("Expect bounds to be widened to whole buckets.", Long.valueOf(895),
+				counts.get("s1").get(Level.INFO));
+		assertEquals(1, counts.size());
+		assertEquals(1, counts.get("s1").size());
+	}
+
+	@Test
+	public void testRemove() {
+		LogEntry first = buildLogEntry(5L, "s1", Level.WARN);
+		RepeatedLogEntry repeated = new RepeatedLogEntry(buildLogEntry(7L, "s1", Level.WARN));
+		repeated.repeat(8L);
+		repeated.repeat(9L);
+		rollups.addAll(Arrays.asList(first, repeated));
+		assertEquals("Expect repeats to be counted.", Long.valueOf(4),
+				rollups.count(0L, 0L, null, null).get("s1").get(Level.WARN));
+
+		rollups.removeAll(Arrays.asList(repeated));
+		assertEquals(Long.valueOf(1), rollups.count(0L, 0L, null, null).get("s1").get(Level.WARN));
+		rollups.removeAll(Arrays.asList(first));
+		assertTrue(rollups.count(0L, 0L, null, null).isEmpty());
+	}
+
+	@Test
+	public void testHistogram() {
+		for (long created = 0; created < 1200; created += 5) {
+			rollups.add(buildLogEntry(created, null, Level.DEBUG));
+		}
+		SortedMap<Long, Map<String, Map<Level, Long>>> histogram = rollups.histogram(100L, 300L, 100L, null, null);
+		assertEquals(Arrays.asList(100L, 200L), Arrays.asList(histogram.keySet().toArray()));
+		assertEquals(Long.valueOf(20), histogram.get(100L).get("").get(Level.DEBUG));
+
+		histogram = rollups.histogram(0L, 0L, 600L, null, null);
+		assertEquals("Expect coarse buckets to answer whole intervals.", 2, histogram.size());
+		assertEquals(Long.valueOf(120), histogram.get(600L).get("").get(Level.DEBUG));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testHistogramInterval() {
+		rollups.histogram(0L, 0L, 15L, null, null);
+	}
+
+	@Test
+	public void testMaxBuckets() {
+		rollups = new RollupCounters(10, 3);
+		for (long created = 0; created < 50; created += 10) {
+			rollups.add(buildLogEntry(created, "s1", Level.INFO));
+		}
+		assertEquals(3, rollups.histogram(0L, 0L, 10L, null, null).size());
+		assertEquals(2L, rollups.getMetrics().get("droppedBuckets"));
+		assertEquals("Expect coarse buckets to keep the history longer.", Long.valueOf(5),
+				rollups.count(0L, 0L, null, null).get("s1").get(Level.INFO));
+	}
+
+	@Test
+	public void testExpireWithRetention() {
+		rollups = new RollupCounters(10, 1000, new LogEntryRetention() {
+			@Override
+			public long getRetention(Level logLevel) {
+				return Level.DEBUG == logLevel ? 100L : Level.INFO == logLevel ? 1000L : 0L;
+			}
+		});
+		for (long created = 0; created < 2000; created++) {
+			rollups.add(buildLogEntry(created, "s1", Level.DEBUG));
+			rollups.add(buildLogEntry(created, "s1", Level.INFO));
+			rollups.add(buildLogEntry(created, "s1", Level.ERROR));
+		}
+		rollups.expire(2005L);
+		// DEBUG created before 1905 and INFO before 1005 have expired, the
+		// fine buckets before them are cleared
+		SortedMap<Long, Map<String, Map<Level, Long>>> histogram = rollups.histogram(0L, 0L, 10L, null,
+				new Level[] { Level.DEBUG });
+		assertEquals(Long.valueOf(1900), histogram.firstKey());
+		assertEquals(10, histogram.size());
+		histogram = rollups.histogram(0L, 0L, 10L, null, new Level[] { Level.INFO });
+		assertEquals(Long.valueOf(1000), histogram.firstKey());
+		assertEquals(Long.valueOf(100), rollups.count(1000L, 2000L, null, null).get("s1").get(Level.DEBUG));
+		// unbounded counts read the coarse buckets, the one straddling the
+		// retention is counted until it has wholly expired
+		Map<String, Map<Level, Long>> counts = rollups.count(0L, 0L, null, null);
+		assertEquals(Long.valueOf(200), counts.get("s1").get(Level.DEBUG));
+		assertEquals(Long.valueOf(1400), counts.get("s1").get(Level.INFO));
+		assertEquals(Long.valueOf(2000), counts.get("s1").get(Level.ERROR));
+		rollups.expire(2405L + 100L);
+		assertTrue("Expect wholly expired coarse buckets to be cleared.",
+				null == rollups.count(0L, 0L, null, null).get("s1").get(Level.DEBUG));
+
+		rollups.removeAll(Arrays.asList(buildLogEntry(5L, "s1", Level.INFO)));
+		assertEquals("Expect removing an expired logEntry not to go negative.", Long.valueOf(800),
+				rollups.count(0L, 0L, null, null).get("s1").get(Level.INFO));
+	}
+
+	private LogEntry buildLogEntry(long created, String originService, Level logLevel) {
+		LogEntry entry = new LogEntry();
+		entry.setCreated(created);
+		entry.setOriginService(originService);
+		entry.setLogLevel(logLevel);
+		entry.setMessage("message");
+		return entry;
+	}
+
+}